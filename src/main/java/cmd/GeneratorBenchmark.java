@@ -0,0 +1,75 @@
+package cmd;
+
+import urlgenerator.URLGenerator;
+import urlgenerator.generator.ThreadLocalURLGenerator;
+import urlgenerator.generator.URLGeneratorImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сравнение пропускной способности генераторов коротких ссылок при многопоточной генерации.
+ *
+ * <p>Аргументы: число потоков (по умолчанию — число ядер) и длительность замера в секундах (по умолчанию 3).</p>
+ */
+public class GeneratorBenchmark {
+
+    /**
+     * Сумма хешей сгенерированных ссылок: печатается в конце, чтобы JIT не мог выбросить генерацию.
+     */
+    private static final LongAdder checksum = new LongAdder();
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        for (int t = 1; t <= threads; t *= 2) {
+            double shared = measure(new URLGeneratorImpl(), t, seconds);
+            double local = measure(new ThreadLocalURLGenerator(), t, seconds);
+            System.out.printf("Потоков: %3d | URLGeneratorImpl: %,14.0f оп/с | ThreadLocalURLGenerator: %,14.0f оп/с | x%.1f%n",
+                    t, shared, local, local / shared);
+        }
+        System.out.println("Контрольная сумма: " + checksum.sum());
+    }
+
+    /**
+     * Замеряет число сгенерированных ссылок в секунду.
+     *
+     * @param generator генератор.
+     * @param threads   число потоков.
+     * @param seconds   длительность замера.
+     * @return операций в секунду.
+     */
+    private static double measure(URLGenerator generator, int threads, int seconds) throws InterruptedException {
+        LongAdder counter = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                long sink = 0;
+                while ((local & 1023) != 0 || System.nanoTime() < deadline) {
+                    sink += generator.generateShortLink().hashCode();
+                    local++;
+                }
+                counter.add(local);
+                checksum.add(sink);
+            });
+            workers[i].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return counter.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -1,12 +1,37 @@
 package cmd;
 
 import controller.Controller;
+import heavyhitters.HeavyHitter;
+import jdbc.ConnectionPool;
+import linkrepository.LinkRepository;
+import linkrepository.hot.HotLinkRepository;
 import linkrepository.inmemory.InMemoryLinkRepository;
+import linkrepository.instrumented.InstrumentedLinkRepository;
+import linkrepository.jdbc.JdbcLinkRepository;
+import linkrepository.mapped.MappedLinkRepository;
+import linkrepository.persistent.PersistentLinkRepository;
+import linkrepository.sharded.ShardedLinkRepository;
+import notificationsrepository.NotificationsRepository;
 import notificationsrepository.inmemory.InMemoryNotificationsRepository;
+import notificationsrepository.jdbc.JdbcNotificationsRepository;
+import server.RedirectServer;
 import service.URLShortener;
 import service.URLShortenerConfig;
+import urlgenerator.URLGenerator;
+import urlgenerator.generator.PooledURLGenerator;
+import urlgenerator.generator.ThreadLocalURLGenerator;
 import urlgenerator.generator.URLGeneratorImpl;
+import userrepository.UserRepository;
 import userrepository.inmemory.InMemoryUserRepository;
+import userrepository.jdbc.JdbcUserRepository;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 
 public class Main {
@@ -21,16 +46,118 @@ public class Main {
             return;
         }
 
+        LinkRepository linkRepository;
+        UserRepository userRepository;
+        NotificationsRepository notificationsRepository;
+
+        // Ресурсы закрываются одним обработчиком в порядке, обратном созданию: сервис успевает
+        // записать накопленные клики до закрытия хранилища.
+        Deque<AutoCloseable> resources = new ConcurrentLinkedDeque<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeAll(resources)));
+
+        if (cfg.getJdbcUrl() != null) {
+            try {
+                ConnectionPool pool = new ConnectionPool(cfg.getJdbcUrl(), cfg.getJdbcUser(), cfg.getJdbcPassword(), cfg.getJdbcPoolSize(), 5_000);
+                resources.push(pool::close);
+                linkRepository = new JdbcLinkRepository(pool);
+                userRepository = new JdbcUserRepository(pool);
+                notificationsRepository = new JdbcNotificationsRepository(pool);
+            } catch (Exception e) {
+                System.out.println("Ошибка при подключении к базе данных: " + e.getMessage());
+                return;
+            }
+        } else if (cfg.getLinkStorePath() != null) {
+            try {
+                MappedLinkRepository mapped = new MappedLinkRepository(Path.of(cfg.getLinkStorePath()), "https://clck.ru/", cfg.getLinkStoreCapacity());
+                resources.push(mapped);
+                linkRepository = mapped;
+            } catch (Exception e) {
+                System.out.println("Ошибка при открытии хранилища ссылок: " + e.getMessage());
+                return;
+            }
+            userRepository = new InMemoryUserRepository();
+            notificationsRepository = new InMemoryNotificationsRepository(cfg.getNotificationsPerUser(),
+                    cfg.getNotificationsReadTTL(), cfg.getNotificationsMaxTotal(), InMemoryNotificationsRepository.DEFAULT_COMPACTION_INTERVAL);
+        } else {
+            if (cfg.isLinkSnapshots()) {
+                linkRepository = new PersistentLinkRepository();
+            } else {
+                linkRepository = cfg.getLinkShards() > 0
+                        ? new ShardedLinkRepository(cfg.getLinkShards())
+                        : new InMemoryLinkRepository();
+            }
+            userRepository = new InMemoryUserRepository();
+            notificationsRepository = new InMemoryNotificationsRepository(cfg.getNotificationsPerUser(),
+                    cfg.getNotificationsReadTTL(), cfg.getNotificationsMaxTotal(), InMemoryNotificationsRepository.DEFAULT_COMPACTION_INTERVAL);
+        }
+
+        HotLinkRepository hotLinkRepository = null;
+        if (cfg.getHotLinks() > 0) {
+            try {
+                hotLinkRepository = new HotLinkRepository(linkRepository, cfg.getHotLinks(),
+                        cfg.getHotLinksFile() != null ? Path.of(cfg.getHotLinksFile()) : null);
+                resources.push(hotLinkRepository);
+                linkRepository = hotLinkRepository;
+            } catch (Exception e) {
+                System.out.println("Ошибка при загрузке горячих ссылок: " + e.getMessage());
+                return;
+            }
+        }
+
+        LinkRepository serviceLinkRepository = new InstrumentedLinkRepository(linkRepository);
+        URLGenerator generator = cfg.getUrlGenerator().equals("thread-local") ? new ThreadLocalURLGenerator() : new URLGeneratorImpl();
+        if (cfg.getUrlGeneratorPool() > 0) {
+            PooledURLGenerator pooled = new PooledURLGenerator(generator, serviceLinkRepository,
+                    cfg.getUrlGeneratorPool(), cfg.getUrlGeneratorPool() / 4);
+            resources.push(pooled);
+            generator = pooled;
+        }
+
         URLShortener shortener = new URLShortener(
-                new InMemoryLinkRepository(),
-                new InMemoryUserRepository(),
-                new InMemoryNotificationsRepository(),
-                new URLGeneratorImpl(),
+                serviceLinkRepository,
+                userRepository,
+                notificationsRepository,
+                generator,
                 cfg
         );
+        resources.push(shortener);
+
+        if (hotLinkRepository != null) {
+            hotLinkRepository.startPinning(() -> {
+                List<String> top = new ArrayList<>();
+                for (HeavyHitter hitter : shortener.getTopLinks(cfg.getHotLinks())) {
+                    top.add(hitter.getKey());
+                }
+                return top;
+            }, cfg.getHotLinksRefresh());
+        }
+
+        if (cfg.getHttpPort() > 0 && cfg.getJdbcUrl() != null) {
+            // Сервер разрешает ссылки в потоках циклов событий, и запрос к базе задержал бы все их соединения.
+            System.out.println("HTTP-сервер не запущен: он работает только с хранилищем ссылок в памяти или в файле.");
+        } else if (cfg.getHttpPort() > 0) {
+            try {
+                RedirectServer server = new RedirectServer(new InetSocketAddress(cfg.getHttpPort()), cfg.getHttpEventLoops(), shortener, "https://clck.ru/");
+                resources.push(server);
+            } catch (IOException e) {
+                System.out.println("Ошибка при запуске HTTP-сервера: " + e.getMessage());
+                return;
+            }
+        }
 
         Controller controller = new Controller(shortener);
 
         controller.mainLoop();
     }
-}
\ No newline at end of file
+
+    private static void closeAll(Deque<AutoCloseable> resources) {
+        AutoCloseable resource;
+        while ((resource = resources.poll()) != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.out.println("Ошибка при освобождении ресурсов: " + e.getMessage());
+            }
+        }
+    }
+}
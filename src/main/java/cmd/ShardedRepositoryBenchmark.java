@@ -0,0 +1,101 @@
+package cmd;
+
+import entity.Link;
+import linkrepository.LinkRepository;
+import linkrepository.sharded.ShardedLinkRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Зависимость пропускной способности {@link ShardedLinkRepository} от числа потоков.
+ *
+ * <p>Каждый поток выполняет 90% поисков по короткой ссылке и 10% обновлений.
+ * Сравнивается один сегмент (эквивалент одной общей блокировки) и заданное число сегментов.</p>
+ *
+ * <p>Аргументы: число сегментов (по умолчанию — число ядер * 4), число ссылок (по умолчанию 100000)
+ * и длительность замера в секундах (по умолчанию 3).</p>
+ */
+public class ShardedRepositoryBenchmark {
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int shardCount = args.length > 0 ? Integer.parseInt(args[0]) : cores * 4;
+        int linkCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Link[] links = new Link[linkCount];
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        for (int i = 0; i < linkCount; i++) {
+            links[i] = new Link(UUID.randomUUID(), "https://example.com/" + i, "https://clck.ru/" + i,
+                    owner, Integer.MAX_VALUE, now.plusDays(1), now);
+        }
+
+        ShardedLinkRepository single = new ShardedLinkRepository(1);
+        ShardedLinkRepository sharded = new ShardedLinkRepository(shardCount);
+        for (Link link : links) {
+            single.saveLink(link);
+            sharded.saveLink(link);
+        }
+
+        for (int t = 1; t <= cores; t *= 2) {
+            double one = measure(single, links, t, seconds);
+            double many = measure(sharded, links, t, seconds);
+            System.out.printf("Потоков: %3d | 1 сегмент: %,14.0f оп/с | %d сегментов: %,14.0f оп/с | x%.1f%n",
+                    t, one, sharded.getShardCount(), many, many / one);
+        }
+    }
+
+    /**
+     * Замеряет число операций в секунду.
+     *
+     * @param repository репозиторий.
+     * @param links      сохраненные ссылки.
+     * @param threads    число потоков.
+     * @param seconds    длительность замера.
+     * @return операций в секунду.
+     */
+    private static double measure(LinkRepository repository, Link[] links, int threads, int seconds) throws InterruptedException {
+        LongAdder counter = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    long local = 0;
+                    while ((local & 1023) != 0 || System.nanoTime() < deadline) {
+                        Link link = links[random.nextInt(links.length)];
+                        if (random.nextInt(10) == 0) {
+                            repository.updateLink(link);
+                        } else {
+                            Optional<Link> found = repository.getLinkByShortUrl(link.getShortURL());
+                            if (found.isEmpty()) {
+                                throw new IllegalStateException("Ссылка не найдена: " + link.getShortURL());
+                            }
+                        }
+                        local++;
+                    }
+                    counter.add(local);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            workers[i].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return counter.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
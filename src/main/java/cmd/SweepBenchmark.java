@@ -0,0 +1,70 @@
+package cmd;
+
+import entity.Link;
+import linkrepository.LinkRepository;
+import linkrepository.inmemory.InMemoryLinkRepository;
+import linkrepository.sharded.ShardedLinkRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Зависимость времени очистки истекших ссылок от числа потоков пула fork/join.
+ *
+ * <p>Хранилище заполняется ссылками, из которых истекла заданная доля, и очищается последовательным
+ * {@link LinkRepository#deleteExpired(LocalDateTime)} и параллельным
+ * {@link LinkRepository#deleteExpired(LocalDateTime, ForkJoinPool, java.util.function.Consumer)}
+ * с числом потоков 1, 2, 4, ... до числа ядер.</p>
+ *
+ * <p>Аргументы: число ссылок (по умолчанию 2000000) и процент истекших ссылок (по умолчанию 10).</p>
+ */
+public class SweepBenchmark {
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int linkCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int expiredPercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Link> links = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            LocalDateTime expireDt = i % 100 < expiredPercent ? now.minusMinutes(1) : now.plusDays(1);
+            links.add(new Link(UUID.randomUUID(), "https://example.com/" + i, "https://clck.ru/" + i,
+                    UUID.randomUUID(), 10, expireDt, now));
+        }
+
+        run("В памяти", InMemoryLinkRepository::new, links, now, cores);
+        run("Сегментированное", () -> new ShardedLinkRepository(cores * 4), links, now, cores);
+    }
+
+    private static void run(String name, Supplier<LinkRepository> factory, List<Link> links,
+                            LocalDateTime now, int cores) throws Exception {
+        LinkRepository sequential = filled(factory, links);
+        long begin = System.nanoTime();
+        int deleted = sequential.deleteExpired(now).size();
+        double base = (System.nanoTime() - begin) / 1e6;
+        System.out.printf("%s | последовательно: %,10.1f мс | удалено %,d%n", name, base, deleted);
+
+        for (int t = 1; t <= cores; t *= 2) {
+            LinkRepository repository = filled(factory, links);
+            ForkJoinPool pool = new ForkJoinPool(t);
+            try {
+                begin = System.nanoTime();
+                deleted = repository.deleteExpired(now, pool, batch -> { });
+                double ms = (System.nanoTime() - begin) / 1e6;
+                System.out.printf("%s | потоков: %3d | %,10.1f мс | x%.1f | удалено %,d%n", name, t, ms, base / ms, deleted);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static LinkRepository filled(Supplier<LinkRepository> factory, List<Link> links) throws Exception {
+        LinkRepository repository = factory.get();
+        repository.saveLinks(links);
+        return repository;
+    }
+}
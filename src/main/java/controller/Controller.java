@@ -1,17 +1,22 @@
 package controller;
 
 import entity.Notification;
+import linkrepository.LinkPage;
+import notificationsrepository.NotificationSubscription;
 import service.URLShortener;
 import entity.Link;
 import entity.User;
 import service.URLShortenerException;
 import service.UserNotAuthorizedException;
 
+import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.Scanner;
 import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,6 +25,11 @@ import java.util.regex.Pattern;
  *
  */
 public class Controller {
+    /**
+     * Число ссылок на одной странице списка ссылок пользователя.
+     */
+    private static final int LINKS_PAGE_SIZE = 20;
+
     /**
      * Сервис коротких ссылок.
      */
@@ -30,6 +40,16 @@ public class Controller {
      * */
     private Scanner scanner;
 
+    /**
+     * Уведомления текущего пользователя, доставленные по подписке и еще не выведенные.
+     */
+    private final Queue<Notification> pendingNotifications = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Подписка на уведомления текущего пользователя; null, если пользователь не вошел.
+     */
+    private NotificationSubscription notificationSubscription;
+
     /**
      * Конструктор контроллера.
      *
@@ -48,7 +68,7 @@ public class Controller {
         while (true) {
             showMenu();
             processCommand();
-            clearExpiredAndExcessClicksLinks();
+            clearExpiredLinks();
             displayUserNotifications();
         }
     }
@@ -66,7 +86,9 @@ public class Controller {
         System.out.println("6. Сделать запрос по короткой ссылке");
         System.out.println("7. Удалить короткую ссылку");
         System.out.println("8. Вывести ссылки пользователя");
-        System.out.println("9. Выйти");
+        System.out.println("9. Создать API-ключ");
+        System.out.println("10. Отозвать API-ключ");
+        System.out.println("11. Выйти");
         System.out.print("Введите команду: ");
     }
 
@@ -110,6 +132,12 @@ public class Controller {
                     displayUserLinks();
                     break;
                 case 9:
+                    createApiKey();
+                    break;
+                case 10:
+                    revokeApiKey();
+                    break;
+                case 11:
                     System.out.println("Выход...");
                     System.exit(0);
                     break;
@@ -123,35 +151,61 @@ public class Controller {
     }
 
     /**
-     * Метод для очистки ссылок, которые истекли по времени или превышают допустимое количество кликов.
+     * Метод для очистки ссылок, которые истекли по времени.
      */
-    private void clearExpiredAndExcessClicksLinks() {
+    private void clearExpiredLinks() {
         try {
-            shortener.deleteExpiredOrExceededLinks();
+            shortener.deleteExpiredLinks();
         } catch (Exception e) {
             System.out.println("Ошибка при очистке ссылок: " + e.getMessage());
         }
     }
 
     /**
-     * Метод для получения и вывода уведомлений для текущего пользователя.
+     * Подписывает контроллер на уведомления вошедшего пользователя вместо подписки предыдущего
+     * и забирает уведомления, накопившиеся до входа.
+     *
+     * @param userId идентификатор вошедшего пользователя.
+     */
+    private void subscribeToNotifications(UUID userId) throws URLShortenerException, UserNotAuthorizedException {
+        if (notificationSubscription != null) {
+            notificationSubscription.close();
+        }
+        pendingNotifications.clear();
+        notificationSubscription = shortener.subscribeToNotifications(userId, pendingNotifications::add);
+        pendingNotifications.addAll(shortener.getAllUnreadNotificationsForUser());
+    }
+
+    /**
+     * Метод для вывода уведомлений, доставленных текущему пользователю по подписке.
+     * Репозиторий уведомлений при этом не опрашивается.
      */
     private void displayUserNotifications() {
-        try {
-            List<Notification> notifications = shortener.getAllUnreadNotificationsForUser();
-            if (notifications.isEmpty()) {
-                System.out.println("У вас нет новых уведомлений.");
-            } else {
-                System.out.println("Новые уведомления:");
-                for (Notification notification : notifications) {
-                    System.out.println("Сообщение: " + notification.getMessage());
-                    System.out.println("--------------------------------");
-                }
-            }
-        } catch (UserNotAuthorizedException e) {
+        if (notificationSubscription == null) {
             System.out.println("Чтобы получить уведомления войдите в свой аккаунт");
-        } catch (URLShortenerException ee) {
-            System.out.println("Ошибка при получении уведомлений: " + ee.getMessage());
+            return;
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        Notification notification;
+        while ((notification = pendingNotifications.poll()) != null) {
+            notifications.add(notification);
+        }
+
+        if (notifications.isEmpty()) {
+            System.out.println("У вас нет новых уведомлений.");
+            return;
+        }
+
+        System.out.println("Новые уведомления:");
+        for (Notification n : notifications) {
+            System.out.println("Сообщение: " + n.getMessage());
+            System.out.println("--------------------------------");
+        }
+        try {
+            shortener.markNotificationsAsRead(notifications);
+        } catch (URLShortenerException e) {
+            System.out.println("Ошибка при обновлении уведомлений: " + e.getMessage());
         }
     }
 
@@ -174,10 +228,11 @@ public class Controller {
             if (!clicksInput.isEmpty()) {
                 numClicks = Integer.parseInt(clicksInput);
             }
-
+            System.out.print("Введите собственный псевдоним, например spring-sale (Enter — сгенерировать): ");
+            String alias = scanner.nextLine().trim();
 
             try {
-                Link newLink = shortener.createLink(longLink, timeToLive, numClicks);
+                Link newLink = shortener.createLink(longLink, timeToLive, numClicks, alias);
                 System.out.println("Ссылка успешно создана!");
                 System.out.println("Короткая ссылка: " + newLink.getShortURL());
                 System.out.println("Длинная ссылка: " + newLink.getLongURL());
@@ -186,7 +241,7 @@ public class Controller {
             } catch (UserNotAuthorizedException e) {
                 System.out.println("Вы не авторизованы, создаем нового пользователя.");
                 register();
-                Link newLink = shortener.createLink(longLink, timeToLive, numClicks);
+                Link newLink = shortener.createLink(longLink, timeToLive, numClicks, alias);
                 System.out.println("Ссылка успешно создана!");
                 System.out.println("Короткая ссылка: " + newLink.getShortURL());
                 System.out.println("Длинная ссылка: " + newLink.getLongURL());
@@ -241,18 +296,55 @@ public class Controller {
      * Логин пользователя.
      */
     private void login() {
-        System.out.print("Введите UUID пользователя для входа: ");
-        String userIdString = scanner.nextLine();
-        UUID userId = UUID.fromString(userIdString);
+        System.out.print("Введите UUID пользователя или API-ключ для входа: ");
+        String credentials = scanner.nextLine().trim();
 
         try {
-            shortener.login(userId);
+            UUID userId;
+            if (credentials.indexOf('.') >= 0) {
+                userId = shortener.loginWithApiKey(credentials);
+            } else {
+                userId = UUID.fromString(credentials);
+                shortener.login(userId);
+            }
             System.out.println("Вы успешно вошли как: " + userId);
+            subscribeToNotifications(userId);
         } catch (Exception e) {
             System.out.println("Ошибка при входе: " + e.getMessage());
         }
     }
 
+    /**
+     * Выпуск API-ключа для текущего пользователя.
+     */
+    private void createApiKey() {
+        try {
+            String apiKey = shortener.createApiKey();
+            System.out.println("API-ключ создан. Сохраните его, повторно он показан не будет:");
+            System.out.println(apiKey);
+        } catch (UserNotAuthorizedException e) {
+            System.out.println("Чтобы создать API-ключ войдите в свой аккаунт");
+        } catch (URLShortenerException e) {
+            System.out.println("Ошибка при создании API-ключа: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Отзыв API-ключа текущего пользователя.
+     */
+    private void revokeApiKey() {
+        System.out.print("Введите API-ключ или его идентификатор (часть до точки): ");
+        String apiKey = scanner.nextLine().trim();
+        try {
+            shortener.revokeApiKey(apiKey);
+            System.out.println("API-ключ отозван.");
+        } catch (UserNotAuthorizedException e) {
+            System.out.println("Чтобы отозвать API-ключ войдите в свой аккаунт");
+        } catch (URLShortenerException e) {
+            System.out.println("Ошибка при отзыве API-ключа: " + e.getMessage());
+        }
+    }
+
     /**
      * Регистрация нового пользователя.
      */
@@ -261,6 +353,7 @@ public class Controller {
             User user = new User();
             UUID userId = shortener.register(user);
             System.out.println("Пользователь зарегистрирован. UUID: " + userId);
+            subscribeToNotifications(userId);
         } catch (Exception e) {
             System.out.println("Ошибка при регистрации: " + e.getMessage());
         }
@@ -338,18 +431,21 @@ public class Controller {
     }
 
     /**
-     * Выводит список всех коротких ссылок текущего пользователя с их описанием.
+     * Выводит короткие ссылки текущего пользователя с их описанием постранично,
+     * по {@value #LINKS_PAGE_SIZE} ссылок на странице.
      */
     private void displayUserLinks() {
         try {
-            // Получаем список всех ссылок текущего пользователя через сервис
-            List<Link> userLinks = shortener.getAllLinksForCurrentUser();
+            // Получаем ссылки текущего пользователя через сервис по одной странице
+            LinkPage page = shortener.getLinksForCurrentUser(null, LINKS_PAGE_SIZE);
 
-            if (userLinks.isEmpty()) {
+            if (page.getLinks().isEmpty()) {
                 System.out.println("У вас нет созданных коротких ссылок.");
-            } else {
-                System.out.println("Ваши короткие ссылки:");
-                for (Link link : userLinks) {
+                return;
+            }
+            System.out.println("Ваши короткие ссылки:");
+            while (true) {
+                for (Link link : page.getLinks()) {
                     System.out.println("=====================================");
                     System.out.println("Короткая ссылка: " + link.getShortURL());
                     System.out.println("Полная ссылка: " + link.getLongURL());
@@ -357,6 +453,14 @@ public class Controller {
                     System.out.println("Время истечения: " + link.getExpireDt());
                     System.out.println("=====================================");
                 }
+                if (!page.hasNext()) {
+                    break;
+                }
+                System.out.print("Нажмите Enter, чтобы показать следующие ссылки, или введите q для выхода: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                    break;
+                }
+                page = shortener.getLinksForCurrentUser(page.getNextCursor(), LINKS_PAGE_SIZE);
             }
         } catch (UserNotAuthorizedException e) {
             System.out.println("Вы не авторизованы. Пожалуйста, войдите в аккаунт, чтобы просмотреть свои ссылки.");
@@ -0,0 +1,85 @@
+package entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Класс ApiKey представляет API-ключ пользователя.
+ *
+ * <p>Ключ, выдаваемый пользователю, имеет вид {@code <идентификатор>.<секрет>}. Секрет в открытом виде
+ * не хранится: в репозитории лежит только его хеш SHA-256, а идентификатор позволяет найти запись
+ * без перебора.</p>
+ */
+public class ApiKey {
+
+    /**
+     * Идентификатор ключа (часть ключа до точки).
+     */
+    private final String id;
+
+    /**
+     * Идентификатор пользователя, которому выдан ключ.
+     */
+    private final UUID userID;
+
+    /**
+     * Хеш SHA-256 секрета в шестнадцатеричном виде.
+     */
+    private final String secretHash;
+
+    /**
+     * Дата создания ключа.
+     */
+    private final LocalDateTime createDt;
+
+    /**
+     * Конструктор API-ключа.
+     *
+     * @param id         идентификатор ключа.
+     * @param userID     идентификатор пользователя.
+     * @param secretHash хеш SHA-256 секрета в шестнадцатеричном виде.
+     * @param createDt   дата создания ключа.
+     */
+    public ApiKey(String id, UUID userID, String secretHash, LocalDateTime createDt) {
+        this.id = id;
+        this.userID = userID;
+        this.secretHash = secretHash;
+        this.createDt = createDt;
+    }
+
+    /**
+     * Возвращает идентификатор ключа.
+     *
+     * @return идентификатор ключа.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Возвращает идентификатор пользователя, которому выдан ключ.
+     *
+     * @return идентификатор пользователя.
+     */
+    public UUID getUserID() {
+        return userID;
+    }
+
+    /**
+     * Возвращает хеш секрета.
+     *
+     * @return хеш SHA-256 секрета в шестнадцатеричном виде.
+     */
+    public String getSecretHash() {
+        return secretHash;
+    }
+
+    /**
+     * Возвращает дату создания ключа.
+     *
+     * @return дата создания.
+     */
+    public LocalDateTime getCreateDt() {
+        return createDt;
+    }
+}
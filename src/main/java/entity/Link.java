@@ -1,6 +1,9 @@
 package entity;
 
 
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -47,6 +50,22 @@ public class Link {
      */
     private LocalDateTime createDt;
 
+    /**
+     * Версия ссылки в репозитории; увеличивается при каждом обновлении ссылки, кроме записи счетчика кликов.
+     */
+    private long version;
+
+    /**
+     * Разобранная длинная ссылка; вычисляется один раз и сбрасывается при смене длинной ссылки.
+     */
+    private volatile URI uri;
+
+    /**
+     * Неизменяемые байты ответа-перенаправления: строка статуса 302 и заголовок Location
+     * (без завершающей пустой строки, чтобы сервер мог дописать свои заголовки).
+     */
+    private volatile byte[] redirectResponse;
+
     /**
      * Конструктор по умолчанию.
      * <p>Генерирует уникальный идентификатор для ссылки.</p>
@@ -77,6 +96,38 @@ public class Link {
         this.createDt = createDt;
     }
 
+    /**
+     * Конструктор с параметрами и версией.
+     *
+     * @param id         уникальный идентификатор ссылки.
+     * @param longURL    длинная версия URL.
+     * @param shortURL   сокращенная версия URL.
+     * @param userID     идентификатор пользователя.
+     * @param clickCount количество переходов по ссылке.
+     * @param expireDt   дата и время истечения срока действия.
+     * @param createDt   дата создания записи.
+     * @param version    версия ссылки в репозитории.
+     */
+    public Link(UUID id, String longURL, String shortURL, UUID userID, int clickCount, LocalDateTime expireDt,
+                LocalDateTime createDt, long version) {
+        this(id, longURL, shortURL, userID, clickCount, expireDt, createDt);
+        this.version = version;
+    }
+
+    /**
+     * Конструктор копирования.
+     * <p>Изменения копии не видны читателям исходного объекта, поэтому ссылку, полученную из репозитория,
+     * изменяют в копии и записывают через {@code LinkRepository.updateLink(Link, long)}.</p>
+     *
+     * @param other копируемая ссылка.
+     */
+    public Link(Link other) {
+        this(other.id, other.longURL, other.shortURL, other.userID, other.clickCount, other.expireDt, other.createDt,
+                other.version);
+        this.uri = other.uri;
+        this.redirectResponse = other.redirectResponse;
+    }
+
 
     /**
      * Возвращает уникальный идентификатор ссылки.
@@ -112,6 +163,78 @@ public class Link {
      */
     public void setLongURL(String longURL) {
         this.longURL = longURL;
+        this.uri = null;
+        this.redirectResponse = null;
+    }
+
+    /**
+     * Возвращает длинную ссылку в виде {@link URI}. Ссылка разбирается один раз.
+     *
+     * @return разобранная длинная ссылка.
+     * @throws IllegalArgumentException если длинная ссылка не является корректным URI.
+     */
+    public URI getURI() {
+        URI parsed = uri;
+        if (parsed == null) {
+            parsed = URI.create(longURL);
+            uri = parsed;
+        }
+        return parsed;
+    }
+
+    /**
+     * Устанавливает уже разобранную длинную ссылку.
+     *
+     * @param uri длинная ссылка.
+     */
+    public void setURI(URI uri) {
+        setLongURL(uri.toString());
+        this.uri = uri;
+    }
+
+    /**
+     * Возвращает длину заготовленного ответа-перенаправления в байтах.
+     *
+     * @return длина ответа.
+     * @throws IllegalArgumentException если длинная ссылка не является корректным URI.
+     */
+    public int getRedirectResponseLength() {
+        return redirectResponse().length;
+    }
+
+    /**
+     * Копирует заготовленный ответ-перенаправление ({@code HTTP/1.1 302 Found} и заголовок {@code Location})
+     * в буфер. Заголовки ответа не завершаются пустой строкой.
+     *
+     * @param out буфер, в котором есть не меньше {@link #getRedirectResponseLength()} свободных байт.
+     * @throws IllegalArgumentException если длинная ссылка не является корректным URI.
+     */
+    public void writeRedirectResponse(ByteBuffer out) {
+        out.put(redirectResponse());
+    }
+
+    /**
+     * Берет у ссылки с той же длинной ссылкой уже разобранный {@link URI} и заготовленный ответ-перенаправление.
+     * Нужен хранилищам, которые собирают новый объект ссылки при каждом чтении: иначе ответ
+     * вычислялся бы заново на каждый переход.
+     *
+     * @param other ссылка с той же длинной ссылкой; если длинные ссылки различаются, ничего не меняется.
+     */
+    public void reuseParsedURL(Link other) {
+        if (longURL != null && longURL.equals(other.longURL)) {
+            this.uri = other.uri;
+            this.redirectResponse = other.redirectResponse;
+        }
+    }
+
+    private byte[] redirectResponse() {
+        byte[] response = redirectResponse;
+        if (response == null) {
+            response = ("HTTP/1.1 302 Found\r\nLocation: " + getURI().toASCIIString() + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            redirectResponse = response;
+        }
+        return response;
     }
 
     /**
@@ -193,4 +316,22 @@ public class Link {
     public LocalDateTime getCreateDt() {
         return createDt;
     }
+
+    /**
+     * Возвращает версию ссылки в репозитории.
+     *
+     * @return версия, прочитанная вместе со ссылкой.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Устанавливает версию ссылки.
+     *
+     * @param version версия ссылки в репозитории.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -1,12 +1,23 @@
 package entity;
 
+import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
  * Класс, представляющий уведомление для пользователя.
  * Уведомление содержит информацию о пользователе, сообщение, статус прочтения и уникальный идентификатор.
+ *
+ * <p>Уведомление об удалении ссылки хранится в структурированном виде — причина, короткая ссылка
+ * и время, — а текст формируется только при чтении на языке запрошенной локали.</p>
  */
 public class Notification {
+
+    /**
+     * Локаль сообщений по умолчанию.
+     */
+    public static final Locale DEFAULT_LOCALE = Locale.forLanguageTag("ru");
+
     /**
      * Идентификатор нотификации
      */
@@ -18,17 +29,32 @@ public class Notification {
     private UUID userID;
 
     /**
-     * Текст уведомления.
+     * Текст уведомления; null для структурированного уведомления об удалении ссылки.
      */
     private String message;
 
+    /**
+     * Причина удаления ссылки; null для текстового уведомления.
+     */
+    private Reason reason;
+
+    /**
+     * Короткая ссылка, к которой относится уведомление.
+     */
+    private String shortURL;
+
     /**
      * Статус прочтения уведомления.
      */
-    private boolean isRead;
+    private volatile boolean isRead;
 
     /**
-     * Конструктор для создания уведомления.
+     * Дата и время создания уведомления.
+     */
+    private LocalDateTime createDt;
+
+    /**
+     * Конструктор для создания уведомления с текущим временем создания.
      *
      * @param id Идентификатор нотификации.
      * @param userID Идентификатор пользователя, которому отправляется уведомление.
@@ -36,10 +62,40 @@ public class Notification {
      * @param isRead Статус прочтения уведомления.
      */
     public Notification(UUID id, UUID userID, String message, boolean isRead) {
+        this(id, userID, message, isRead, LocalDateTime.now());
+    }
+
+    /**
+     * Конструктор для создания уведомления.
+     *
+     * @param id Идентификатор нотификации.
+     * @param userID Идентификатор пользователя, которому отправляется уведомление.
+     * @param message Текст уведомления.
+     * @param isRead Статус прочтения уведомления.
+     * @param createDt Дата и время создания уведомления.
+     */
+    public Notification(UUID id, UUID userID, String message, boolean isRead, LocalDateTime createDt) {
         this.id = id;
         this.userID = userID;
         this.message = message;
         this.isRead = isRead;
+        this.createDt = createDt;
+    }
+
+    /**
+     * Конструктор для создания структурированного уведомления об удалении ссылки.
+     *
+     * @param id Идентификатор нотификации.
+     * @param userID Идентификатор пользователя, которому отправляется уведомление.
+     * @param reason Причина удаления ссылки.
+     * @param shortURL Удаленная короткая ссылка.
+     * @param isRead Статус прочтения уведомления.
+     * @param createDt Дата и время удаления ссылки.
+     */
+    public Notification(UUID id, UUID userID, Reason reason, String shortURL, boolean isRead, LocalDateTime createDt) {
+        this(id, userID, (String) null, isRead, createDt);
+        this.reason = reason;
+        this.shortURL = shortURL;
     }
 
     /**
@@ -79,14 +135,58 @@ public class Notification {
     }
 
     /**
-     * Возвращает текст уведомления.
+     * Возвращает текст уведомления на русском языке.
      *
      * @return Сообщение уведомления.
      */
     public String getMessage() {
+        return getMessage(DEFAULT_LOCALE);
+    }
+
+    /**
+     * Возвращает текст уведомления на языке заданной локали.
+     * Текст структурированного уведомления формируется при каждом вызове и не хранится.
+     *
+     * @param locale Локаль сообщения.
+     * @return Сообщение уведомления.
+     */
+    public String getMessage(Locale locale) {
+        if (message != null || reason == null) {
+            return message;
+        }
+        if (Locale.ENGLISH.getLanguage().equals(locale.getLanguage())) {
+            return "The short link " + shortURL + " was deleted: " + reason.getDescription(locale) + ".";
+        }
+        return "Ссылка с коротким адресом " + shortURL + " была удалена по причине: " + reason.getDescription(locale) + ".";
+    }
+
+    /**
+     * Возвращает сохраненный текст уведомления без форматирования.
+     *
+     * @return Текст уведомления или null для структурированного уведомления.
+     */
+    public String getRawMessage() {
         return message;
     }
 
+    /**
+     * Возвращает причину удаления ссылки.
+     *
+     * @return Причина или null для текстового уведомления.
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Возвращает короткую ссылку, к которой относится уведомление.
+     *
+     * @return Короткая ссылка или null для текстового уведомления.
+     */
+    public String getShortURL() {
+        return shortURL;
+    }
+
     /**
      * Устанавливает текст уведомления.
      *
@@ -114,6 +214,15 @@ public class Notification {
         this.isRead = isRead;
     }
 
+    /**
+     * Возвращает дату и время создания уведомления.
+     *
+     * @return Дата и время создания.
+     */
+    public LocalDateTime getCreateDt() {
+        return createDt;
+    }
+
     /**
      * Отмечает уведомление как прочитанное.
      */
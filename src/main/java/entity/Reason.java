@@ -1,4 +1,6 @@
-package service;
+package entity;
+
+import java.util.Locale;
 
 /**
  * Перечисление, представляющее возможные причины удаления или деактивации короткой ссылки.
@@ -40,5 +42,27 @@ public enum Reason {
                 return "Неизвестный статус";
         }
     }
-}
 
+    /**
+     * Получение описания причины на языке заданной локали.
+     * Поддерживаются русский и английский языки; для остальных локалей возвращается русское описание.
+     *
+     * @param locale локаль, на языке которой нужно описание.
+     * @return Описание причины удаления или деактивации ссылки.
+     */
+    public String getDescription(Locale locale) {
+        if (!Locale.ENGLISH.getLanguage().equals(locale.getLanguage())) {
+            return getDescription();
+        }
+        switch (this) {
+            case USER:
+                return "deleted by the user";
+            case EXPIRED:
+                return "expired";
+            case OUT_OF_CLICKS:
+                return "click limit reached";
+            default:
+                return "unknown reason";
+        }
+    }
+}
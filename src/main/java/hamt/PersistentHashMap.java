@@ -0,0 +1,446 @@
+package hamt;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Неизменяемая хеш-таблица в виде хеш-дерева с битовыми масками (hash array mapped trie).
+ *
+ * <p>Каждый уровень дерева разбирает очередные 5 бит хеша ключа, а узел хранит только занятые из 32
+ * возможных ячеек: битовая маска показывает, какие ячейки заняты, и по числу единиц перед битом
+ * находится позиция в компактном массиве. Поиск проходит не больше 7 уровней.</p>
+ *
+ * <p>Изменение не трогает существующее дерево: {@link #put(Object, Object)} и {@link #remove(Object)}
+ * копируют только узлы на пути от корня к ключу, а остальные поддеревья разделяются с прежней версией.
+ * Поэтому каждая версия таблицы — неизменяемый снимок, который можно читать и обходить из любого
+ * числа потоков без блокировок, пока писатели строят следующие версии.</p>
+ *
+ * @param <K> тип ключа.
+ * @param <V> тип значения.
+ */
+public final class PersistentHashMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Возвращает пустую таблицу.
+     *
+     * @param <K> тип ключа.
+     * @param <V> тип значения.
+     * @return пустая таблица.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Возвращает значение по ключу.
+     *
+     * @param key ключ.
+     * @return значение или null, если ключа нет.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return (V) root.get(0, hash(key), key);
+    }
+
+    /**
+     * Проверяет, есть ли ключ в таблице.
+     *
+     * @param key ключ.
+     * @return true, если ключ есть.
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Возвращает таблицу, в которой ключу сопоставлено значение.
+     *
+     * @param key   ключ, не null.
+     * @param value значение, не null.
+     * @return новая версия таблицы или эта же, если значение уже сопоставлено ключу.
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("Ключ и значение не могут быть null");
+        }
+        boolean[] added = new boolean[1];
+        Node updated = root.put(0, hash(key), key, value, added);
+        return updated == root ? this : new PersistentHashMap<>(updated, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Возвращает таблицу без ключа.
+     *
+     * @param key ключ.
+     * @return новая версия таблицы или эта же, если ключа нет.
+     */
+    public PersistentHashMap<K, V> remove(Object key) {
+        Node updated = root.remove(0, hash(key), key);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(updated == null ? BitmapNode.EMPTY : updated, size - 1);
+    }
+
+    /**
+     * Возвращает число ключей.
+     *
+     * @return число ключей.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пуста ли таблица.
+     *
+     * @return true, если ключей нет.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает итератор значений этой версии таблицы; последующие изменения на него не влияют.
+     *
+     * @return итератор значений.
+     */
+    public Iterator<V> valueIterator() {
+        return new ValueIterator<>(root);
+    }
+
+    /**
+     * Возвращает поток значений этой версии таблицы.
+     *
+     * @return поток значений.
+     */
+    public Stream<V> values() {
+        return StreamSupport.stream(Spliterators.spliterator(valueIterator(), size,
+                Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Узел дерева.
+     */
+    private abstract static class Node {
+
+        abstract Object get(int shift, int hash, Object key);
+
+        /**
+         * Возвращает узел с добавленным или замененным ключом; сам узел, если ничего не изменилось.
+         */
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * Возвращает узел без ключа; сам узел, если ключа нет, и null, если узел опустел.
+         */
+        abstract Node remove(int shift, int hash, Object key);
+
+        /**
+         * Число пар в массиве {@link #array()}.
+         */
+        abstract int count();
+
+        /**
+         * Массив пар «ключ, значение»; пара с ключом null хранит вместо значения дочерний узел.
+         */
+        abstract Object[] array();
+    }
+
+    /**
+     * Узел с битовой маской занятых ячеек.
+     */
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        private final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                return ((Node) v).get(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, 2 * i);
+                copy[2 * i] = key;
+                copy[2 * i + 1] = value;
+                System.arraycopy(array, 2 * i, copy, 2 * i + 2, array.length - 2 * i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node updated = child.put(shift + BITS, hash, key, value, added);
+                return updated == child ? this : with(2 * i + 1, updated);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : with(2 * i + 1, value);
+            }
+            // В ячейке другой ключ: обе пары уходят на уровень ниже.
+            added[0] = true;
+            Node child = pair(shift + BITS, hash(k), k, v, hash, key, value);
+            Object[] copy = array.clone();
+            copy[2 * i] = null;
+            copy[2 * i + 1] = child;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node updated = child.remove(shift + BITS, hash, key);
+                if (updated == child) {
+                    return this;
+                }
+                if (updated != null) {
+                    if (updated.count() == 1 && updated.array()[0] != null) {
+                        // В поддереве осталась одна пара: она поднимается на место поддерева.
+                        Object[] copy = array.clone();
+                        copy[2 * i] = updated.array()[0];
+                        copy[2 * i + 1] = updated.array()[1];
+                        return new BitmapNode(bitmap, copy);
+                    }
+                    return with(2 * i + 1, updated);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, 2 * i);
+            System.arraycopy(array, 2 * i + 2, copy, 2 * i, array.length - 2 * i - 2);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        int count() {
+            return array.length / 2;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private BitmapNode with(int position, Object value) {
+            Object[] copy = array.clone();
+            copy[position] = value;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        /**
+         * Создает узел из двух пар с разными ключами.
+         */
+        private static Node pair(int shift, int hash1, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * Узел ключей с одинаковым хешем.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        private final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int i = find(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Новый ключ расходится с остальными по хешу: узел спускается под узел с маской.
+                Node wrapper = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[]{null, this});
+                return wrapper.put(shift, hash, key, value, added);
+            }
+            int i = find(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int i = find(key);
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        int count() {
+            return array.length / 2;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Обход значений в глубину со стеком узлов.
+     */
+    private static final class ValueIterator<V> implements Iterator<V> {
+
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+
+        private final Deque<Integer> positions = new ArrayDeque<>();
+
+        private V next;
+
+        ValueIterator(Node root) {
+            arrays.push(root.array());
+            positions.push(0);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = next;
+            advance();
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                if (array[position] == null) {
+                    arrays.push(((Node) array[position + 1]).array());
+                    positions.push(0);
+                } else {
+                    next = (V) array[position + 1];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package heavyhitters;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch: приближенный счетчик частот строковых ключей в памяти фиксированного размера.
+ *
+ * <p>Таблица из {@code depth} строк по {@code width} счетчиков. Ключ увеличивает по одному счетчику
+ * в каждой строке, а оценкой частоты служит минимум этих счетчиков: она никогда не бывает меньше
+ * истинной и завышена не более чем на долю ~{@code e/width} от общего числа событий.
+ * Счетчики атомарные, поэтому {@link #add(String)} можно вызывать из многих потоков без блокировок.</p>
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * Создает пустой скетч.
+     *
+     * @param depth число строк (независимых хеш-функций).
+     * @param width число счетчиков в строке; округляется вверх до степени двойки.
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Размеры скетча должны быть > 0");
+        }
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicLongArray(depth * this.width);
+    }
+
+    /**
+     * Учитывает одно появление ключа.
+     *
+     * @param key ключ.
+     * @return оценка частоты ключа с учетом этого появления.
+     */
+    public long add(String key) {
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        return estimate;
+    }
+
+    /**
+     * Возвращает оценку частоты ключа.
+     *
+     * @param key ключ.
+     * @return оценка частоты (не меньше истинной).
+     */
+    public long estimate(String key) {
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + ((h1 + row * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Делит все счетчики пополам, чтобы старые события весили меньше новых.
+     * Увеличения, совпавшие по времени с делением, могут потеряться; для приближенного счетчика это допустимо.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    /**
+     * Возвращает число счетчиков в строке.
+     *
+     * @return ширина скетча.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Перемешивает биты хеш-кода (финализатор MurmurHash3), чтобы соседние хеш-коды расходились по таблице.
+     */
+    private static long mix(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
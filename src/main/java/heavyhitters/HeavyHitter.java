@@ -0,0 +1,40 @@
+package heavyhitters;
+
+/**
+ * Часто встречающийся ключ и оценка его частоты.
+ */
+public class HeavyHitter {
+
+    private final String key;
+
+    private final long count;
+
+    /**
+     * Конструктор.
+     *
+     * @param key   ключ.
+     * @param count оценка частоты ключа.
+     */
+    public HeavyHitter(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    /**
+     * Возвращает ключ.
+     *
+     * @return ключ.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Возвращает оценку частоты ключа.
+     *
+     * @return оценка частоты.
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,146 @@
+package heavyhitters;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потоковый поиск самых частых ключей: {@link CountMinSketch} оценивает частоту каждого ключа,
+ * а куча с минимумом в вершине хранит {@code k} ключей с наибольшими оценками.
+ *
+ * <p>Ключ попадает под блокировку кучи, только если его оценка не меньше наименьшей оценки в куче,
+ * поэтому для подавляющего большинства редких ключей учет ограничивается несколькими атомарными
+ * увеличениями счетчиков. Каждые {@code 10 * width} событий все оценки делятся пополам: список
+ * отражает недавний трафик, а ключи, переставшие встречаться, постепенно вытесняются.</p>
+ */
+public class HeavyHitterTracker {
+
+    /**
+     * Число строк скетча по умолчанию.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * Ширина скетча по умолчанию.
+     */
+    public static final int DEFAULT_WIDTH = 1 << 16;
+
+    private static final Comparator<HeavyHitter> BY_COUNT = Comparator.comparingLong(HeavyHitter::getCount);
+
+    private final CountMinSketch sketch;
+
+    private final int k;
+
+    /**
+     * Число событий между делениями оценок пополам.
+     */
+    private final long sampleSize;
+
+    private final AtomicLong events = new AtomicLong();
+
+    /**
+     * Куча k ключей с наибольшими оценками; наименьшая оценка в вершине.
+     */
+    private final PriorityQueue<HeavyHitter> heap;
+
+    /**
+     * Записи кучи по ключу.
+     */
+    private final Map<String, HeavyHitter> inHeap = new HashMap<>();
+
+    /**
+     * Наименьшая оценка в заполненной куче; 0, пока куча не заполнена.
+     */
+    private volatile long threshold;
+
+    /**
+     * Создает трекер со скетчем размера по умолчанию.
+     *
+     * @param k сколько самых частых ключей отслеживать.
+     */
+    public HeavyHitterTracker(int k) {
+        this(k, DEFAULT_DEPTH, DEFAULT_WIDTH);
+    }
+
+    /**
+     * Создает трекер.
+     *
+     * @param k     сколько самых частых ключей отслеживать.
+     * @param depth число строк скетча.
+     * @param width ширина скетча.
+     */
+    public HeavyHitterTracker(int k, int depth, int width) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Число отслеживаемых ключей должно быть > 0");
+        }
+        this.sketch = new CountMinSketch(depth, width);
+        this.k = k;
+        this.sampleSize = 10L * sketch.width();
+        this.heap = new PriorityQueue<>(k, BY_COUNT);
+    }
+
+    /**
+     * Учитывает одно появление ключа.
+     *
+     * @param key ключ.
+     */
+    public void record(String key) {
+        long estimate = sketch.add(key);
+        if (estimate >= threshold) {
+            offer(key, estimate);
+        }
+        if (events.incrementAndGet() % sampleSize == 0) {
+            decay();
+        }
+    }
+
+    /**
+     * Возвращает самые частые ключи в порядке убывания оценки.
+     *
+     * @param n сколько ключей вернуть (не больше {@code k}).
+     * @return ключи с оценками частоты.
+     */
+    public synchronized List<HeavyHitter> top(int n) {
+        List<HeavyHitter> result = new ArrayList<>(heap);
+        result.sort(BY_COUNT.reversed());
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    private synchronized void offer(String key, long estimate) {
+        HeavyHitter current = inHeap.get(key);
+        if (current != null) {
+            if (estimate <= current.getCount()) {
+                return;
+            }
+            heap.remove(current);
+        } else if (heap.size() >= k) {
+            if (estimate <= heap.peek().getCount()) {
+                return;
+            }
+            inHeap.remove(heap.poll().getKey());
+        }
+        HeavyHitter updated = new HeavyHitter(key, estimate);
+        heap.add(updated);
+        inHeap.put(key, updated);
+        threshold = heap.size() >= k ? heap.peek().getCount() : 0;
+    }
+
+    private synchronized void decay() {
+        sketch.halve();
+        List<HeavyHitter> halved = new ArrayList<>(heap.size());
+        for (HeavyHitter hitter : heap) {
+            halved.add(new HeavyHitter(hitter.getKey(), hitter.getCount() >>> 1));
+        }
+        heap.clear();
+        inHeap.clear();
+        for (HeavyHitter hitter : halved) {
+            heap.add(hitter);
+            inHeap.put(hitter.getKey(), hitter);
+        }
+        threshold = heap.size() >= k ? heap.peek().getCount() : 0;
+    }
+}
@@ -0,0 +1,164 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул JDBC-соединений фиксированного размера.
+ *
+ * <p>Соединения открываются через {@link DriverManager} при создании пула и переиспользуются.
+ * Каждое соединение хранит кэш подготовленных выражений, поэтому повторные запросы
+ * не разбираются базой данных заново.</p>
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Адрес базы данных.
+     */
+    private final String url;
+
+    /**
+     * Имя пользователя базы данных.
+     */
+    private final String user;
+
+    /**
+     * Пароль пользователя базы данных.
+     */
+    private final String password;
+
+    /**
+     * Максимальное время ожидания свободного соединения в миллисекундах.
+     */
+    private final long acquireTimeoutMillis;
+
+    /**
+     * Свободные соединения.
+     */
+    private final BlockingQueue<PooledConnection> idle;
+
+    /**
+     * Все соединения пула, включая выданные.
+     */
+    private final List<PooledConnection> all = new ArrayList<>();
+
+    /**
+     * Признак закрытия пула.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Создает пул и открывает все соединения.
+     *
+     * @param url                  адрес базы данных (например, "jdbc:h2:mem:shortener;DB_CLOSE_DELAY=-1").
+     * @param user                 имя пользователя.
+     * @param password             пароль.
+     * @param size                 число соединений в пуле.
+     * @param acquireTimeoutMillis максимальное время ожидания свободного соединения.
+     * @throws SQLException если не удалось открыть соединение.
+     */
+    public ConnectionPool(String url, String user, String password, int size, long acquireTimeoutMillis) throws SQLException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть > 0");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(size);
+
+        try {
+            for (int i = 0; i < size; i++) {
+                PooledConnection connection = new PooledConnection(this, open());
+                all.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Выдает свободное соединение. Соединение возвращается в пул вызовом {@link PooledConnection#close()}.
+     * Соединение, которое не удалось пересоздать при возврате, переоткрывается перед выдачей.
+     *
+     * @return соединение из пула.
+     * @throws SQLException если пул закрыт, свободное соединение не появилось за отведенное время
+     *                      или сломанное соединение не удалось переоткрыть.
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+        try {
+            PooledConnection connection = idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new SQLException("Не удалось получить соединение из пула за " + acquireTimeoutMillis + " мс");
+            }
+            if (connection.isBroken() || connection.isClosed()) {
+                connection.closePhysical();
+                try {
+                    connection.replace(open());
+                } catch (SQLException e) {
+                    idle.offer(connection);
+                    throw e;
+                }
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+    }
+
+    /**
+     * Возвращает соединение в пул. Сломанное соединение заменяется новым; если новое открыть не удалось,
+     * соединение возвращается сломанным и переоткрывается в {@link #acquire()}.
+     *
+     * @param connection возвращаемое соединение.
+     */
+    void release(PooledConnection connection) {
+        if (closed) {
+            connection.closePhysical();
+            return;
+        }
+        if (connection.isBroken() || connection.isClosed()) {
+            connection.closePhysical();
+            try {
+                connection.replace(open());
+            } catch (SQLException e) {
+                // Соединение остается сломанным, и acquire() не выдаст его, не переоткрыв.
+            }
+        }
+        idle.offer(connection);
+    }
+
+    /**
+     * Закрывает все соединения пула.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PooledConnection connection : all) {
+            connection.closePhysical();
+        }
+        idle.clear();
+    }
+
+    /**
+     * Открывает новое физическое соединение.
+     *
+     * @return соединение с базой данных.
+     * @throws SQLException если соединение не удалось открыть.
+     */
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+}
@@ -0,0 +1,154 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Соединение, выданное {@link ConnectionPool}.
+ *
+ * <p>Хранит кэш подготовленных выражений по тексту запроса. Закрытие возвращает соединение в пул,
+ * физическое соединение и выражения при этом остаются открытыми.</p>
+ */
+public class PooledConnection implements AutoCloseable {
+
+    /**
+     * Пул, которому принадлежит соединение.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Физическое соединение.
+     */
+    private Connection connection;
+
+    /**
+     * Кэш подготовленных выражений.
+     */
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    /**
+     * Признак того, что соединение нужно пересоздать при возврате в пул.
+     */
+    private boolean broken;
+
+    /**
+     * Конструктор соединения пула.
+     *
+     * @param pool       пул-владелец.
+     * @param connection физическое соединение.
+     */
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    /**
+     * Возвращает подготовленное выражение из кэша, подготавливая его при первом обращении.
+     * Параметры выражения очищаются перед выдачей.
+     *
+     * @param sql текст запроса.
+     * @return подготовленное выражение.
+     * @throws SQLException если выражение не удалось подготовить.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    /**
+     * Возвращает физическое соединение для управления транзакциями и выполнения DDL.
+     *
+     * @return соединение с базой данных.
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Откатывает текущую транзакцию. Если откат не удался, соединение помечается как сломанное.
+     */
+    public void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            broken = true;
+        }
+    }
+
+    /**
+     * Возвращает соединение в режим автоматической фиксации после транзакции.
+     * Если это не удалось, соединение помечается как сломанное.
+     */
+    public void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            broken = true;
+        }
+    }
+
+    /**
+     * Помечает соединение как сломанное: при возврате в пул оно будет пересоздано.
+     */
+    public void invalidate() {
+        broken = true;
+    }
+
+    /**
+     * Возвращает соединение в пул.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    boolean isClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Заменяет физическое соединение новым.
+     *
+     * @param replacement новое соединение.
+     */
+    void replace(Connection replacement) {
+        this.connection = replacement;
+        this.broken = false;
+    }
+
+    /**
+     * Закрывает кэшированные выражения и физическое соединение.
+     */
+    void closePhysical() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Соединение все равно закрывается.
+            }
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Соединение уже недоступно.
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Создание короткой ссылки; повторы — коллизии сгенерированного кода.
+ */
+@Name("urlshortener.CreateLink")
+@Label("Создание ссылки")
+@Category({"URL Shortener", "Service"})
+@Threshold("1 ms")
+public class CreateLinkEvent extends LinkEvent {
+}
@@ -0,0 +1,32 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Переход по короткой ссылке: из консоли или HTTP-перенаправление.
+ */
+@Name("urlshortener.FetchShortLink")
+@Label("Переход по ссылке")
+@Category({"URL Shortener", "Service"})
+@Threshold("1 ms")
+@StackTrace(false)
+public final class FetchShortLinkEvent extends LinkEvent {
+
+    @Label("Перенаправление")
+    boolean redirect;
+
+    /**
+     * Создает событие.
+     *
+     * @param shortLink короткая ссылка.
+     * @param redirect  true для HTTP-перенаправления, false для перехода из консоли.
+     */
+    public FetchShortLinkEvent(String shortLink, boolean redirect) {
+        setShortLink(shortLink);
+        this.redirect = redirect;
+    }
+}
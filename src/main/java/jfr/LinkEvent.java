@@ -0,0 +1,102 @@
+package jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Общая часть событий Java Flight Recorder для операций со ссылками.
+ *
+ * <p>Событие создается и запускается ({@link #begin()}) в начале операции, по ходу операции в него
+ * записываются короткая ссылка, исход, число повторов и число ссылок, а {@link #finish()} завершает
+ * и сохраняет его. Поля, которые попадают в запись, заполняются только в {@link #finish()} и только
+ * если событие включено и длилось не меньше порога ({@code @Threshold}), поэтому при выключенной
+ * записи операция платит лишь за несколько присваиваний.</p>
+ */
+public abstract class LinkEvent extends Event {
+
+    @Label("Код короткой ссылки")
+    @Description("Часть короткой ссылки после последнего /")
+    String shortCode;
+
+    @Label("Исход")
+    String outcome;
+
+    @Label("Повторы")
+    @Description("Сколько раз операция повторялась из-за конфликтов")
+    int retries;
+
+    @Label("Ссылки")
+    @Description("Сколько ссылок операция прочитала или изменила")
+    long linksScanned;
+
+    private transient String shortLink;
+
+    private transient Outcome result = Outcome.OK;
+
+    /**
+     * Задает короткую ссылку операции.
+     *
+     * @param shortLink короткая ссылка или null.
+     */
+    public void setShortLink(String shortLink) {
+        this.shortLink = shortLink;
+    }
+
+    /**
+     * Возвращает исход операции.
+     *
+     * @return исход; {@link Outcome#OK}, пока не задан другой.
+     */
+    public Outcome getOutcome() {
+        return result;
+    }
+
+    /**
+     * Задает исход операции.
+     *
+     * @param outcome исход.
+     */
+    public void setOutcome(Outcome outcome) {
+        this.result = outcome;
+    }
+
+    /**
+     * Отмечает неуспешный исход, если более точный исход еще не задан.
+     *
+     * @param outcome исход.
+     */
+    public void fail(Outcome outcome) {
+        if (result == Outcome.OK) {
+            result = outcome;
+        }
+    }
+
+    /**
+     * Учитывает один повтор операции.
+     */
+    public void addRetry() {
+        retries++;
+    }
+
+    /**
+     * Задает число ссылок, которые операция прочитала или изменила.
+     *
+     * @param links число ссылок.
+     */
+    public void setLinksScanned(long links) {
+        this.linksScanned = links;
+    }
+
+    /**
+     * Завершает событие и сохраняет его, если оно включено и превысило порог длительности.
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            shortCode = shortLink == null ? null : shortLink.substring(shortLink.lastIndexOf('/') + 1);
+            outcome = result.name();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package jfr;
+
+/**
+ * Исход операции, записанной событием {@link LinkEvent}.
+ */
+public enum Outcome {
+    /**
+     * Операция выполнена.
+     */
+    OK,
+    /**
+     * Ссылка не найдена.
+     */
+    NOT_FOUND,
+    /**
+     * Время жизни ссылки истекло.
+     */
+    EXPIRED,
+    /**
+     * Клики ссылки закончились.
+     */
+    EXHAUSTED,
+    /**
+     * Превышен лимит запросов.
+     */
+    RATE_LIMITED,
+    /**
+     * Запрос отклонен: некорректные параметры или нет прав.
+     */
+    REJECTED,
+    /**
+     * Конфликт: короткая ссылка занята или ссылку одновременно изменили.
+     */
+    CONFLICT,
+    /**
+     * Ошибка хранилища или другая непредвиденная ошибка.
+     */
+    FAILED
+}
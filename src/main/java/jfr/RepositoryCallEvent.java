@@ -0,0 +1,35 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Вызов метода репозитория ссылок.
+ */
+@Name("urlshortener.RepositoryCall")
+@Label("Вызов репозитория ссылок")
+@Category({"URL Shortener", "Repository"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class RepositoryCallEvent extends LinkEvent {
+
+    @Label("Репозиторий")
+    String repository;
+
+    @Label("Метод")
+    String method;
+
+    /**
+     * Создает событие.
+     *
+     * @param repository имя класса репозитория.
+     * @param method     имя метода.
+     */
+    public RepositoryCallEvent(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+}
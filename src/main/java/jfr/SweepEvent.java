@@ -0,0 +1,26 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Очистка истекших ссылок; число ссылок — число удаленных. Очистки редки, поэтому записывается каждая.
+ */
+@Name("urlshortener.Sweep")
+@Label("Очистка истекших ссылок")
+@Category({"URL Shortener", "Service"})
+public class SweepEvent extends LinkEvent {
+
+    @Label("Параллельность")
+    int parallelism;
+
+    /**
+     * Создает событие.
+     *
+     * @param parallelism число потоков очистки.
+     */
+    public SweepEvent(int parallelism) {
+        this.parallelism = parallelism;
+    }
+}
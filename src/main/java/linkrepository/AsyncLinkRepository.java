@@ -0,0 +1,85 @@
+package linkrepository;
+
+import entity.Link;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link LinkRepository}.
+ *
+ * <p>Методы не блокируют вызывающий поток и возвращают {@link CompletableFuture}. При ошибке будущее
+ * завершается исключительно с {@link LinkRepositoryException}.</p>
+ */
+public interface AsyncLinkRepository {
+
+    /**
+     * Сохраняет ссылку в репозитории.
+     *
+     * @param link объект сокращенной ссылки, который необходимо сохранить.
+     * @return будущее, завершающееся после сохранения.
+     */
+    CompletableFuture<Void> saveLink(Link link);
+
+    /**
+     * Возвращает все ссылки.
+     *
+     * @return будущее со списком ссылок.
+     */
+    CompletableFuture<List<Link>> getAll();
+
+    /**
+     * Возвращает ссылку по короткой ссылке.
+     *
+     * @param shortURL сокращенная ссылка.
+     * @return будущее с {@link Optional}, содержащим ссылку, если она найдена.
+     */
+    CompletableFuture<Optional<Link>> getLinkByShortUrl(String shortURL);
+
+    /**
+     * Возвращает страницу ссылок пользователя в порядке {@link LinkPage#ORDER}.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param cursor   курсор предыдущей страницы или null для первой.
+     * @param pageSize максимальное число ссылок на странице.
+     * @return будущее со страницей ссылок.
+     */
+    CompletableFuture<LinkPage> getLinksForUser(UUID userId, String cursor, int pageSize);
+
+    /**
+     * Удаляет ссылку по её идентификатору.
+     *
+     * @param linkId уникальный идентификатор ссылки.
+     * @return будущее, завершающееся после удаления.
+     */
+    CompletableFuture<Void> deleteLink(UUID linkId);
+
+    /**
+     * Обновляет ссылку.
+     *
+     * @param link обновленная ссылка.
+     * @return будущее, завершающееся после обновления.
+     */
+    CompletableFuture<Void> updateLink(Link link);
+
+    /**
+     * Обновляет ссылку, только если ее версия не изменилась с момента чтения.
+     *
+     * @param link            обновленная ссылка.
+     * @param expectedVersion версия, прочитанная вместе со ссылкой.
+     * @return будущее с true, если ссылка обновлена, и false, если ее версия уже другая.
+     * @see LinkRepository#updateLink(Link, long)
+     */
+    CompletableFuture<Boolean> updateLink(Link link, long expectedVersion);
+
+    /**
+     * Удаляет ссылки, срок действия которых истек к моменту {@code now}.
+     *
+     * @param now момент, относительно которого проверяется срок действия.
+     * @return будущее с удаленными ссылками.
+     */
+    CompletableFuture<List<Link>> deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,129 @@
+package linkrepository;
+
+import entity.Link;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Задача fork/join параллельной очистки истекших ссылок по разделам {@link LinkRepository#stream()}.
+ *
+ * <p>Задача делит свой раздел через {@link Spliterator#trySplit()}, пока он больше {@value #LEAF_SIZE}
+ * ссылок, и отдает отделенные части другим потокам пула. Оставшийся раздел просматривается целиком,
+ * найденные истекшие ссылки удаляются по одной и передаются получателю одной порцией.</p>
+ *
+ * <p>Ссылки, которые уже удалил кто-то другой, пропускаются. Если удаление не удалось по другой причине,
+ * получатель все равно получает ссылки, удаленные до ошибки, и только затем очистка прерывается.</p>
+ */
+final class ExpirySweep extends RecursiveTask<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Размер раздела, который задача просматривает сама, не деля его дальше.
+     */
+    static final int LEAF_SIZE = 4096;
+
+    private final LinkRepository repository;
+
+    private final Spliterator<Link> links;
+
+    private final LocalDateTime now;
+
+    private final Consumer<List<Link>> deleted;
+
+    ExpirySweep(LinkRepository repository, Spliterator<Link> links, LocalDateTime now, Consumer<List<Link>> deleted) {
+        this.repository = repository;
+        this.links = links;
+        this.now = now;
+        this.deleted = deleted;
+    }
+
+    @Override
+    protected Integer compute() {
+        List<ExpirySweep> forked = new ArrayList<>();
+        Spliterator<Link> prefix;
+        while (links.estimateSize() > LEAF_SIZE && (prefix = links.trySplit()) != null) {
+            ExpirySweep task = new ExpirySweep(repository, prefix, now, deleted);
+            task.fork();
+            forked.add(task);
+        }
+
+        RuntimeException failure = null;
+        int count = 0;
+        try {
+            count = sweepLeaf();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // Подзадачи дожидаются и при ошибке, чтобы после выхода из очистки никто не передавал получателю новые порции.
+        for (ExpirySweep task : forked) {
+            try {
+                count += task.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return count;
+    }
+
+    /**
+     * Просматривает оставшийся раздел и удаляет истекшие ссылки.
+     *
+     * @return число удаленных ссылок.
+     */
+    private int sweepLeaf() {
+        List<Link> expired = new ArrayList<>();
+        links.forEachRemaining(link -> {
+            if (link.getExpireDt() != null && link.getExpireDt().isBefore(now)) {
+                expired.add(link);
+            }
+        });
+        List<Link> removed = new ArrayList<>(expired.size());
+        try {
+            for (Link link : expired) {
+                if (deleteIfPresent(repository, link)) {
+                    removed.add(link);
+                }
+            }
+        } catch (LinkRepositoryException e) {
+            throw new UncheckedLinkRepositoryException(e);
+        } finally {
+            if (!removed.isEmpty()) {
+                deleted.accept(removed);
+            }
+        }
+        return removed.size();
+    }
+
+    /**
+     * Удаляет ссылку, если она еще есть в репозитории.
+     *
+     * @return true, если ссылка удалена; false, если ее уже удалили.
+     * @throws LinkRepositoryException если ссылка есть, но удалить ее не удалось.
+     */
+    static boolean deleteIfPresent(LinkRepository repository, Link link) throws LinkRepositoryException {
+        try {
+            repository.deleteLink(link.getId());
+            return true;
+        } catch (LinkRepositoryException e) {
+            Optional<Link> current = repository.getLinkByShortUrl(link.getShortURL());
+            if (current.isEmpty() || !current.get().getId().equals(link.getId())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package linkrepository;
+
+import entity.Link;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Страница ссылок пользователя.
+ *
+ * <p>Ссылки упорядочены по {@link #ORDER}: по дате создания, а при равных датах по идентификатору.
+ * Если за страницей есть еще ссылки, {@link #getNextCursor()} возвращает курсор следующей страницы.</p>
+ */
+public class LinkPage {
+
+    /**
+     * Порядок ссылок в страницах: по дате создания (ссылки без даты первыми), затем по строковому
+     * представлению идентификатора. Совпадает с {@code ORDER BY create_dt, id} в SQL.
+     */
+    public static final Comparator<Link> ORDER = Comparator
+            .comparing(Link::getCreateDt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(link -> link.getId().toString());
+
+    private final List<Link> links;
+
+    private final String nextCursor;
+
+    /**
+     * Конструктор.
+     *
+     * @param links      ссылки страницы в порядке {@link #ORDER}.
+     * @param nextCursor курсор следующей страницы или null, если страница последняя.
+     */
+    public LinkPage(List<Link> links, String nextCursor) {
+        this.links = links;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Собирает страницу из первых ссылок после курсора.
+     *
+     * @param sorted   не больше {@code pageSize + 1} ссылок в порядке {@link #ORDER}; лишняя ссылка
+     *                 означает, что за страницей есть продолжение.
+     * @param pageSize размер страницы.
+     * @return страница.
+     */
+    public static LinkPage of(List<Link> sorted, int pageSize) {
+        if (sorted.size() <= pageSize) {
+            return new LinkPage(sorted, null);
+        }
+        List<Link> links = new ArrayList<>(sorted.subList(0, pageSize));
+        return new LinkPage(links, PageCursor.encode(links.get(pageSize - 1)));
+    }
+
+    /**
+     * Возвращает ссылки страницы.
+     *
+     * @return ссылки в порядке {@link #ORDER}.
+     */
+    public List<Link> getLinks() {
+        return links;
+    }
+
+    /**
+     * Возвращает курсор следующей страницы.
+     *
+     * @return курсор или null, если страница последняя.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Проверяет, есть ли за страницей еще ссылки.
+     *
+     * @return true, если есть следующая страница.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,75 @@
+package linkrepository;
+
+import entity.Link;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Собирает страницу ссылок пользователя из неупорядоченного обхода хранилища.
+ *
+ * <p>Хранит только {@code pageSize + 1} наименьших в порядке {@link LinkPage#ORDER} ссылок после курсора
+ * в куче с наибольшей ссылкой в вершине, поэтому память не зависит от числа ссылок пользователя,
+ * а обход стоит O(n log pageSize).</p>
+ */
+public class LinkPageBuilder {
+
+    private final UUID userId;
+
+    private final PageCursor after;
+
+    private final int pageSize;
+
+    /**
+     * Куча отобранных ссылок; в вершине наибольшая.
+     */
+    private final PriorityQueue<Link> heap;
+
+    /**
+     * Создает сборщик страницы.
+     *
+     * @param userId   идентификатор владельца ссылок.
+     * @param cursor   курсор предыдущей страницы или null для первой страницы.
+     * @param pageSize размер страницы.
+     * @throws IllegalArgumentException если размер страницы не положителен или курсор некорректен.
+     */
+    public LinkPageBuilder(UUID userId, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть > 0");
+        }
+        this.userId = userId;
+        this.after = cursor == null ? null : PageCursor.parse(cursor);
+        this.pageSize = pageSize;
+        this.heap = new PriorityQueue<>(Math.min(pageSize, 1024) + 1, LinkPage.ORDER.reversed());
+    }
+
+    /**
+     * Учитывает ссылку; ссылки других пользователей и ссылки до курсора пропускаются.
+     *
+     * @param link ссылка.
+     */
+    public void add(Link link) {
+        if (!userId.equals(link.getUserID()) || (after != null && !after.precedes(link))) {
+            return;
+        }
+        if (heap.size() <= pageSize) {
+            heap.add(link);
+        } else if (LinkPage.ORDER.compare(link, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(link);
+        }
+    }
+
+    /**
+     * Возвращает собранную страницу.
+     *
+     * @return страница ссылок.
+     */
+    public LinkPage build() {
+        List<Link> sorted = new ArrayList<>(heap);
+        sorted.sort(LinkPage.ORDER);
+        return LinkPage.of(sorted, pageSize);
+    }
+}
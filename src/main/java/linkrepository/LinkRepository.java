@@ -1,9 +1,16 @@
 package linkrepository;
 
 import entity.Link;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс LinkRepository предоставляет операции для работы с сокращенными ссылками.
@@ -29,6 +36,24 @@ public interface LinkRepository {
      */
     List<Link> getAll() throws LinkRepositoryException;
 
+    /**
+     * Возвращает поток всех ссылок.
+     *
+     * <p>В отличие от {@link #getAll()} реализации не копируют хранилище целиком: ссылки читаются
+     * по мере обхода, поток можно фильтровать, обрабатывать параллельно и прерывать. Обход слабо
+     * согласован: изменения, сделанные во время обхода, могут быть видны или не видны в нем, но
+     * каждая не изменявшаяся ссылка встречается ровно один раз. Изменять репозиторий из операций
+     * самого потока нельзя: сначала соберите нужные ссылки, затем изменяйте их.
+     * Реализация по умолчанию обходит копию {@link #getAll()}.</p>
+     *
+     * @return поток ссылок.
+     * @throws LinkRepositoryException если не удалось начать обход.
+     * @throws UncheckedLinkRepositoryException при ошибке во время обхода.
+     */
+    default Stream<Link> stream() throws LinkRepositoryException {
+        return getAll().stream();
+    }
+
     /**
      * Возвращает ссылку по короткой ссылке.
      *
@@ -38,6 +63,38 @@ public interface LinkRepository {
      */
     Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException;
 
+    /**
+     * Проверяет, может ли хранилище сохранить ссылку с такой короткой ссылкой. Сервис проверяет
+     * собственные псевдонимы заранее, чтобы отклонить неподдерживаемый псевдоним до его резервирования.
+     *
+     * @param shortURL короткая ссылка.
+     * @return true, если ссылку можно сохранить; по умолчанию true — формат короткой ссылки не ограничен.
+     */
+    default boolean supportsShortUrl(String shortURL) {
+        return true;
+    }
+
+    /**
+     * Возвращает страницу ссылок пользователя в порядке {@link LinkPage#ORDER}.
+     * Реализация по умолчанию обходит {@link #stream()} и держит в памяти только одну страницу.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param cursor   курсор из {@link LinkPage#getNextCursor()} предыдущей страницы или null для первой.
+     * @param pageSize максимальное число ссылок на странице.
+     * @return страница ссылок.
+     * @throws LinkRepositoryException если произошла ошибка при извлечении ссылок.
+     * @throws IllegalArgumentException если размер страницы не положителен или курсор некорректен.
+     */
+    default LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        try (Stream<Link> links = stream()) {
+            links.forEach(page::add);
+        } catch (UncheckedLinkRepositoryException e) {
+            throw e.getCause();
+        }
+        return page.build();
+    }
+
     /**
      * Удаляет ссылку по её идентификатору.
      *
@@ -47,10 +104,131 @@ public interface LinkRepository {
     void deleteLink(UUID linkId) throws LinkRepositoryException;
 
     /**
-     * Обновляет ссылку.
+     * Обновляет ссылку безусловно, перезаписывая изменения, сделанные после ее чтения.
+     * Версия хранимой ссылки при этом увеличивается.
      *
      * @param link обновленная ссылка.
      * @throws LinkRepositoryException если произошла ошибка при удалении ссылки.
+     * @see #updateLink(Link, long)
      */
     void updateLink(Link link) throws LinkRepositoryException;
+
+    /**
+     * Обновляет ссылку, только если ее версия в репозитории все еще равна {@code expectedVersion}
+     * (compare-and-set).
+     *
+     * <p>При успехе ссылка записывается с версией {@code expectedVersion + 1}, и эта версия
+     * устанавливается в переданный объект. Если ссылку уже обновили, ничего не меняется: вызывающий
+     * перечитывает ссылку и повторяет изменение, поэтому параллельные обновления не теряются
+     * и не требуют монопольной блокировки, а читатели не ждут писателей.</p>
+     *
+     * <p>Реализация по умолчанию сравнивает версию и записывает ссылку под монитором репозитория,
+     * поэтому атомарна только относительно других вызовов этого метода.</p>
+     *
+     * @param link            обновленная ссылка.
+     * @param expectedVersion версия, прочитанная вместе со ссылкой.
+     * @return true, если ссылка обновлена; false, если ее версия уже другая.
+     * @throws LinkRepositoryException если ссылка не найдена или произошла ошибка при обновлении.
+     */
+    default boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        synchronized (this) {
+            Optional<Link> stored = getLinkByShortUrl(link.getShortURL());
+            if (stored.isEmpty() || !stored.get().getId().equals(link.getId())) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            if (stored.get().getVersion() != expectedVersion) {
+                return false;
+            }
+            link.setVersion(expectedVersion + 1);
+            updateLink(link);
+            return true;
+        }
+    }
+
+    /**
+     * Сохраняет несколько ссылок. Реализации могут выполнять запись одним пакетом.
+     *
+     * @param links ссылки, которые необходимо сохранить.
+     * @throws LinkRepositoryException если произошла ошибка при сохранении ссылок.
+     */
+    default void saveLinks(List<Link> links) throws LinkRepositoryException {
+        for (Link link : links) {
+            saveLink(link);
+        }
+    }
+
+    /**
+     * Записывает счетчики кликов нескольких ссылок. Уже удаленные ссылки пропускаются.
+     *
+     * <p>Реализации записывают только счетчик, не меняя остальных полей и версии ссылки, так что запись
+     * счетчиков не конфликтует с {@link #updateLink(Link, long)}, и могут выполнять запись одним пакетом.
+     * Реализация по умолчанию перечитывает каждую ссылку и записывает ее счетчик через
+     * {@link #updateLink(Link, long)}, повторяя запись при конфликте версий.</p>
+     *
+     * @param links ссылки с новыми значениями счетчика кликов.
+     * @throws LinkRepositoryException если произошла ошибка при обновлении ссылок.
+     */
+    default void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        for (Link link : links) {
+            while (true) {
+                Optional<Link> stored = getLinkByShortUrl(link.getShortURL());
+                if (stored.isEmpty() || !stored.get().getId().equals(link.getId())) {
+                    break;
+                }
+                Link updated = new Link(stored.get());
+                updated.setClickCount(link.getClickCount());
+                if (updateLink(updated, updated.getVersion())) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет ссылки, срок действия которых истек к моменту {@code now}.
+     * Ссылки с исчерпанными кликами сюда не относятся: они удаляются сервисом сразу после последнего клика.
+     * Реализации могут выполнять удаление одним запросом над множеством строк.
+     *
+     * @param now момент, относительно которого проверяется срок действия.
+     * @return удаленные ссылки.
+     * @throws LinkRepositoryException если произошла ошибка при удалении ссылок.
+     */
+    default List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        List<Link> expired;
+        try (Stream<Link> links = stream()) {
+            expired = links.filter(link -> link.getExpireDt() != null && link.getExpireDt().isBefore(now))
+                    .collect(Collectors.toList());
+        } catch (UncheckedLinkRepositoryException e) {
+            throw e.getCause();
+        }
+        List<Link> deleted = new ArrayList<>(expired.size());
+        for (Link link : expired) {
+            if (ExpirySweep.deleteIfPresent(this, link)) {
+                deleted.add(link);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Параллельно удаляет ссылки, срок действия которых истек к моменту {@code now}.
+     *
+     * <p>Хранилище делится на разделы, которые обходятся задачами {@link ForkJoinPool}; удаленные ссылки
+     * передаются получателю порциями по мере обработки разделов, не дожидаясь конца очистки.
+     * Реализация по умолчанию делит {@link #stream()} и удаляет найденные ссылки через {@link #deleteLink(UUID)},
+     * пропуская уже удаленные; при ошибке получатель успевает получить ссылки, удаленные до нее.</p>
+     *
+     * @param now     момент, относительно которого проверяется срок действия.
+     * @param pool    пул, в котором выполняется очистка.
+     * @param deleted получатель порций удаленных ссылок; вызывается из потоков пула, возможно одновременно.
+     * @return число удаленных ссылок.
+     * @throws LinkRepositoryException если произошла ошибка при удалении ссылок.
+     */
+    default int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        try (Stream<Link> links = stream()) {
+            return pool.invoke(new ExpirySweep(this, links.spliterator(), now, deleted));
+        } catch (UncheckedLinkRepositoryException e) {
+            throw e.getCause();
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package linkrepository;
+
+import entity.Link;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция в списке ссылок пользователя, упорядоченном по {@link LinkPage#ORDER}.
+ *
+ * <p>Снаружи курсор — непрозрачная строка: в ней закодированы дата создания и идентификатор
+ * последней ссылки страницы. Следующая страница начинается строго после этой ссылки, поэтому
+ * добавление и удаление ссылок между запросами не сдвигает страницы и не дублирует ссылки.</p>
+ */
+public final class PageCursor {
+
+    private static final char SEPARATOR = '/';
+
+    /**
+     * Дата создания последней ссылки страницы; null, если у нее нет даты создания.
+     */
+    private final LocalDateTime createDt;
+
+    /**
+     * Идентификатор последней ссылки страницы в строковом виде.
+     */
+    private final String linkId;
+
+    private PageCursor(LocalDateTime createDt, String linkId) {
+        this.createDt = createDt;
+        this.linkId = linkId;
+    }
+
+    /**
+     * Возвращает курсор, указывающий на позицию сразу после ссылки.
+     *
+     * @param link последняя ссылка страницы.
+     * @return непрозрачный курсор.
+     */
+    public static String encode(Link link) {
+        String raw = (link.getCreateDt() == null ? "" : link.getCreateDt().toString()) + SEPARATOR + link.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор.
+     *
+     * @param cursor курсор, полученный из {@link LinkPage#getNextCursor()}.
+     * @return позиция в списке.
+     * @throws IllegalArgumentException если строка не является курсором.
+     */
+    public static PageCursor parse(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный курсор страницы");
+            }
+            String createDt = raw.substring(0, separator);
+            UUID linkId = UUID.fromString(raw.substring(separator + 1));
+            return new PageCursor(createDt.isEmpty() ? null : LocalDateTime.parse(createDt), linkId.toString());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+    }
+
+    /**
+     * Возвращает дату создания последней ссылки предыдущей страницы.
+     *
+     * @return дата создания или null, если у ссылки нет даты создания.
+     */
+    public LocalDateTime getCreateDt() {
+        return createDt;
+    }
+
+    /**
+     * Возвращает идентификатор последней ссылки предыдущей страницы.
+     *
+     * @return идентификатор в строковом виде.
+     */
+    public String getLinkId() {
+        return linkId;
+    }
+
+    /**
+     * Проверяет, идет ли ссылка в порядке {@link LinkPage#ORDER} строго после курсора.
+     *
+     * @param link ссылка.
+     * @return true, если ссылка принадлежит следующим страницам.
+     */
+    public boolean precedes(Link link) {
+        LocalDateTime other = link.getCreateDt();
+        if (createDt == null || other == null) {
+            if (createDt != other) {
+                return createDt == null;
+            }
+        } else {
+            int byDate = createDt.compareTo(other);
+            if (byDate != 0) {
+                return byDate < 0;
+            }
+        }
+        return linkId.compareTo(link.getId().toString()) < 0;
+    }
+}
@@ -0,0 +1,29 @@
+package linkrepository;
+
+/**
+ * Оборачивает {@link LinkRepositoryException}, возникшее при обходе потока {@link LinkRepository#stream()},
+ * где проверяемые исключения выбросить нельзя.
+ */
+public class UncheckedLinkRepositoryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Конструктор.
+     *
+     * @param cause исходная ошибка репозитория.
+     */
+    public UncheckedLinkRepositoryException(LinkRepositoryException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Возвращает исходную ошибку репозитория.
+     *
+     * @return ошибка репозитория.
+     */
+    @Override
+    public synchronized LinkRepositoryException getCause() {
+        return (LinkRepositoryException) super.getCause();
+    }
+}
@@ -0,0 +1,116 @@
+package linkrepository.async;
+
+import entity.Link;
+import linkrepository.AsyncLinkRepository;
+import linkrepository.LinkPage;
+import linkrepository.LinkRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Адаптер, предоставляющий синхронный {@link LinkRepository} через интерфейс {@link AsyncLinkRepository}.
+ *
+ * <p>Каждый вызов выполняется на переданном {@link Executor}, поэтому блокирующий ввод-вывод
+ * репозитория не занимает поток вызывающего.</p>
+ */
+public class AsyncLinkRepositoryAdapter implements AsyncLinkRepository {
+
+    /**
+     * Синхронный репозиторий.
+     */
+    private final LinkRepository delegate;
+
+    /**
+     * Исполнитель блокирующих вызовов.
+     */
+    private final Executor executor;
+
+    /**
+     * Конструктор адаптера.
+     *
+     * @param delegate синхронный репозиторий.
+     * @param executor исполнитель, на котором выполняются вызовы репозитория.
+     */
+    public AsyncLinkRepositoryAdapter(LinkRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> saveLink(Link link) {
+        return call(() -> {
+            delegate.saveLink(link);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Link>> getAll() {
+        return call(delegate::getAll);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Link>> getLinkByShortUrl(String shortURL) {
+        return call(() -> delegate.getLinkByShortUrl(shortURL));
+    }
+
+    @Override
+    public CompletableFuture<LinkPage> getLinksForUser(UUID userId, String cursor, int pageSize) {
+        return call(() -> delegate.getLinksForUser(userId, cursor, pageSize));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteLink(UUID linkId) {
+        return call(() -> {
+            delegate.deleteLink(linkId);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateLink(Link link) {
+        return call(() -> {
+            delegate.updateLink(link);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateLink(Link link, long expectedVersion) {
+        return call(() -> delegate.updateLink(link, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<List<Link>> deleteExpired(LocalDateTime now) {
+        return call(() -> delegate.deleteExpired(now));
+    }
+
+    /**
+     * Выполняет вызов репозитория на исполнителе.
+     *
+     * @param call вызов репозитория.
+     * @return будущее с результатом вызова.
+     */
+    private <T> CompletableFuture<T> call(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
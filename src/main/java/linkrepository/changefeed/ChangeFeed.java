@@ -0,0 +1,328 @@
+package linkrepository.changefeed;
+
+import entity.Link;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Упорядоченная лента изменений репозитория ссылок.
+ *
+ * <p>Каждое изменение получает номер на единицу больше предыдущего (начиная с 1) и кладется
+ * в кольцевой буфер фиксированной емкости. Подписчики сами забирают изменения порциями через
+ * {@link Subscription#poll(int, Duration)} и могут возобновить чтение с любого номера, который еще
+ * есть в буфере, поэтому кэшам и репликам не нужно перечитывать все ссылки после короткого перерыва.</p>
+ *
+ * <p>Буфер ограничен, и запись в него сдерживается самым медленным подписчиком: если изменение
+ * вытеснило бы еще не прочитанное им, публикующий поток ждет до {@code publishTimeout}. Если подписчик
+ * так и не догнал ленту, он отключается, а следующий вызов {@code poll} сообщает ему об отставании
+ * через {@link ChangeFeedLagException}; запись после этого продолжается без него. Номера живут, пока
+ * жив объект ленты: после перезапуска процесса нумерация начинается заново.</p>
+ */
+public class ChangeFeed {
+
+    private final LinkChange[] buffer;
+
+    private final int mask;
+
+    private final long publishTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Сигнал подписчикам: опубликовано новое изменение.
+     */
+    private final Condition published = lock.newCondition();
+
+    /**
+     * Сигнал публикующим потокам: подписчик прочитал изменения или отписался.
+     */
+    private final Condition consumed = lock.newCondition();
+
+    /**
+     * Подписчики, которые сдерживают запись в буфер.
+     */
+    private final Set<Subscription> subscriptions = new HashSet<>();
+
+    /**
+     * Номер последнего опубликованного изменения; 0, пока изменений не было.
+     */
+    private long lastSequence;
+
+    /**
+     * Создает ленту.
+     *
+     * @param capacity       емкость буфера; округляется вверх до степени двойки.
+     * @param publishTimeout сколько публикующий поток ждет отставшего подписчика, прежде чем отключить его;
+     *                       при нулевом значении отставшие подписчики отключаются сразу.
+     */
+    public ChangeFeed(int capacity, Duration publishTimeout) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость ленты изменений должна быть > 0");
+        }
+        if (publishTimeout.isNegative()) {
+            throw new IllegalArgumentException("Время ожидания подписчиков не может быть < 0");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new LinkChange[size];
+        this.mask = size - 1;
+        this.publishTimeoutNanos = publishTimeout.toNanos();
+    }
+
+    /**
+     * Публикует изменение.
+     *
+     * @param type   вид изменения.
+     * @param linkId идентификатор ссылки.
+     * @param link   копия ссылки после изменения или null.
+     * @return номер изменения.
+     */
+    public long publish(LinkChange.Type type, UUID linkId, Link link) {
+        return append(sequence -> new LinkChange(sequence, type, linkId, link));
+    }
+
+    /**
+     * Публикует запись счетчика кликов ссылки.
+     *
+     * @param linkId     идентификатор ссылки.
+     * @param clickCount записанный счетчик кликов.
+     * @return номер изменения.
+     */
+    public long publishClicks(UUID linkId, int clickCount) {
+        return append(sequence -> new LinkChange(sequence, linkId, clickCount));
+    }
+
+    private long append(LongFunction<LinkChange> change) {
+        lock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            long deadline = System.nanoTime() + publishTimeoutNanos;
+            while (true) {
+                long slowest = slowestNext();
+                if (sequence - slowest < buffer.length) {
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    disconnectLagging(sequence);
+                    break;
+                }
+                try {
+                    consumed.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    disconnectLagging(sequence);
+                    break;
+                }
+            }
+            buffer[(int) sequence & mask] = change.apply(sequence);
+            lastSequence = sequence;
+            published.signalAll();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Подписывается на изменения, опубликованные после вызова.
+     *
+     * @return подписка.
+     */
+    public Subscription subscribe() {
+        lock.lock();
+        try {
+            return subscribe(lastSequence + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Подписывается на изменения начиная с номера {@code fromSequence}. Если эти изменения уже
+     * вытеснены из буфера, первый же {@link Subscription#poll(int, Duration)} выбросит
+     * {@link ChangeFeedLagException}.
+     *
+     * @param fromSequence номер первого нужного изменения.
+     * @return подписка.
+     * @throws IllegalArgumentException если изменения с таким номером еще не опубликованы.
+     */
+    public Subscription subscribe(long fromSequence) {
+        lock.lock();
+        try {
+            if (fromSequence < 1 || fromSequence > lastSequence + 1) {
+                throw new IllegalArgumentException("Изменение с номером " + fromSequence + " еще не опубликовано");
+            }
+            Subscription subscription = new Subscription(fromSequence);
+            if (fromSequence < oldestSequence()) {
+                subscription.lagging = true;
+            } else {
+                subscriptions.add(subscription);
+            }
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает номер последнего опубликованного изменения.
+     *
+     * @return номер или 0, если изменений еще не было.
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает емкость буфера.
+     *
+     * @return число изменений, которые хранит лента.
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Номер самого старого изменения, которое еще есть в буфере.
+     */
+    private long oldestSequence() {
+        return Math.max(1, lastSequence - buffer.length + 1);
+    }
+
+    /**
+     * Номер следующего изменения самого медленного подписчика или {@code Long.MAX_VALUE}, если подписчиков нет.
+     */
+    private long slowestNext() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.next);
+        }
+        return slowest;
+    }
+
+    /**
+     * Отключает подписчиков, чье непрочитанное изменение вытеснит изменение с номером {@code sequence}.
+     */
+    private void disconnectLagging(long sequence) {
+        subscriptions.removeIf(subscription -> {
+            if (sequence - subscription.next >= buffer.length) {
+                subscription.lagging = true;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Подписка на ленту. Подписку читает один поток; после отставания или закрытия она больше не используется.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        /**
+         * Номер следующего изменения, которое получит подписчик.
+         */
+        private long next;
+
+        /**
+         * Подписчик отстал, и нужные ему изменения вытеснены.
+         */
+        private boolean lagging;
+
+        private boolean closed;
+
+        private Subscription(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Забирает следующие изменения, ожидая их появления не дольше {@code timeout}.
+         *
+         * @param max     максимальное число изменений.
+         * @param timeout сколько ждать, если новых изменений нет.
+         * @return изменения в порядке номеров; пустой список, если за время ожидания изменений не появилось.
+         * @throws ChangeFeedLagException если подписчик отстал и нужные ему изменения вытеснены из буфера.
+         * @throws InterruptedException   если поток прерван во время ожидания.
+         */
+        public List<LinkChange> poll(int max, Duration timeout) throws ChangeFeedLagException, InterruptedException {
+            if (max <= 0) {
+                throw new IllegalArgumentException("Число изменений должно быть > 0");
+            }
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("Подписка закрыта");
+                }
+                long nanos = timeout.toNanos();
+                while (next > lastSequence && !lagging) {
+                    if (nanos <= 0) {
+                        return new ArrayList<>();
+                    }
+                    nanos = published.awaitNanos(nanos);
+                }
+                if (lagging || next < oldestSequence()) {
+                    lagging = true;
+                    subscriptions.remove(this);
+                    throw new ChangeFeedLagException("Подписчик отстал от ленты изменений: изменения с "
+                            + next + " по " + (oldestSequence() - 1) + " уже вытеснены", oldestSequence());
+                }
+                int count = (int) Math.min(max, lastSequence - next + 1);
+                List<LinkChange> changes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    changes.add(buffer[(int) (next + i) & mask]);
+                }
+                next += count;
+                consumed.signalAll();
+                return changes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Возвращает номер следующего изменения, которое получит подписчик; с него можно возобновить
+         * чтение новой подпиской.
+         *
+         * @return номер изменения.
+         */
+        public long getNextSequence() {
+            lock.lock();
+            try {
+                return next;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Отписывается от ленты; запись больше не ждет этого подписчика.
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                subscriptions.remove(this);
+                consumed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package linkrepository.changefeed;
+
+/**
+ * Исключение, которое выбрасывается подписчику {@link ChangeFeed}, отставшему от ленты настолько,
+ * что нужные ему изменения уже вытеснены из буфера. Подписчик должен заново прочитать состояние
+ * репозитория и подписаться с номера {@link #getResumeSequence()}.
+ */
+public class ChangeFeedLagException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long resumeSequence;
+
+    /**
+     * Конструктор с сообщением.
+     *
+     * @param message        сообщение об ошибке.
+     * @param resumeSequence номер самого старого изменения, которое еще есть в буфере.
+     */
+    public ChangeFeedLagException(String message, long resumeSequence) {
+        super(message);
+        this.resumeSequence = resumeSequence;
+    }
+
+    /**
+     * Возвращает номер самого старого изменения, которое еще можно получить.
+     *
+     * @return номер изменения.
+     */
+    public long getResumeSequence() {
+        return resumeSequence;
+    }
+}
@@ -0,0 +1,204 @@
+package linkrepository.changefeed;
+
+import entity.Link;
+import linkrepository.LinkPage;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий ссылок, публикующий каждое изменение основного репозитория в {@link ChangeFeed}.
+ *
+ * <p>Чтение идет прямо в основной репозиторий. Запись одной ссылки и публикация ее изменения
+ * выполняются под монитором полосы, выбранной по идентификатору ссылки, поэтому изменения одной
+ * ссылки попадают в ленту в том порядке, в котором применены, а изменения разных ссылок публикуются
+ * независимо. {@link #saveLinks(List)} пишет пакет и публикует создания под мониторами полос всех его ссылок,
+ * взятыми по возрастанию номера полосы, поэтому изменение ссылки пакета не опубликуется раньше ее создания.
+ * {@link #updateClickCounts(List)} пишет счетчики по одной ссылке под монитором ее полосы, поэтому
+ * пакетная запись основного репозитория здесь не используется; событие {@link LinkChange.Type#CLICKED}
+ * несет только идентификатор и записанный счетчик. Основной репозиторий пропускает уже удаленные ссылки,
+ * так что для них событие приходит после {@link LinkChange.Type#DELETED}, и подписчик должен его пропустить.</p>
+ */
+public class ChangeFeedLinkRepository implements LinkRepository {
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Основной репозиторий.
+     */
+    private final LinkRepository delegate;
+
+    /**
+     * Лента изменений.
+     */
+    private final ChangeFeed feed;
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Конструктор.
+     *
+     * @param delegate основной репозиторий.
+     * @param feed     лента, в которую публикуются изменения.
+     */
+    public ChangeFeedLinkRepository(LinkRepository delegate, ChangeFeed feed) {
+        this.delegate = delegate;
+        this.feed = feed;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Возвращает ленту изменений.
+     *
+     * @return лента, в которую публикуются изменения репозитория.
+     */
+    public ChangeFeed getFeed() {
+        return feed;
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        synchronized (stripeFor(link.getId())) {
+            delegate.saveLink(link);
+            publish(LinkChange.Type.CREATED, link);
+        }
+    }
+
+    @Override
+    public void saveLinks(List<Link> links) throws LinkRepositoryException {
+        boolean[] taken = new boolean[STRIPES];
+        for (Link link : links) {
+            taken[stripeIndex(link.getId())] = true;
+        }
+        saveLinksLocked(links, taken, 0);
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<Link> stream() throws LinkRepositoryException {
+        return delegate.stream();
+    }
+
+    @Override
+    public boolean supportsShortUrl(String shortURL) {
+        return delegate.supportsShortUrl(shortURL);
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        return delegate.getLinkByShortUrl(shortURL);
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        return delegate.getLinksForUser(userId, cursor, pageSize);
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        synchronized (stripeFor(linkId)) {
+            delegate.deleteLink(linkId);
+            feed.publish(LinkChange.Type.DELETED, linkId, null);
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        synchronized (stripeFor(link.getId())) {
+            delegate.updateLink(link);
+            publish(LinkChange.Type.UPDATED, link);
+        }
+    }
+
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        synchronized (stripeFor(link.getId())) {
+            if (!delegate.updateLink(link, expectedVersion)) {
+                return false;
+            }
+            publish(LinkChange.Type.UPDATED, link);
+            return true;
+        }
+    }
+
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        for (Link link : links) {
+            synchronized (stripeFor(link.getId())) {
+                delegate.updateClickCounts(List.of(link));
+                feed.publishClicks(link.getId(), link.getClickCount());
+            }
+        }
+    }
+
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        List<Link> deleted = delegate.deleteExpired(now);
+        publishDeleted(deleted);
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        return delegate.deleteExpired(now, pool, batch -> {
+            publishDeleted(batch);
+            deleted.accept(batch);
+        });
+    }
+
+    /**
+     * Публикует удаление ссылок, уже удаленных из основного репозитория. Монитор полосы берется, чтобы
+     * обновление, записанное до удаления, успело опубликоваться раньше него.
+     */
+    private void publishDeleted(List<Link> links) {
+        for (Link link : links) {
+            synchronized (stripeFor(link.getId())) {
+                publish(LinkChange.Type.DELETED, link);
+            }
+        }
+    }
+
+    /**
+     * Берет мониторы отмеченных полос, начиная с {@code from}, по возрастанию номера и под всеми ними пишет пакет
+     * и публикует создания. Порядок один для всех пакетов, поэтому два пакета не ждут друг друга по кругу.
+     */
+    private void saveLinksLocked(List<Link> links, boolean[] taken, int from) throws LinkRepositoryException {
+        for (int i = from; i < STRIPES; i++) {
+            if (taken[i]) {
+                synchronized (stripes[i]) {
+                    saveLinksLocked(links, taken, i + 1);
+                }
+                return;
+            }
+        }
+        delegate.saveLinks(links);
+        for (Link link : links) {
+            publish(LinkChange.Type.CREATED, link);
+        }
+    }
+
+    private void publish(LinkChange.Type type, Link link) {
+        feed.publish(type, link.getId(), new Link(link));
+    }
+
+    private Object stripeFor(UUID linkId) {
+        return stripes[stripeIndex(linkId)];
+    }
+
+    private static int stripeIndex(UUID linkId) {
+        return Math.floorMod(linkId.hashCode(), STRIPES);
+    }
+}
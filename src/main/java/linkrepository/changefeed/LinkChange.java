@@ -0,0 +1,124 @@
+package linkrepository.changefeed;
+
+import entity.Link;
+
+import java.util.UUID;
+
+/**
+ * Изменение в репозитории ссылок, опубликованное в {@link ChangeFeed}.
+ *
+ * <p>Номера изменений строго возрастают в порядке публикации, а изменения одной ссылки публикуются
+ * в том порядке, в котором они применены к репозиторию.</p>
+ */
+public final class LinkChange {
+
+    /**
+     * Вид изменения.
+     */
+    public enum Type {
+        /**
+         * Ссылка создана.
+         */
+        CREATED,
+        /**
+         * Ссылка обновлена.
+         */
+        UPDATED,
+        /**
+         * Ссылка удалена.
+         */
+        DELETED,
+        /**
+         * Записан счетчик кликов ссылки; изменение несет только идентификатор и счетчик.
+         */
+        CLICKED
+    }
+
+    private final long sequence;
+
+    private final Type type;
+
+    private final UUID linkId;
+
+    private final Link link;
+
+    private final int clickCount;
+
+    /**
+     * Конструктор.
+     *
+     * @param sequence номер изменения.
+     * @param type     вид изменения.
+     * @param linkId   идентификатор ссылки.
+     * @param link     копия ссылки после изменения или null, если она неизвестна.
+     */
+    public LinkChange(long sequence, Type type, UUID linkId, Link link) {
+        this(sequence, type, linkId, link, link != null ? link.getClickCount() : -1);
+    }
+
+    /**
+     * Конструктор изменения {@link Type#CLICKED}.
+     *
+     * @param sequence   номер изменения.
+     * @param linkId     идентификатор ссылки.
+     * @param clickCount записанный счетчик кликов.
+     */
+    public LinkChange(long sequence, UUID linkId, int clickCount) {
+        this(sequence, Type.CLICKED, linkId, null, clickCount);
+    }
+
+    private LinkChange(long sequence, Type type, UUID linkId, Link link, int clickCount) {
+        this.sequence = sequence;
+        this.type = type;
+        this.linkId = linkId;
+        this.link = link;
+        this.clickCount = clickCount;
+    }
+
+    /**
+     * Возвращает номер изменения.
+     *
+     * @return номер, начиная с 1.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Возвращает вид изменения.
+     *
+     * @return вид изменения.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Возвращает идентификатор измененной ссылки.
+     *
+     * @return идентификатор ссылки.
+     */
+    public UUID getLinkId() {
+        return linkId;
+    }
+
+    /**
+     * Возвращает копию ссылки после изменения. Для {@link Type#DELETED} это последняя известная
+     * версия ссылки.
+     *
+     * @return копия ссылки; null для {@link Type#CLICKED} и если при удалении по идентификатору ссылка неизвестна.
+     */
+    public Link getLink() {
+        return link;
+    }
+
+    /**
+     * Возвращает счетчик кликов ссылки после изменения.
+     *
+     * @return записанный счетчик для {@link Type#CLICKED}, счетчик из копии ссылки для остальных изменений
+     *         или -1, если ссылка неизвестна.
+     */
+    public int getClickCount() {
+        return clickCount;
+    }
+}
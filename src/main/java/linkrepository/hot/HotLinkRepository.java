@@ -0,0 +1,346 @@
+package linkrepository.hot;
+
+import entity.Link;
+import linkrepository.LinkPage;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий ссылок с закрепленным в памяти «горячим» слоем поверх любого другого репозитория.
+ *
+ * <p>Самые посещаемые ссылки закрепляются в отдельной карте, и поиск по короткой ссылке находит их
+ * без обращения к основному репозиторию (базе данных, файлам и т. п.). Все читатели получают один и тот же
+ * объект {@link Link}, поэтому закрепленные ссылки не изменяются: любое изменение, в том числе запись
+ * остатка кликов, подменяет закрепленную ссылку новой копией. Запись всегда идет в основной репозиторий,
+ * а горячий слой обновляется вслед за ней.</p>
+ *
+ * <p>Список закрепляемых ссылок периодически берется у источника (обычно это трекер самых частых
+ * переходов) и сохраняется в файл. При создании репозиторий читает этот файл и сразу закрепляет
+ * перечисленные ссылки, так что после перезапуска горячий слой заполнен до прихода трафика.</p>
+ */
+public final class HotLinkRepository implements LinkRepository, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(HotLinkRepository.class.getName());
+
+    /**
+     * Основной репозиторий.
+     */
+    private final LinkRepository delegate;
+
+    /**
+     * Максимальное число закрепленных ссылок.
+     */
+    private final int capacity;
+
+    /**
+     * Файл списка горячих ссылок; null, если список не сохраняется.
+     */
+    private final Path topListFile;
+
+    /**
+     * Закрепленные ссылки по короткой ссылке.
+     */
+    private final Map<String, Link> pinned = new ConcurrentHashMap<>();
+
+    /**
+     * Закрепленные короткие ссылки в порядке убывания посещаемости на момент последнего обновления.
+     */
+    private volatile List<String> pinnedOrder = List.of();
+
+    /**
+     * Поток обновления горячего слоя; null, пока обновление не запущено.
+     */
+    private ScheduledExecutorService refresher;
+
+    /**
+     * Создает репозиторий и закрепляет ссылки из сохраненного списка, если он есть.
+     *
+     * @param delegate    основной репозиторий.
+     * @param capacity    максимальное число закрепленных ссылок.
+     * @param topListFile файл списка горячих ссылок или null.
+     * @throws LinkRepositoryException если не удалось прочитать сохраненный список или загрузить ссылки.
+     */
+    public HotLinkRepository(LinkRepository delegate, int capacity, Path topListFile) throws LinkRepositoryException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер горячего слоя должен быть > 0");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.topListFile = topListFile;
+
+        if (topListFile != null && Files.exists(topListFile)) {
+            try {
+                pin(Files.readAllLines(topListFile, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new LinkRepositoryException("Ошибка при чтении списка горячих ссылок.", e);
+            }
+        }
+    }
+
+    /**
+     * Запускает периодическое обновление горячего слоя.
+     *
+     * @param topLinks источник текущего списка горячих коротких ссылок в порядке убывания посещаемости.
+     * @param interval период обновления.
+     */
+    public synchronized void startPinning(Supplier<List<String>> topLinks, Duration interval) {
+        if (refresher != null) {
+            throw new IllegalStateException("Обновление горячего слоя уже запущено");
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-links");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                pin(topLinks.get());
+                saveTopList();
+            } catch (LinkRepositoryException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Ошибка при обновлении горячих ссылок", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Закрепляет перечисленные ссылки (не больше емкости) и открепляет остальные.
+     * Отсутствующие в основном репозитории ссылки пропускаются.
+     *
+     * @param shortUrls короткие ссылки в порядке убывания посещаемости.
+     * @throws LinkRepositoryException если произошла ошибка при загрузке ссылок из основного репозитория.
+     */
+    public synchronized void pin(List<String> shortUrls) throws LinkRepositoryException {
+        Set<String> wanted = new HashSet<>();
+        List<String> order = new ArrayList<>();
+        for (String shortUrl : shortUrls) {
+            if (wanted.size() >= capacity) {
+                break;
+            }
+            if (shortUrl.isBlank() || !wanted.add(shortUrl)) {
+                continue;
+            }
+            order.add(shortUrl);
+            if (!pinned.containsKey(shortUrl)) {
+                load(shortUrl);
+            }
+        }
+        pinned.keySet().retainAll(wanted);
+        pinnedOrder = order;
+    }
+
+    /**
+     * Возвращает закрепленные короткие ссылки.
+     *
+     * @return короткие ссылки горячего слоя в порядке убывания посещаемости.
+     */
+    public List<String> getPinned() {
+        List<String> result = new ArrayList<>();
+        for (String shortUrl : pinnedOrder) {
+            if (pinned.containsKey(shortUrl)) {
+                result.add(shortUrl);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        delegate.saveLink(link);
+    }
+
+    @Override
+    public void saveLinks(List<Link> links) throws LinkRepositoryException {
+        delegate.saveLinks(links);
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<Link> stream() throws LinkRepositoryException {
+        return delegate.stream();
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        return delegate.getLinksForUser(userId, cursor, pageSize);
+    }
+
+    @Override
+    public boolean supportsShortUrl(String shortURL) {
+        return delegate.supportsShortUrl(shortURL);
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        Link hot = pinned.get(shortURL);
+        if (hot != null) {
+            return Optional.of(hot);
+        }
+        return delegate.getLinkByShortUrl(shortURL);
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        delegate.deleteLink(linkId);
+        pinned.values().removeIf(link -> link.getId().equals(linkId));
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        delegate.updateLink(link);
+        replacePinned(link, false);
+    }
+
+    /**
+     * Закрепленная ссылка подменяется новой версией, только если закреплена более старая:
+     * обновления, завершившиеся в другом порядке, не откатывают горячий слой.
+     */
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        if (!delegate.updateLink(link, expectedVersion)) {
+            return false;
+        }
+        replacePinned(link, true);
+        return true;
+    }
+
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        delegate.updateClickCounts(links);
+        for (Link link : links) {
+            pinned.computeIfPresent(link.getShortURL(),
+                    (shortURL, hot) -> hot.getId().equals(link.getId()) ? copyWithCount(hot, link.getClickCount()) : hot);
+        }
+    }
+
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        List<Link> deleted = delegate.deleteExpired(now);
+        for (Link link : deleted) {
+            pinned.remove(link.getShortURL());
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        return delegate.deleteExpired(now, pool, batch -> {
+            for (Link link : batch) {
+                pinned.remove(link.getShortURL());
+            }
+            deleted.accept(batch);
+        });
+    }
+
+    /**
+     * Останавливает обновление горячего слоя и сохраняет текущий список горячих ссылок.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (refresher != null) {
+                refresher.shutdownNow();
+            }
+        }
+        try {
+            saveTopList();
+        } catch (LinkRepositoryException e) {
+            LOGGER.log(Level.WARNING, "Ошибка при сохранении списка горячих ссылок", e);
+        }
+    }
+
+    /**
+     * Загружает ссылку из основного репозитория и закрепляет ее.
+     *
+     * <p>Удаление или обновление ссылки могло произойти между загрузкой и закреплением и не застать ее
+     * в горячем слое. Поэтому после закрепления ссылка загружается повторно: если ее удалили, она
+     * открепляется, если обновили — закрепленная копия заменяется свежей.</p>
+     */
+    private void load(String shortUrl) throws LinkRepositoryException {
+        Optional<Link> loaded = delegate.getLinkByShortUrl(shortUrl);
+        if (loaded.isEmpty()) {
+            return;
+        }
+        pinned.put(shortUrl, loaded.get());
+
+        Optional<Link> fresh = delegate.getLinkByShortUrl(shortUrl);
+        if (fresh.isEmpty()) {
+            pinned.remove(shortUrl, loaded.get());
+        } else if (fresh.get() != loaded.get()) {
+            pinned.replace(shortUrl, loaded.get(), fresh.get());
+        }
+    }
+
+    /**
+     * Подменяет закрепленную ссылку с тем же идентификатором копией обновленной. Ссылка ищется по идентификатору:
+     * если сменилась короткая ссылка, запись под прежней открепляется, а новую короткую ссылку закрепит
+     * следующее обновление горячего слоя.
+     *
+     * @param link      обновленная ссылка.
+     * @param newerOnly подменять, только если закреплена более старая версия: обновления, завершившиеся
+     *                  в другом порядке, не откатывают горячий слой.
+     */
+    private void replacePinned(Link link, boolean newerOnly) {
+        for (Map.Entry<String, Link> entry : pinned.entrySet()) {
+            Link hot = entry.getValue();
+            if (!hot.getId().equals(link.getId())) {
+                continue;
+            }
+            if (!entry.getKey().equals(link.getShortURL())) {
+                pinned.remove(entry.getKey(), hot);
+                continue;
+            }
+            Link copy = new Link(link);
+            pinned.computeIfPresent(entry.getKey(), (shortURL, current) -> current.getId().equals(link.getId())
+                    && (!newerOnly || current.getVersion() < link.getVersion()) ? copy : current);
+        }
+    }
+
+    private static Link copyWithCount(Link hot, int clickCount) {
+        Link copy = new Link(hot);
+        copy.setClickCount(clickCount);
+        return copy;
+    }
+
+    private void saveTopList() throws LinkRepositoryException {
+        if (topListFile == null) {
+            return;
+        }
+        try {
+            Path temp = topListFile.resolveSibling(topListFile.getFileName() + ".tmp");
+            Files.write(temp, getPinned(), StandardCharsets.UTF_8);
+            Files.move(temp, topListFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new LinkRepositoryException("Ошибка при сохранении списка горячих ссылок.", e);
+        }
+    }
+}
@@ -1,33 +1,52 @@
 package linkrepository.inmemory;
 
+import linkrepository.LinkPage;
+import linkrepository.LinkPageBuilder;
 import linkrepository.LinkRepository;
 import linkrepository.LinkRepositoryException;
 import entity.Link;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Реализация репозитория ссылок в памяти.
- * <p>Этот репозиторий использует HashMap для хранения ссылок в памяти.</p>
+ * <p>Этот репозиторий использует ConcurrentHashMap для хранения ссылок в памяти, поэтому к нему
+ * можно обращаться из фоновых потоков.</p>
+ * <p>Ссылки дополнительно индексируются по короткой ссылке, поэтому поиск по ней не обходит все ссылки
+ * и годится для потоков цикла событий. Индекс меняется вместе с хеш-таблицей, под блокировкой ячейки ссылки.</p>
  */
 public class InMemoryLinkRepository implements LinkRepository {
 
     /**
      * Хеш-таблица для хранения ссылок.
      */
-    private final Map<UUID, Link> linkStorage = new HashMap<>();
+    private final Map<UUID, Link> linkStorage = new ConcurrentHashMap<>();
+
+    /**
+     * Индекс ссылок по короткой ссылке.
+     */
+    private final Map<String, Link> byShortUrl = new ConcurrentHashMap<>();
 
     @Override
     public void saveLink(Link link) throws LinkRepositoryException {
         try {
-            if (linkStorage.containsKey(link.getId())) {
+            boolean[] exists = new boolean[1];
+            linkStorage.compute(link.getId(), (id, stored) -> {
+                if (stored != null) {
+                    exists[0] = true;
+                    return stored;
+                }
+                byShortUrl.put(link.getShortURL(), link);
+                return link;
+            });
+            if (exists[0]) {
                 throw new LinkRepositoryException("Ссылка с таким ID уже существует.");
             }
-            linkStorage.put(link.getId(), link);
         } catch (Exception e) {
             throw new LinkRepositoryException("Ошибка при сохранении ссылки.", e);
         }
@@ -42,15 +61,28 @@ public class InMemoryLinkRepository implements LinkRepository {
         }
     }
 
+    /**
+     * Обходит ссылки прямо в хеш-таблице без копирования; поток делится для параллельной обработки
+     * так же, как {@link ConcurrentHashMap}.
+     */
+    @Override
+    public Stream<Link> stream() {
+        return linkStorage.values().stream();
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        for (Link link : linkStorage.values()) {
+            page.add(link);
+        }
+        return page.build();
+    }
+
     @Override
     public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
         try {
-            for (Link link : linkStorage.values()) {
-                if (link.getShortURL().equals(shortURL)) {
-                    return Optional.of(link);
-                }
-            }
-            return Optional.empty();
+            return Optional.ofNullable(byShortUrl.get(shortURL));
         } catch (Exception e) {
             throw new LinkRepositoryException("Ошибка при извлечении ссылки по короткой.", e);
         }
@@ -59,10 +91,15 @@ public class InMemoryLinkRepository implements LinkRepository {
     @Override
     public void deleteLink(UUID linkId) throws LinkRepositoryException {
         try {
-            if (!linkStorage.containsKey(linkId)) {
+            boolean[] removed = new boolean[1];
+            linkStorage.computeIfPresent(linkId, (id, stored) -> {
+                byShortUrl.remove(stored.getShortURL(), stored);
+                removed[0] = true;
+                return null;
+            });
+            if (!removed[0]) {
                 throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
             }
-            linkStorage.remove(linkId);
         } catch (Exception e) {
             throw new LinkRepositoryException("Ошибка при удалении ссылки.", e);
         }
@@ -71,12 +108,65 @@ public class InMemoryLinkRepository implements LinkRepository {
     @Override
     public void updateLink(Link link) throws LinkRepositoryException {
         try {
-            if (!linkStorage.containsKey(link.getId())) {
+            Link previous = linkStorage.computeIfPresent(link.getId(), (id, stored) -> {
+                link.setVersion(stored.getVersion() + 1);
+                reindex(stored, link);
+                return link;
+            });
+            if (previous == null) {
                 throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
             }
-            linkStorage.put(link.getId(), link);
         } catch (Exception e) {
             throw new LinkRepositoryException("Ошибка при обновлении ссылки.", e);
         }
     }
+
+    /**
+     * Сравнивает версию и подменяет ссылку одной атомарной операцией хеш-таблицы; блокируется только
+     * ячейка таблицы, а читатели продолжают видеть прежний объект, пока его не подменят.
+     */
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        boolean[] updated = new boolean[1];
+        Link current = linkStorage.computeIfPresent(link.getId(), (id, stored) -> {
+            if (stored.getVersion() != expectedVersion) {
+                return stored;
+            }
+            link.setVersion(expectedVersion + 1);
+            reindex(stored, link);
+            updated[0] = true;
+            return link;
+        });
+        if (current == null) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+        return updated[0];
+    }
+
+    /**
+     * Подменяет сохраненную ссылку копией с новым остатком кликов: читатели могли получить прежний объект,
+     * поэтому он не изменяется.
+     */
+    @Override
+    public void updateClickCounts(List<Link> links) {
+        for (Link link : links) {
+            linkStorage.computeIfPresent(link.getId(), (id, stored) -> {
+                Link updated = new Link(stored);
+                updated.setClickCount(link.getClickCount());
+                reindex(stored, updated);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Подменяет ссылку в индексе; вызывается под блокировкой ячейки ссылки. Новая ссылка добавляется
+     * раньше, чем убирается прежняя, чтобы поиск по неизменной короткой ссылке не промахнулся.
+     */
+    private void reindex(Link stored, Link link) {
+        byShortUrl.put(link.getShortURL(), link);
+        if (!stored.getShortURL().equals(link.getShortURL())) {
+            byShortUrl.remove(stored.getShortURL(), stored);
+        }
+    }
 }
@@ -0,0 +1,251 @@
+package linkrepository.instrumented;
+
+import entity.Link;
+import jfr.Outcome;
+import jfr.RepositoryCallEvent;
+import linkrepository.LinkPage;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий ссылок, записывающий каждый вызов основного репозитория событием
+ * {@link RepositoryCallEvent} Java Flight Recorder.
+ *
+ * <p>Событие несет имя метода, короткую ссылку (если вызов касается одной ссылки), исход и число
+ * прочитанных или измененных ссылок. Неудачный compare-and-set записывается с исходом
+ * {@link Outcome#CONFLICT}, отсутствующая ссылка — {@link Outcome#NOT_FOUND}, исключение —
+ * {@link Outcome#FAILED}. Пока запись выключена, обертка только создает событие и передает вызов дальше.</p>
+ */
+public class InstrumentedLinkRepository implements LinkRepository {
+
+    /**
+     * Основной репозиторий.
+     */
+    private final LinkRepository delegate;
+
+    private final String name;
+
+    /**
+     * Конструктор.
+     *
+     * @param delegate основной репозиторий.
+     */
+    public InstrumentedLinkRepository(LinkRepository delegate) {
+        this.delegate = delegate;
+        this.name = delegate.getClass().getSimpleName();
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("saveLink", link.getShortURL());
+        try {
+            delegate.saveLink(link);
+            event.setLinksScanned(1);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public void saveLinks(List<Link> links) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("saveLinks", null);
+        try {
+            delegate.saveLinks(links);
+            event.setLinksScanned(links.size());
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("getAll", null);
+        try {
+            List<Link> all = delegate.getAll();
+            event.setLinksScanned(all.size());
+            return all;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Событие охватывает весь обход: оно завершается при закрытии потока, и число ссылок — число
+     * прошедших через поток. Если событие выключено, поток основного репозитория возвращается как есть.
+     */
+    @Override
+    public Stream<Link> stream() throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("stream", null);
+        if (!event.isEnabled()) {
+            return delegate.stream();
+        }
+        Stream<Link> links;
+        try {
+            links = delegate.stream();
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            event.finish();
+            throw e;
+        }
+        LongAdder scanned = new LongAdder();
+        return links.peek(link -> scanned.increment()).onClose(() -> {
+            event.setLinksScanned(scanned.sum());
+            event.finish();
+        });
+    }
+
+    @Override
+    public boolean supportsShortUrl(String shortURL) {
+        return delegate.supportsShortUrl(shortURL);
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("getLinkByShortUrl", shortURL);
+        try {
+            Optional<Link> link = delegate.getLinkByShortUrl(shortURL);
+            if (link.isPresent()) {
+                event.setLinksScanned(1);
+            } else {
+                event.setOutcome(Outcome.NOT_FOUND);
+            }
+            return link;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("getLinksForUser", null);
+        try {
+            LinkPage page = delegate.getLinksForUser(userId, cursor, pageSize);
+            event.setLinksScanned(page.getLinks().size());
+            return page;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("deleteLink", null);
+        try {
+            delegate.deleteLink(linkId);
+            event.setLinksScanned(1);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("updateLink", link.getShortURL());
+        try {
+            delegate.updateLink(link);
+            event.setLinksScanned(1);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("updateLinkIfVersion", link.getShortURL());
+        try {
+            boolean updated = delegate.updateLink(link, expectedVersion);
+            if (updated) {
+                event.setLinksScanned(1);
+            } else {
+                event.setOutcome(Outcome.CONFLICT);
+            }
+            return updated;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("updateClickCounts", null);
+        try {
+            delegate.updateClickCounts(links);
+            event.setLinksScanned(links.size());
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("deleteExpired", null);
+        try {
+            List<Link> deleted = delegate.deleteExpired(now);
+            event.setLinksScanned(deleted.size());
+            return deleted;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        RepositoryCallEvent event = begin("deleteExpiredParallel", null);
+        try {
+            int count = delegate.deleteExpired(now, pool, deleted);
+            event.setLinksScanned(count);
+            return count;
+        } catch (LinkRepositoryException | RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private RepositoryCallEvent begin(String method, String shortLink) {
+        RepositoryCallEvent event = new RepositoryCallEvent(name, method);
+        event.setShortLink(shortLink);
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,503 @@
+package linkrepository.jdbc;
+
+import entity.Link;
+import jdbc.ConnectionPool;
+import jdbc.PooledConnection;
+import linkrepository.LinkPage;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+import linkrepository.PageCursor;
+import linkrepository.UncheckedLinkRepositoryException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Реализация репозитория ссылок поверх JDBC.
+ *
+ * <p>Использует {@link ConnectionPool} с кэшем подготовленных выражений. Короткая ссылка защищена
+ * уникальным индексом, срок действия проиндексирован, а ссылки пользователя читаются постранично
+ * по составному индексу (user_id, create_dt, id). Пакетные сохранение и запись счетчиков кликов
+ * выполняются через {@link PreparedStatement#addBatch()}, очистка устаревших ссылок — выборкой по индексу expire_dt
+ * и пакетным DELETE выбранных строк.
+ * Версия ссылки хранится в столбце version, и обновление с ожидаемой версией сводится к одному UPDATE с условием на нее.</p>
+ */
+public class JdbcLinkRepository implements LinkRepository {
+
+    private static final String COLUMNS = "id, long_url, short_url, user_id, click_count, expire_dt, create_dt, version";
+
+    private static final String INSERT =
+            "INSERT INTO links (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ALL =
+            "SELECT " + COLUMNS + " FROM links";
+
+    private static final String SELECT_BY_SHORT_URL =
+            "SELECT " + COLUMNS + " FROM links WHERE short_url = ?";
+
+    private static final String SELECT_BATCH_FIRST =
+            "SELECT " + COLUMNS + " FROM links ORDER BY id LIMIT ?";
+
+    private static final String SELECT_BATCH_AFTER =
+            "SELECT " + COLUMNS + " FROM links WHERE id > ? ORDER BY id LIMIT ?";
+
+    /**
+     * Сколько строк поток ссылок читает одним запросом.
+     */
+    private static final int STREAM_BATCH = 1000;
+
+    private static final String PAGE_ORDER =
+            " ORDER BY create_dt NULLS FIRST, id LIMIT ?";
+
+    private static final String SELECT_PAGE_FIRST =
+            "SELECT " + COLUMNS + " FROM links WHERE user_id = ?" + PAGE_ORDER;
+
+    private static final String SELECT_PAGE_AFTER =
+            "SELECT " + COLUMNS + " FROM links WHERE user_id = ?"
+                    + " AND (create_dt > ? OR (create_dt = ? AND id > ?))" + PAGE_ORDER;
+
+    private static final String SELECT_PAGE_AFTER_UNDATED =
+            "SELECT " + COLUMNS + " FROM links WHERE user_id = ?"
+                    + " AND (create_dt IS NOT NULL OR id > ?)" + PAGE_ORDER;
+
+    private static final String DELETE_BY_ID =
+            "DELETE FROM links WHERE id = ?";
+
+    private static final String UPDATE_FIELDS =
+            "UPDATE links SET long_url = ?, short_url = ?, user_id = ?, click_count = ?, expire_dt = ?";
+
+    private static final String UPDATE =
+            UPDATE_FIELDS + ", version = version + 1 WHERE id = ?";
+
+    private static final String UPDATE_IF_VERSION =
+            UPDATE_FIELDS + ", version = ? WHERE id = ? AND version = ?";
+
+    private static final String UPDATE_CLICK_COUNT =
+            "UPDATE links SET click_count = ? WHERE id = ?";
+
+    private static final String SELECT_EXISTS =
+            "SELECT 1 FROM links WHERE id = ?";
+
+    private static final String SWEEP_PREDICATE =
+            " WHERE expire_dt < ?";
+
+    private static final String SELECT_EXPIRED_FOR_UPDATE =
+            "SELECT " + COLUMNS + " FROM links" + SWEEP_PREDICATE + " FOR UPDATE";
+
+    /**
+     * Пул соединений.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Создает репозиторий и, при необходимости, таблицу ссылок с индексами.
+     *
+     * @param pool пул соединений.
+     * @throws LinkRepositoryException если не удалось создать схему.
+     */
+    public JdbcLinkRepository(ConnectionPool pool) throws LinkRepositoryException {
+        this.pool = pool;
+        createSchema();
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(INSERT);
+            bindInsert(statement, link);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при сохранении ссылки.", e);
+        }
+    }
+
+    @Override
+    public void saveLinks(List<Link> links) throws LinkRepositoryException {
+        if (links.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            Connection raw = connection.connection();
+            try {
+                raw.setAutoCommit(false);
+                PreparedStatement statement = connection.prepare(INSERT);
+                for (Link link : links) {
+                    bindInsert(statement, link);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                raw.commit();
+            } catch (SQLException e) {
+                connection.rollbackQuietly();
+                throw e;
+            } finally {
+                connection.restoreAutoCommit();
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при пакетном сохранении ссылок.", e);
+        }
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        try (PooledConnection connection = pool.acquire()) {
+            try (ResultSet rs = connection.prepare(SELECT_ALL).executeQuery()) {
+                return readAll(rs);
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при извлечении ссылок пользователя.", e);
+        }
+    }
+
+    /**
+     * Читает таблицу порциями по {@value #STREAM_BATCH} строк в порядке первичного ключа; каждая порция —
+     * отдельный запрос, продолжающий с последнего прочитанного идентификатора. Соединение между порциями
+     * не удерживается, поэтому поток можно не закрывать и бросать на середине. Для параллельной обработки
+     * поток отдает уже прочитанные порции.
+     */
+    @Override
+    public Stream<Link> stream() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Link>(Long.MAX_VALUE, Spliterator.NONNULL) {
+
+            private List<Link> batch = List.of();
+
+            private int position;
+
+            private boolean exhausted;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Link> action) {
+                if (position >= batch.size()) {
+                    if (exhausted) {
+                        return false;
+                    }
+                    String after = batch.isEmpty() ? null : batch.get(batch.size() - 1).getId().toString();
+                    batch = readBatch(after);
+                    position = 0;
+                    exhausted = batch.size() < STREAM_BATCH;
+                    if (batch.isEmpty()) {
+                        return false;
+                    }
+                }
+                action.accept(batch.get(position++));
+                return true;
+            }
+        }, false);
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_BY_SHORT_URL);
+            statement.setString(1, shortURL);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.of(read(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при извлечении ссылки по короткой.", e);
+        }
+    }
+
+    /**
+     * Читает страницу одним запросом по индексу (user_id, create_dt, id): продолжение ищется по ключу
+     * последней ссылки предыдущей страницы, а не через OFFSET, поэтому стоимость не растет с номером страницы.
+     */
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть > 0");
+        }
+        PageCursor after = cursor == null ? null : PageCursor.parse(cursor);
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement;
+            int index = 1;
+            if (after == null) {
+                statement = connection.prepare(SELECT_PAGE_FIRST);
+                statement.setString(index++, userId.toString());
+            } else if (after.getCreateDt() == null) {
+                statement = connection.prepare(SELECT_PAGE_AFTER_UNDATED);
+                statement.setString(index++, userId.toString());
+                statement.setString(index++, after.getLinkId());
+            } else {
+                statement = connection.prepare(SELECT_PAGE_AFTER);
+                Timestamp createDt = Timestamp.valueOf(after.getCreateDt());
+                statement.setString(index++, userId.toString());
+                statement.setTimestamp(index++, createDt);
+                statement.setTimestamp(index++, createDt);
+                statement.setString(index++, after.getLinkId());
+            }
+            statement.setInt(index, pageSize + 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                return LinkPage.of(readAll(rs), pageSize);
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при извлечении ссылок пользователя.", e);
+        }
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        int deleted;
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(DELETE_BY_ID);
+            statement.setString(1, linkId.toString());
+            deleted = statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при удалении ссылки.", e);
+        }
+        if (deleted == 0) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        int updated;
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(UPDATE);
+            bindUpdate(statement, link);
+            updated = statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при обновлении ссылки.", e);
+        }
+        if (updated == 0) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+    }
+
+    /**
+     * Обновляет строку одним UPDATE с условием на версию: сравнение и запись выполняет база данных,
+     * блокировка строки держится только на время этого запроса. Если строка не обновлена, отдельным
+     * запросом проверяется, существует ли она.
+     */
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(UPDATE_IF_VERSION);
+            bindFields(statement, link);
+            statement.setLong(6, expectedVersion + 1);
+            statement.setString(7, link.getId().toString());
+            statement.setLong(8, expectedVersion);
+            if (statement.executeUpdate() > 0) {
+                link.setVersion(expectedVersion + 1);
+                return true;
+            }
+
+            PreparedStatement exists = connection.prepare(SELECT_EXISTS);
+            exists.setString(1, link.getId().toString());
+            try (ResultSet rs = exists.executeQuery()) {
+                if (!rs.next()) {
+                    throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при обновлении ссылки.", e);
+        }
+    }
+
+    /**
+     * Записывает счетчики одним пакетом в одной транзакции; обновляется только столбец click_count.
+     */
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        if (links.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            Connection raw = connection.connection();
+            try {
+                raw.setAutoCommit(false);
+                PreparedStatement statement = connection.prepare(UPDATE_CLICK_COUNT);
+                for (Link link : links) {
+                    statement.setInt(1, link.getClickCount());
+                    statement.setString(2, link.getId().toString());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                raw.commit();
+            } catch (SQLException e) {
+                connection.rollbackQuietly();
+                throw e;
+            } finally {
+                connection.restoreAutoCommit();
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при пакетном обновлении ссылок.", e);
+        }
+    }
+
+    /**
+     * Выбирает и блокирует истекшие ссылки по индексу expire_dt, а затем удаляет в той же транзакции
+     * пакетом DELETE по идентификаторам именно выбранные строки. Строка, ставшая истекшей уже после
+     * выборки, не удаляется до следующей очистки, поэтому возвращаются ровно удаленные ссылки.
+     */
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        Timestamp threshold = Timestamp.valueOf(now);
+        try (PooledConnection connection = pool.acquire()) {
+            Connection raw = connection.connection();
+            try {
+                raw.setAutoCommit(false);
+
+                PreparedStatement select = connection.prepare(SELECT_EXPIRED_FOR_UPDATE);
+                select.setTimestamp(1, threshold);
+                List<Link> deleted;
+                try (ResultSet rs = select.executeQuery()) {
+                    deleted = readAll(rs);
+                }
+
+                if (!deleted.isEmpty()) {
+                    PreparedStatement delete = connection.prepare(DELETE_BY_ID);
+                    for (Link link : deleted) {
+                        delete.setString(1, link.getId().toString());
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+
+                raw.commit();
+                return deleted;
+            } catch (SQLException e) {
+                connection.rollbackQuietly();
+                throw e;
+            } finally {
+                connection.restoreAutoCommit();
+            }
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при удалении устаревших ссылок.", e);
+        }
+    }
+
+    /**
+     * Читает следующую порцию строк потока.
+     *
+     * @param after идентификатор последней прочитанной строки или null для первой порции.
+     * @return порция ссылок в порядке идентификатора.
+     */
+    private List<Link> readBatch(String after) {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement;
+            if (after == null) {
+                statement = connection.prepare(SELECT_BATCH_FIRST);
+                statement.setInt(1, STREAM_BATCH);
+            } else {
+                statement = connection.prepare(SELECT_BATCH_AFTER);
+                statement.setString(1, after);
+                statement.setInt(2, STREAM_BATCH);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return readAll(rs);
+            }
+        } catch (SQLException e) {
+            throw new UncheckedLinkRepositoryException(new LinkRepositoryException("Ошибка при чтении ссылок.", e));
+        }
+    }
+
+    /**
+     * База данных и так удаляет истекшие ссылки одной транзакцией, поэтому пул не используется: удаленные ссылки
+     * передаются получателю порциями по {@value #STREAM_BATCH}.
+     */
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        List<Link> expired = deleteExpired(now);
+        for (int from = 0; from < expired.size(); from += STREAM_BATCH) {
+            deleted.accept(expired.subList(from, Math.min(expired.size(), from + STREAM_BATCH)));
+        }
+        return expired.size();
+    }
+
+    /**
+     * Создает таблицу ссылок и индексы, если они еще не существуют.
+     *
+     * @throws LinkRepositoryException если произошла ошибка при выполнении DDL.
+     */
+    private void createSchema() throws LinkRepositoryException {
+        try (PooledConnection connection = pool.acquire();
+             Statement statement = connection.connection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS links ("
+                    + "id CHAR(36) PRIMARY KEY, "
+                    + "long_url VARCHAR(8192) NOT NULL, "
+                    + "short_url VARCHAR(512) NOT NULL, "
+                    + "user_id CHAR(36) NOT NULL, "
+                    + "click_count INT NOT NULL, "
+                    + "expire_dt TIMESTAMP, "
+                    + "create_dt TIMESTAMP, "
+                    + "version BIGINT DEFAULT 0 NOT NULL)");
+            statement.execute("ALTER TABLE links ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL");
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS links_short_url_uq ON links (short_url)");
+            statement.execute("CREATE INDEX IF NOT EXISTS links_user_page_idx ON links (user_id, create_dt, id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS links_expire_dt_idx ON links (expire_dt)");
+        } catch (SQLException e) {
+            throw new LinkRepositoryException("Ошибка при создании таблицы ссылок.", e);
+        }
+    }
+
+    private static void bindUpdate(PreparedStatement statement, Link link) throws SQLException {
+        bindFields(statement, link);
+        statement.setString(6, link.getId().toString());
+    }
+
+    private static void bindFields(PreparedStatement statement, Link link) throws SQLException {
+        statement.setString(1, link.getLongURL());
+        statement.setString(2, link.getShortURL());
+        statement.setString(3, link.getUserID().toString());
+        statement.setInt(4, link.getClickCount());
+        statement.setTimestamp(5, toTimestamp(link.getExpireDt()));
+    }
+
+    private static void bindInsert(PreparedStatement statement, Link link) throws SQLException {
+        statement.setString(1, link.getId().toString());
+        statement.setString(2, link.getLongURL());
+        statement.setString(3, link.getShortURL());
+        statement.setString(4, link.getUserID().toString());
+        statement.setInt(5, link.getClickCount());
+        statement.setTimestamp(6, toTimestamp(link.getExpireDt()));
+        statement.setTimestamp(7, toTimestamp(link.getCreateDt()));
+        statement.setLong(8, link.getVersion());
+    }
+
+    private static List<Link> readAll(ResultSet rs) throws SQLException {
+        List<Link> links = new ArrayList<>();
+        while (rs.next()) {
+            links.add(read(rs));
+        }
+        return links;
+    }
+
+    private static Link read(ResultSet rs) throws SQLException {
+        return new Link(
+                UUID.fromString(rs.getString(1)),
+                rs.getString(2),
+                rs.getString(3),
+                UUID.fromString(rs.getString(4)),
+                rs.getInt(5),
+                toLocalDateTime(rs.getTimestamp(6)),
+                toLocalDateTime(rs.getTimestamp(7)),
+                rs.getLong(8)
+        );
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
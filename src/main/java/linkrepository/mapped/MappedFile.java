@@ -0,0 +1,128 @@
+package linkrepository.mapped;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Файл, отображенный в память кусками фиксированного размера.
+ *
+ * <p>Один {@link MappedByteBuffer} ограничен 2 ГБ, поэтому файл адресуется 64-битным смещением
+ * и отображается кусками по {@link #CHUNK_SIZE} байт. Вызывающий код гарантирует, что ни одно
+ * значение не пересекает границу куска: числа выровнены по своему размеру, а байтовые массивы
+ * размещаются целиком внутри одного куска.</p>
+ */
+final class MappedFile implements AutoCloseable {
+
+    /**
+     * Размер куска отображения.
+     */
+    static final int CHUNK_SIZE = 1 << 30;
+
+    private static final int CHUNK_SHIFT = 30;
+
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Текущий отображенный размер файла.
+     */
+    private long size;
+
+    /**
+     * Открывает файл (создавая его при необходимости) и отображает не меньше {@code minSize} байт.
+     */
+    MappedFile(Path path, long minSize) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ensureSize(Math.max(minSize, channel.size()));
+    }
+
+    /**
+     * Возвращает отображенный размер файла.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Увеличивает файл и его отображение до {@code newSize} байт.
+     */
+    void ensureSize(long newSize) throws IOException {
+        if (newSize <= size) {
+            return;
+        }
+        long mapped = (long) chunks.size() * CHUNK_SIZE;
+        if (!chunks.isEmpty()) {
+            // Последний кусок мог быть отображен не полностью, отображаем его заново.
+            mapped -= CHUNK_SIZE;
+            chunks.remove(chunks.size() - 1);
+        }
+        while (mapped < newSize) {
+            long length = Math.min(CHUNK_SIZE, newSize - mapped);
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, mapped, length));
+            mapped += length;
+        }
+        size = newSize;
+    }
+
+    long getLong(long position) {
+        return chunk(position).getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        chunk(position).putLong(offset(position), value);
+    }
+
+    int getInt(long position) {
+        return chunk(position).getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        chunk(position).putInt(offset(position), value);
+    }
+
+    void get(long position, byte[] destination) {
+        chunk(position).get(offset(position), destination);
+    }
+
+    void put(long position, byte[] source) {
+        chunk(position).put(offset(position), source);
+    }
+
+    /**
+     * Сбрасывает изменения на диск.
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks.clear();
+        channel.close();
+    }
+
+    /**
+     * Закрывает канал, не трогая отображение: оно остается доступным тем, кто еще читает файл,
+     * и освобождается сборщиком мусора.
+     */
+    void closeChannel() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer chunk(long position) {
+        return chunks.get((int) (position >>> CHUNK_SHIFT));
+    }
+
+    private static int offset(long position) {
+        return (int) (position & (CHUNK_SIZE - 1));
+    }
+}
@@ -0,0 +1,1000 @@
+package linkrepository.mapped;
+
+import entity.Link;
+import linkrepository.LinkPage;
+import linkrepository.LinkPageBuilder;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+import linkrepository.UncheckedLinkRepositoryException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Репозиторий ссылок, хранящий данные вне кучи в файлах, отображенных в память.
+ *
+ * <p>Ссылки лежат в хеш-таблице с открытой адресацией, ключ которой — код короткой ссылки
+ * (часть после префикса), упакованный в 64-битное число. Каждая запись таблицы занимает
+ * {@value #RECORD_SIZE} байт: ключ, идентификаторы ссылки и владельца, ссылка на длинный URL,
+ * срок действия, дата создания, оставшиеся клики и младшие 32 бита версии. Длинные URL дописываются в отдельный файл
+ * и не перезаписываются. Для удаления и обновления по идентификатору в том же файле хранится
+ * второй индекс: идентификатор ссылки → номер записи.</p>
+ *
+ * <p>После перезапуска процесса файлы просто отображаются заново, фаза загрузки отсутствует.
+ * Даты хранятся с точностью до секунды. Емкость таблицы задается при создании и не меняется;
+ * удаленные записи помечаются и вычищаются переписыванием таблицы в новый файл. Начатые обходы
+ * ({@link #stream()}) дочитывают прежнее отображение таблицы как снимок, поэтому переписывание
+ * не заставляет их пропустить или повторить ссылку.
+ * Поиск по короткой ссылке берет длинный URL, его разобранный {@link java.net.URI} и ответ-перенаправление
+ * из небольшого кеша по ссылке на URL, поэтому повторные переходы не декодируют и не форматируют их заново.
+ * Запись на диск гарантируется при {@link #close()}; после аварийного завершения последние
+ * изменения могут быть потеряны.</p>
+ */
+public class MappedLinkRepository implements LinkRepository, AutoCloseable {
+
+    /**
+     * Размер записи таблицы в байтах.
+     */
+    static final int RECORD_SIZE = 64;
+
+    /**
+     * Максимальная длина кода короткой ссылки, которую можно упаковать в 64-битный ключ.
+     */
+    public static final int MAX_CODE_LENGTH = 10;
+
+    private static final long MAGIC = 0x4C494E4B54424C31L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_SIZE = 16;
+    private static final int H_TABLE_USED = 24;
+    private static final int H_ID_USED = 32;
+    private static final int H_URL_TAIL = 40;
+    private static final int H_PREFIX_LENGTH = 48;
+    private static final int H_PREFIX = 52;
+
+    private static final int R_KEY = 0;
+    private static final int R_ID_MSB = 8;
+    private static final int R_ID_LSB = 16;
+    private static final int R_OWNER_MSB = 24;
+    private static final int R_OWNER_LSB = 32;
+    private static final int R_URL = 40;
+    private static final int R_EXPIRE = 48;
+    private static final int R_CREATE = 52;
+    private static final int R_CLICKS = 56;
+    private static final int R_VERSION = 60;
+
+    /**
+     * Ожидаемая версия безусловного обновления.
+     */
+    private static final long ANY_VERSION = -1;
+
+    /**
+     * Ключ свободной записи.
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * Ключ удаленной записи (и значение удаленного элемента индекса идентификаторов).
+     */
+    private static final long DELETED = -1;
+
+    private static final int URL_LENGTH_BITS = 24;
+    private static final int MAX_URL_LENGTH = (1 << URL_LENGTH_BITS) - 1;
+    private static final long INITIAL_URL_FILE_SIZE = 16L << 20;
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Сколько ячеек таблицы поток просматривает за один захват блокировки чтения.
+     */
+    private static final int STREAM_CHUNK = 1024;
+
+    /**
+     * Число ячеек кеша длинных URL; степень двойки.
+     */
+    private static final int URL_CACHE_SIZE = 4096;
+
+    private final Path tableFile;
+    private final String prefix;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Максимальное число занятых (живых и удаленных) элементов таблицы и индекса.
+     */
+    private final int usedLimit;
+
+    private MappedFile table;
+    private final MappedFile urls;
+
+    /**
+     * Структурные изменения (вставка, удаление, переписывание таблицы) выполняются под блокировкой записи;
+     * чтение и обновление записи на месте — под блокировкой чтения и монитором полосы записи.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Кеш длинных URL по ссылке на URL. Длинные URL только дописываются и не перезаписываются, поэтому
+     * ссылка на URL однозначно определяет его байты и запись кеша не устаревает. Ячейка выбирается по хешу
+     * ссылки и при коллизии перезаписывается; запись неизменяема, поэтому массив читается без блокировок.
+     */
+    private final CachedUrl[] urlCache = new CachedUrl[URL_CACHE_SIZE];
+
+    /**
+     * Открывает хранилище в каталоге {@code directory} или создает новое.
+     *
+     * @param directory       каталог с файлами хранилища.
+     * @param shortLinkPrefix префикс коротких ссылок; в таблице хранится только код после него.
+     * @param capacity        число записей таблицы для нового хранилища (округляется до степени двойки);
+     *                        у существующего хранилища используется сохраненная емкость.
+     * @throws LinkRepositoryException если файлы не удалось открыть или они принадлежат хранилищу с другим префиксом.
+     */
+    public MappedLinkRepository(Path directory, String shortLinkPrefix, int capacity) throws LinkRepositoryException {
+        if (capacity <= 0 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Емкость должна быть в диапазоне (0, 2^28]");
+        }
+        byte[] prefixBytes = shortLinkPrefix.getBytes(StandardCharsets.UTF_8);
+        if (H_PREFIX + prefixBytes.length > HEADER_SIZE) {
+            throw new IllegalArgumentException("Слишком длинный префикс коротких ссылок");
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+
+        this.prefix = shortLinkPrefix;
+        this.tableFile = directory.resolve("links.tbl");
+
+        try {
+            Files.createDirectories(directory);
+            boolean exists = Files.exists(tableFile) && Files.size(tableFile) >= HEADER_SIZE;
+            if (exists) {
+                table = new MappedFile(tableFile, HEADER_SIZE);
+                if (table.getLong(H_MAGIC) != MAGIC || table.getInt(H_VERSION) != VERSION) {
+                    table.close();
+                    throw new LinkRepositoryException("Файл " + tableFile + " не является хранилищем ссылок.");
+                }
+                byte[] stored = new byte[table.getInt(H_PREFIX_LENGTH)];
+                table.get(H_PREFIX, stored);
+                if (!Arrays.equals(stored, prefixBytes)) {
+                    table.close();
+                    throw new LinkRepositoryException("Хранилище создано для префикса " + new String(stored, StandardCharsets.UTF_8));
+                }
+                this.capacity = table.getInt(H_CAPACITY);
+            } else {
+                this.capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+                table = new MappedFile(tableFile, tableFileSize(this.capacity));
+                writeHeader(table, this.capacity, prefixBytes);
+            }
+            this.urls = new MappedFile(directory.resolve("links.url"), INITIAL_URL_FILE_SIZE);
+        } catch (IOException e) {
+            throw new LinkRepositoryException("Ошибка при открытии хранилища ссылок: " + e.getMessage(), e);
+        }
+
+        this.mask = this.capacity - 1;
+        this.usedLimit = this.capacity - (this.capacity >>> 2);
+    }
+
+    /**
+     * Возвращает емкость таблицы.
+     *
+     * @return число записей таблицы.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Возвращает число хранимых ссылок.
+     *
+     * @return число ссылок.
+     */
+    public long getSize() {
+        lock.readLock().lock();
+        try {
+            return table.getLong(H_SIZE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        long key = packRequired(link.getShortURL());
+        byte[] url = urlBytes(link);
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (findIdEntry(table, link.getId()) >= 0) {
+                throw new LinkRepositoryException("Ссылка с таким ID уже существует.");
+            }
+            if (findSlot(table, key) >= 0) {
+                throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+            }
+            if (table.getLong(H_SIZE) >= usedLimit) {
+                throw new LinkRepositoryException("Хранилище ссылок заполнено.");
+            }
+            if (table.getLong(H_TABLE_USED) >= usedLimit || table.getLong(H_ID_USED) >= usedLimit) {
+                compact();
+            }
+
+            long urlRef = appendUrl(url);
+            long slot = insertSlot(table, key);
+            writeRecord(table, slot, key, link, urlRef);
+            insertIdEntry(table, link.getId(), slot);
+            table.putLong(H_SIZE, table.getLong(H_SIZE) + 1);
+        } catch (IOException e) {
+            throw new LinkRepositoryException("Ошибка при сохранении ссылки: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Link> links = new ArrayList<>();
+            for (long slot = 0; slot < capacity; slot++) {
+                if (table.getLong(recordAt(slot) + R_KEY) > 0) {
+                    links.add(readLink(slot));
+                }
+            }
+            return links;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обходит таблицу порциями по {@value #STREAM_CHUNK} ячеек: порция читается под блокировкой чтения,
+     * а обработка ссылок идет уже без нее. Поток делится по диапазонам ячеек.
+     */
+    @Override
+    public Stream<Link> stream() throws LinkRepositoryException {
+        MappedFile file;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            file = table;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return StreamSupport.stream(new SlotSpliterator(file, 0, capacity), false);
+    }
+
+    /**
+     * Обходит таблицу, сравнивая владельца прямо в записи: длинные URL читаются только для ссылок пользователя.
+     */
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        long ownerMsb = userId.getMostSignificantBits();
+        long ownerLsb = userId.getLeastSignificantBits();
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (long slot = 0; slot < capacity; slot++) {
+                long record = recordAt(slot);
+                if (table.getLong(record + R_KEY) > 0
+                        && table.getLong(record + R_OWNER_MSB) == ownerMsb
+                        && table.getLong(record + R_OWNER_LSB) == ownerLsb) {
+                    page.add(readLink(slot));
+                }
+            }
+            return page.build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Хранилище принимает только короткие ссылки со своим префиксом и кодом до {@value #MAX_CODE_LENGTH}
+     * символов {@code [a-zA-Z0-9]}: иначе код не упаковывается в ключ.
+     */
+    @Override
+    public boolean supportsShortUrl(String shortURL) {
+        return pack(shortURL) > 0;
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        long key = pack(shortURL);
+        if (key <= 0) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long slot = findSlot(table, key);
+            return slot < 0 ? Optional.empty() : Optional.of(readCachedLink(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long entry = findIdEntry(table, linkId);
+            if (entry < 0) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            removeAt(table.getLong(entry) - 1, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        update(link, ANY_VERSION);
+    }
+
+    /**
+     * Версия сравнивается под монитором полосы записи вместе с записью полей, поэтому обновления
+     * без смены короткой и длинной ссылки не берут блокировку записи всей таблицы.
+     * Хранятся младшие 32 бита версии.
+     */
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Версия ссылки должна быть >= 0");
+        }
+        return update(link, expectedVersion);
+    }
+
+    /**
+     * Записывает только столбец кликов под блокировкой чтения и монитором полосы записи.
+     */
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (Link link : links) {
+                long entry = findIdEntry(table, link.getId());
+                if (entry < 0) {
+                    continue;
+                }
+                long slot = table.getLong(entry) - 1;
+                synchronized (stripe(slot)) {
+                    table.putInt(recordAt(slot) + R_CLICKS, link.getClickCount());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обновляет ссылку, если ее версия равна ожидаемой или ожидается {@link #ANY_VERSION}.
+     */
+    private boolean update(Link link, long expectedVersion) throws LinkRepositoryException {
+        long key = packRequired(link.getShortURL());
+        byte[] url = urlBytes(link);
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long entry = findIdEntry(table, link.getId());
+            if (entry < 0) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            long slot = table.getLong(entry) - 1;
+            long record = recordAt(slot);
+            synchronized (stripe(slot)) {
+                int stored = table.getInt(record + R_VERSION);
+                if (expectedVersion != ANY_VERSION && stored != (int) expectedVersion) {
+                    return false;
+                }
+                if (table.getLong(record + R_KEY) == key && urlEquals(table.getLong(record + R_URL), url)) {
+                    link.setVersion(nextVersion(stored, expectedVersion));
+                    writeMutableFields(table, record, link);
+                    return true;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Изменились короткая или длинная ссылка: запись перемещается в другую ячейку таблицы.
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long entry = findIdEntry(table, link.getId());
+            if (entry < 0) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            long slot = table.getLong(entry) - 1;
+            long record = recordAt(slot);
+            int stored = table.getInt(record + R_VERSION);
+            if (expectedVersion != ANY_VERSION && stored != (int) expectedVersion) {
+                return false;
+            }
+            link.setVersion(nextVersion(stored, expectedVersion));
+            long urlRef = urlEquals(table.getLong(record + R_URL), url) ? table.getLong(record + R_URL) : appendUrl(url);
+            if (table.getLong(record + R_KEY) != key) {
+                if (findSlot(table, key) >= 0) {
+                    throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+                }
+                removeAt(slot, entry);
+                if (table.getLong(H_TABLE_USED) >= usedLimit || table.getLong(H_ID_USED) >= usedLimit) {
+                    compact();
+                }
+                slot = insertSlot(table, key);
+                insertIdEntry(table, link.getId(), slot);
+                table.putLong(H_SIZE, table.getLong(H_SIZE) + 1);
+            }
+            writeRecord(table, slot, key, link, urlRef);
+            return true;
+        } catch (IOException e) {
+            throw new LinkRepositoryException("Ошибка при обновлении ссылки: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long nextVersion(int stored, long expectedVersion) {
+        return expectedVersion == ANY_VERSION ? Integer.toUnsignedLong(stored + 1) : expectedVersion + 1;
+    }
+
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        long nowSeconds = now.toEpochSecond(ZoneOffset.UTC);
+        List<Link> deleted = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (long slot = 0; slot < capacity; slot++) {
+                long record = recordAt(slot);
+                if (table.getLong(record + R_KEY) <= 0) {
+                    continue;
+                }
+                int expire = table.getInt(record + R_EXPIRE);
+                if (expire != 0 && Integer.toUnsignedLong(expire) < nowSeconds) {
+                    Link link = readLink(slot);
+                    removeAt(slot, findIdEntry(table, link.getId()));
+                    deleted.add(link);
+                }
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает данные на диск и закрывает файлы хранилища.
+     *
+     * @throws LinkRepositoryException если при закрытии файлов произошла ошибка.
+     */
+    @Override
+    public void close() throws LinkRepositoryException {
+        lock.writeLock().lock();
+        try {
+            if (table != null) {
+                table.close();
+                urls.close();
+                table = null;
+            }
+        } catch (IOException e) {
+            throw new LinkRepositoryException("Ошибка при закрытии хранилища ссылок: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Упаковывает код короткой ссылки в 64-битный ключ: символы {@code [a-zA-Z0-9]} кодируются цифрами
+     * 1..62 в системе счисления с основанием 63, поэтому ключ однозначен для кодов разной длины.
+     *
+     * @param shortURL короткая ссылка.
+     * @return положительный ключ или -1, если ссылка не может храниться в этом хранилище.
+     */
+    long pack(String shortURL) {
+        if (shortURL == null || !shortURL.startsWith(prefix)) {
+            return -1;
+        }
+        int length = shortURL.length() - prefix.length();
+        if (length <= 0 || length > MAX_CODE_LENGTH) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = prefix.length(); i < shortURL.length(); i++) {
+            int digit = digit(shortURL.charAt(i));
+            if (digit == 0) {
+                return -1;
+            }
+            key = key * 63 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * Восстанавливает короткую ссылку по ключу.
+     */
+    String unpack(long key) {
+        char[] code = new char[MAX_CODE_LENGTH];
+        int position = code.length;
+        while (key > 0) {
+            code[--position] = symbol((int) (key % 63));
+            key /= 63;
+        }
+        return prefix + new String(code, position, code.length - position);
+    }
+
+    private static int digit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 27;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 53;
+        }
+        return 0;
+    }
+
+    private static char symbol(int digit) {
+        if (digit <= 26) {
+            return (char) ('a' + digit - 1);
+        }
+        if (digit <= 52) {
+            return (char) ('A' + digit - 27);
+        }
+        return (char) ('0' + digit - 53);
+    }
+
+    private long packRequired(String shortURL) throws LinkRepositoryException {
+        long key = pack(shortURL);
+        if (key <= 0) {
+            throw new LinkRepositoryException("Короткая ссылка " + shortURL + " не поддерживается хранилищем: ожидается "
+                    + prefix + " и код до " + MAX_CODE_LENGTH + " символов [a-zA-Z0-9].");
+        }
+        return key;
+    }
+
+    private static byte[] urlBytes(Link link) throws LinkRepositoryException {
+        byte[] url = link.getLongURL().getBytes(StandardCharsets.UTF_8);
+        if (url.length > MAX_URL_LENGTH) {
+            throw new LinkRepositoryException("Слишком длинная ссылка.");
+        }
+        return url;
+    }
+
+    private void ensureOpen() throws LinkRepositoryException {
+        if (table == null) {
+            throw new LinkRepositoryException("Хранилище ссылок закрыто.");
+        }
+    }
+
+    private Object stripe(long slot) {
+        return stripes[(int) (slot & (STRIPES - 1))];
+    }
+
+    private static long tableFileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE + (long) capacity * Long.BYTES;
+    }
+
+    private static void writeHeader(MappedFile file, int capacity, byte[] prefixBytes) {
+        file.putLong(H_MAGIC, MAGIC);
+        file.putInt(H_VERSION, VERSION);
+        file.putInt(H_CAPACITY, capacity);
+        file.putLong(H_SIZE, 0);
+        file.putLong(H_TABLE_USED, 0);
+        file.putLong(H_ID_USED, 0);
+        file.putLong(H_URL_TAIL, 0);
+        file.putInt(H_PREFIX_LENGTH, prefixBytes.length);
+        file.put(H_PREFIX, prefixBytes);
+    }
+
+    private static long recordAt(long slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private long idEntryAt(long index) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE + index * Long.BYTES;
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Возвращает номер записи с ключом {@code key} или -1.
+     */
+    private long findSlot(MappedFile file, long key) {
+        long slot = mix(key) & mask;
+        while (true) {
+            long stored = file.getLong(recordAt(slot) + R_KEY);
+            if (stored == key) {
+                return slot;
+            }
+            if (stored == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Возвращает номер записи для вставки ключа, которого нет в таблице: первую удаленную или свободную.
+     */
+    private long insertSlot(MappedFile file, long key) {
+        long slot = mix(key) & mask;
+        while (true) {
+            long stored = file.getLong(recordAt(slot) + R_KEY);
+            if (stored == DELETED) {
+                return slot;
+            }
+            if (stored == EMPTY) {
+                file.putLong(H_TABLE_USED, file.getLong(H_TABLE_USED) + 1);
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Возвращает позицию элемента индекса идентификаторов для ссылки {@code id} или -1.
+     */
+    private long findIdEntry(MappedFile file, UUID id) {
+        long index = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits()) & mask;
+        while (true) {
+            long entry = idEntryAt(index);
+            long value = file.getLong(entry);
+            if (value == EMPTY) {
+                return -1;
+            }
+            if (value != DELETED) {
+                long record = recordAt(value - 1);
+                if (file.getLong(record + R_ID_MSB) == id.getMostSignificantBits()
+                        && file.getLong(record + R_ID_LSB) == id.getLeastSignificantBits()) {
+                    return entry;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insertIdEntry(MappedFile file, UUID id, long slot) {
+        long index = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits()) & mask;
+        while (true) {
+            long entry = idEntryAt(index);
+            long value = file.getLong(entry);
+            if (value == DELETED || value == EMPTY) {
+                if (value == EMPTY) {
+                    file.putLong(H_ID_USED, file.getLong(H_ID_USED) + 1);
+                }
+                file.putLong(entry, slot + 1);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void removeAt(long slot, long idEntry) {
+        synchronized (stripe(slot)) {
+            table.putLong(recordAt(slot) + R_KEY, DELETED);
+        }
+        table.putLong(idEntry, DELETED);
+        table.putLong(H_SIZE, table.getLong(H_SIZE) - 1);
+    }
+
+    private void writeRecord(MappedFile file, long slot, long key, Link link, long urlRef) throws LinkRepositoryException {
+        long record = recordAt(slot);
+        synchronized (stripe(slot)) {
+            file.putLong(record + R_ID_MSB, link.getId().getMostSignificantBits());
+            file.putLong(record + R_ID_LSB, link.getId().getLeastSignificantBits());
+            file.putLong(record + R_URL, urlRef);
+            file.putInt(record + R_CREATE, epochSeconds(link.getCreateDt()));
+            writeMutableFields(file, record, link);
+            file.putLong(record + R_KEY, key);
+        }
+    }
+
+    private static void writeMutableFields(MappedFile file, long record, Link link) throws LinkRepositoryException {
+        UUID owner = link.getUserID();
+        file.putLong(record + R_OWNER_MSB, owner == null ? 0 : owner.getMostSignificantBits());
+        file.putLong(record + R_OWNER_LSB, owner == null ? 0 : owner.getLeastSignificantBits());
+        file.putInt(record + R_EXPIRE, epochSeconds(link.getExpireDt()));
+        file.putInt(record + R_CLICKS, link.getClickCount());
+        file.putInt(record + R_VERSION, (int) link.getVersion());
+    }
+
+    private static int epochSeconds(LocalDateTime dateTime) throws LinkRepositoryException {
+        if (dateTime == null) {
+            return 0;
+        }
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (seconds < 0 || seconds > 0xFFFFFFFFL) {
+            throw new LinkRepositoryException("Дата " + dateTime + " не поддерживается хранилищем.");
+        }
+        return (int) seconds;
+    }
+
+    private static LocalDateTime dateTime(int epochSeconds) {
+        return epochSeconds == 0 ? null : LocalDateTime.ofEpochSecond(Integer.toUnsignedLong(epochSeconds), 0, ZoneOffset.UTC);
+    }
+
+    private Link readLink(long slot) {
+        return readLink(table, slot);
+    }
+
+    private Link readLink(MappedFile file, long slot) {
+        long record = recordAt(slot);
+        synchronized (stripe(slot)) {
+            return readLink(file, record, readUrl(file.getLong(record + R_URL)));
+        }
+    }
+
+    /**
+     * Читает ссылку, беря длинный URL, его разобранный URI и ответ-перенаправление из {@link #urlCache}.
+     */
+    private Link readCachedLink(long slot) {
+        long record = recordAt(slot);
+        synchronized (stripe(slot)) {
+            Link prototype = cachedUrl(table.getLong(record + R_URL));
+            Link link = readLink(table, record, prototype.getLongURL());
+            link.reuseParsedURL(prototype);
+            return link;
+        }
+    }
+
+    private Link readLink(MappedFile file, long record, String longURL) {
+        long ownerMsb = file.getLong(record + R_OWNER_MSB);
+        long ownerLsb = file.getLong(record + R_OWNER_LSB);
+        return new Link(
+                new UUID(file.getLong(record + R_ID_MSB), file.getLong(record + R_ID_LSB)),
+                longURL,
+                unpack(file.getLong(record + R_KEY)),
+                ownerMsb == 0 && ownerLsb == 0 ? null : new UUID(ownerMsb, ownerLsb),
+                file.getInt(record + R_CLICKS),
+                dateTime(file.getInt(record + R_EXPIRE)),
+                dateTime(file.getInt(record + R_CREATE)),
+                Integer.toUnsignedLong(file.getInt(record + R_VERSION))
+        );
+    }
+
+    /**
+     * Возвращает ссылку-образец с длинным URL по ссылке на него, при промахе читая URL и заготавливая ответ.
+     */
+    private Link cachedUrl(long urlRef) {
+        int index = mix(urlRef) & (URL_CACHE_SIZE - 1);
+        CachedUrl cached = urlCache[index];
+        if (cached == null || cached.urlRef != urlRef) {
+            Link prototype = new Link(null, readUrl(urlRef), null, null, 0, null, null);
+            try {
+                prototype.getRedirectResponseLength();
+            } catch (IllegalArgumentException e) {
+                // Некорректный URL: ответа нет, ошибку получит тот, кто его запросит.
+            }
+            cached = new CachedUrl(urlRef, prototype);
+            urlCache[index] = cached;
+        }
+        return cached.prototype;
+    }
+
+    private String readUrl(long urlRef) {
+        byte[] bytes = new byte[(int) (urlRef & MAX_URL_LENGTH)];
+        urls.get(urlRef >>> URL_LENGTH_BITS, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean urlEquals(long urlRef, byte[] url) {
+        if ((urlRef & MAX_URL_LENGTH) != url.length) {
+            return false;
+        }
+        byte[] stored = new byte[url.length];
+        urls.get(urlRef >>> URL_LENGTH_BITS, stored);
+        return Arrays.equals(stored, url);
+    }
+
+    /**
+     * Дописывает длинный URL в файл URL так, чтобы он не пересекал границу куска отображения.
+     *
+     * @return ссылка на URL: смещение в старших битах, длина — в младших {@value #URL_LENGTH_BITS}.
+     */
+    private long appendUrl(byte[] url) throws IOException {
+        long tail = table.getLong(H_URL_TAIL);
+        if (url.length > 0 && (tail / MappedFile.CHUNK_SIZE) != ((tail + url.length - 1) / MappedFile.CHUNK_SIZE)) {
+            tail = (tail / MappedFile.CHUNK_SIZE + 1) * MappedFile.CHUNK_SIZE;
+        }
+        if (tail + url.length > urls.size()) {
+            urls.ensureSize(Math.max(tail + url.length, urls.size() * 2));
+        }
+        urls.put(tail, url);
+        table.putLong(H_URL_TAIL, tail + url.length);
+        return (tail << URL_LENGTH_BITS) | url.length;
+    }
+
+    /**
+     * Переписывает таблицу в новый файл без удаленных записей и атомарно подменяет им текущий.
+     * Текущее отображение заменяется только после того, как новое открыто и файл переименован;
+     * при ошибке хранилище продолжает работать с прежней таблицей. Прежнее отображение не
+     * освобождается явно: его дочитывают начатые обходы.
+     */
+    private void compact() throws IOException {
+        Path tmp = tableFile.resolveSibling(tableFile.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        MappedFile target = new MappedFile(tmp, tableFileSize(capacity));
+        try {
+            writeHeader(target, capacity, prefixBytes);
+            target.putLong(H_URL_TAIL, table.getLong(H_URL_TAIL));
+
+            long size = 0;
+            for (long slot = 0; slot < capacity; slot++) {
+                long from = recordAt(slot);
+                long key = table.getLong(from + R_KEY);
+                if (key <= 0) {
+                    continue;
+                }
+                long newSlot = insertSlot(target, key);
+                long to = recordAt(newSlot);
+                for (int offset = Long.BYTES; offset < RECORD_SIZE; offset += Long.BYTES) {
+                    target.putLong(to + offset, table.getLong(from + offset));
+                }
+                target.putLong(to + R_KEY, key);
+                insertIdEntry(target, new UUID(table.getLong(from + R_ID_MSB), table.getLong(from + R_ID_LSB)), newSlot);
+                size++;
+            }
+            target.putLong(H_SIZE, size);
+            target.force();
+            Files.move(tmp, tableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            target.close();
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        MappedFile previous = table;
+        table = target;
+        try {
+            previous.closeChannel();
+        } catch (IOException ignored) {
+            // Файл прежней таблицы уже заменен, и его канал больше не нужен.
+        }
+    }
+
+    /**
+     * Запись кеша длинных URL.
+     */
+    private static final class CachedUrl {
+
+        private final long urlRef;
+
+        private final Link prototype;
+
+        private CachedUrl(long urlRef, Link prototype) {
+            this.urlRef = urlRef;
+            this.prototype = prototype;
+        }
+    }
+
+    /**
+     * Обход диапазона ячеек таблицы {@code [next, end)}.
+     */
+    private final class SlotSpliterator implements Spliterator<Link> {
+
+        /**
+         * Отображение таблицы, которое обходится; после переписывания таблицы остается снимком.
+         */
+        private final MappedFile file;
+
+        private long next;
+
+        private final long end;
+
+        /**
+         * Ссылки последней прочитанной порции.
+         */
+        private final List<Link> chunk = new ArrayList<>();
+
+        private int chunkPos;
+
+        SlotSpliterator(MappedFile file, long next, long end) {
+            this.file = file;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Link> action) {
+            while (chunkPos >= chunk.size()) {
+                if (next >= end) {
+                    return false;
+                }
+                readChunk();
+            }
+            action.accept(chunk.get(chunkPos++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Link> action) {
+            while (true) {
+                while (chunkPos < chunk.size()) {
+                    action.accept(chunk.get(chunkPos++));
+                }
+                if (next >= end) {
+                    return;
+                }
+                readChunk();
+            }
+        }
+
+        @Override
+        public Spliterator<Link> trySplit() {
+            long remaining = end - next;
+            if (remaining < 2L * STREAM_CHUNK) {
+                return null;
+            }
+            long mid = next + remaining / 2;
+            SlotSpliterator prefix = new SlotSpliterator(file, next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = table == null ? 0 : file.getLong(H_SIZE);
+            return size * (end - next) / capacity + (chunk.size() - chunkPos);
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+
+        private void readChunk() {
+            chunk.clear();
+            chunkPos = 0;
+            long to = Math.min(end, next + STREAM_CHUNK);
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                for (long slot = next; slot < to; slot++) {
+                    if (file.getLong(recordAt(slot) + R_KEY) > 0) {
+                        chunk.add(readLink(file, slot));
+                    }
+                }
+            } catch (LinkRepositoryException e) {
+                throw new UncheckedLinkRepositoryException(e);
+            } finally {
+                lock.readLock().unlock();
+            }
+            next = to;
+        }
+    }
+}
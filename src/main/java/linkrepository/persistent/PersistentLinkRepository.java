@@ -0,0 +1,260 @@
+package linkrepository.persistent;
+
+import entity.Link;
+import hamt.PersistentHashMap;
+import linkrepository.LinkPage;
+import linkrepository.LinkPageBuilder;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Реализация репозитория ссылок в памяти на неизменяемых индексах.
+ *
+ * <p>Индексы по идентификатору и по короткой ссылке — {@link PersistentHashMap}, и текущая пара индексов
+ * лежит за одной атомарной ссылкой. Читатель берет текущую версию одним чтением и дальше работает с
+ * неизменяемым снимком: он никогда не ждет писателей, а обход ({@link #stream()}, выборка страниц,
+ * очистка) видит согласованное состояние на момент начала, сколько бы он ни длился. Писатель строит
+ * новую версию копированием пути от корня к ключу и публикует ее через compare-and-set; при гонке
+ * с другим писателем изменение повторяется над новой версией.</p>
+ *
+ * <p>Хранимые объекты {@link Link} разделяются всеми читателями и не изменяются: любое изменение, в том числе
+ * запись остатка кликов, публикует новую версию с копией ссылки, поэтому снимок согласован целиком.</p>
+ */
+public class PersistentLinkRepository implements LinkRepository {
+
+    /**
+     * Версия хранилища: оба индекса одной версии всегда согласованы между собой.
+     */
+    private static final class State {
+
+        static final State EMPTY = new State(PersistentHashMap.empty(), PersistentHashMap.empty());
+
+        final PersistentHashMap<UUID, Link> byId;
+
+        final PersistentHashMap<String, Link> byShortUrl;
+
+        State(PersistentHashMap<UUID, Link> byId, PersistentHashMap<String, Link> byShortUrl) {
+            this.byId = byId;
+            this.byShortUrl = byShortUrl;
+        }
+
+        State with(Link link) {
+            return new State(byId.put(link.getId(), link), byShortUrl.put(link.getShortURL(), link));
+        }
+
+        State without(Link link) {
+            return new State(byId.remove(link.getId()), byShortUrl.remove(link.getShortURL()));
+        }
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        saveLinks(List.of(link));
+    }
+
+    /**
+     * Публикует все ссылки одной новой версией: читатели видят либо весь пакет, либо ни одной ссылки из него.
+     */
+    @Override
+    public void saveLinks(List<Link> links) throws LinkRepositoryException {
+        while (true) {
+            State current = state.get();
+            State next = current;
+            for (Link link : links) {
+                if (next.byShortUrl.containsKey(link.getShortURL())) {
+                    throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+                }
+                if (next.byId.containsKey(link.getId())) {
+                    throw new LinkRepositoryException("Ссылка с таким ID уже существует.");
+                }
+                next = next.with(link);
+            }
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<Link> getAll() {
+        State snapshot = state.get();
+        List<Link> all = new ArrayList<>(snapshot.byId.size());
+        snapshot.byId.valueIterator().forEachRemaining(all::add);
+        return all;
+    }
+
+    /**
+     * Обходит снимок текущей версии без копирования: изменения, сделанные во время обхода, в нем не видны.
+     */
+    @Override
+    public Stream<Link> stream() {
+        return state.get().byId.values();
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) {
+        return Optional.ofNullable(state.get().byShortUrl.get(shortURL));
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        Iterator<Link> links = state.get().byId.valueIterator();
+        while (links.hasNext()) {
+            page.add(links.next());
+        }
+        return page.build();
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        while (true) {
+            State current = state.get();
+            Link stored = current.byId.get(linkId);
+            if (stored == null) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            if (state.compareAndSet(current, current.without(stored))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        update(link, -1);
+    }
+
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Версия ссылки должна быть >= 0");
+        }
+        return update(link, expectedVersion);
+    }
+
+    /**
+     * Заменяет счетчики копиями ссылок, и весь пакет публикуется одной версией.
+     */
+    @Override
+    public void updateClickCounts(List<Link> links) {
+        while (true) {
+            State current = state.get();
+            State next = current;
+            for (Link link : links) {
+                Link stored = next.byId.get(link.getId());
+                if (stored == null || stored.getClickCount() == link.getClickCount()) {
+                    continue;
+                }
+                Link updated = new Link(stored);
+                updated.setClickCount(link.getClickCount());
+                next = next.with(updated);
+            }
+            if (next == current || state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ищет истекшие ссылки в снимке, не мешая писателям и читателям, а затем удаляет их одной новой версией.
+     * Если за время поиска ссылку продлили, она не удаляется.
+     */
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) {
+        List<Link> candidates = new ArrayList<>();
+        Iterator<Link> links = state.get().byId.valueIterator();
+        while (links.hasNext()) {
+            Link link = links.next();
+            if (isExpired(link, now)) {
+                candidates.add(link);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        while (true) {
+            State current = state.get();
+            State next = current;
+            List<Link> deleted = new ArrayList<>(candidates.size());
+            for (Link candidate : candidates) {
+                Link stored = next.byId.get(candidate.getId());
+                if (stored != null && isExpired(stored, now)) {
+                    next = next.without(stored);
+                    deleted.add(stored);
+                }
+            }
+            if (next == current || state.compareAndSet(current, next)) {
+                return deleted;
+            }
+        }
+    }
+
+    /**
+     * Поиск по снимку и так не блокирует ни читателей, ни писателей, поэтому пул не используется:
+     * удаленные ссылки передаются получателю одной порцией.
+     */
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) {
+        List<Link> expired = deleteExpired(now);
+        if (!expired.isEmpty()) {
+            deleted.accept(expired);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Возвращает число ссылок.
+     *
+     * @return число ссылок в текущей версии.
+     */
+    public int size() {
+        return state.get().byId.size();
+    }
+
+    /**
+     * Обновляет ссылку, если ее версия равна ожидаемой или ожидаемая версия отрицательна.
+     */
+    private boolean update(Link link, long expectedVersion) throws LinkRepositoryException {
+        while (true) {
+            State current = state.get();
+            Link stored = current.byId.get(link.getId());
+            if (stored == null) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            if (expectedVersion >= 0 && stored.getVersion() != expectedVersion) {
+                return false;
+            }
+            State next = current;
+            if (!stored.getShortURL().equals(link.getShortURL())) {
+                if (current.byShortUrl.containsKey(link.getShortURL())) {
+                    throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+                }
+                next = new State(current.byId, current.byShortUrl.remove(stored.getShortURL()));
+            }
+            long version = stored.getVersion() + 1;
+            link.setVersion(version);
+            if (state.compareAndSet(current, next.with(link))) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isExpired(Link link, LocalDateTime now) {
+        return link.getExpireDt() != null && link.getExpireDt().isBefore(now);
+    }
+}
@@ -0,0 +1,131 @@
+package linkrepository.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Неизменяемое кольцо консистентного хеширования с виртуальными узлами.
+ *
+ * <p>Каждый узел занимает на кольце {@code virtualNodes} точек. Ключ принадлежит первому узлу,
+ * точка которого встречается при движении по кольцу от хеша ключа. При добавлении или удалении
+ * узла меняется владелец только у ключей, попавших на его точки.</p>
+ */
+public final class ConsistentHashRing {
+
+    /**
+     * Точки кольца: хеш точки — имя узла.
+     */
+    private final NavigableMap<Long, String> points;
+
+    /**
+     * Имена узлов кольца.
+     */
+    private final Set<String> nodes;
+
+    /**
+     * Число виртуальных узлов на один физический.
+     */
+    private final int virtualNodes;
+
+    /**
+     * Создает пустое кольцо.
+     *
+     * @param virtualNodes число виртуальных узлов на один физический.
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this(new TreeMap<>(), new TreeSet<>(), virtualNodes);
+    }
+
+    private ConsistentHashRing(NavigableMap<Long, String> points, Set<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Число виртуальных узлов должно быть > 0");
+        }
+        this.points = points;
+        this.nodes = nodes;
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Возвращает новое кольцо с добавленным узлом.
+     *
+     * @param node имя узла.
+     * @return новое кольцо.
+     */
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) {
+            throw new IllegalArgumentException("Узел уже есть в кольце: " + node);
+        }
+        TreeMap<Long, String> newPoints = new TreeMap<>(points);
+        for (int i = 0; i < virtualNodes; i++) {
+            newPoints.putIfAbsent(hash(node + "#" + i), node);
+        }
+        TreeSet<String> newNodes = new TreeSet<>(nodes);
+        newNodes.add(node);
+        return new ConsistentHashRing(newPoints, newNodes, virtualNodes);
+    }
+
+    /**
+     * Возвращает новое кольцо без указанного узла.
+     *
+     * @param node имя узла.
+     * @return новое кольцо.
+     */
+    public ConsistentHashRing withoutNode(String node) {
+        if (!nodes.contains(node)) {
+            throw new IllegalArgumentException("Узла нет в кольце: " + node);
+        }
+        TreeMap<Long, String> newPoints = new TreeMap<>(points);
+        newPoints.values().removeIf(node::equals);
+        TreeSet<String> newNodes = new TreeSet<>(nodes);
+        newNodes.remove(node);
+        return new ConsistentHashRing(newPoints, newNodes, virtualNodes);
+    }
+
+    /**
+     * Возвращает узел, которому принадлежит ключ.
+     *
+     * @param key ключ (короткая ссылка).
+     * @return имя узла или null, если кольцо пустое.
+     */
+    public String nodeFor(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * Возвращает имена узлов кольца.
+     *
+     * @return неизменяемое множество имен узлов.
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /**
+     * 64-битный хеш FNV-1a с финальным перемешиванием битов.
+     *
+     * @param key строка.
+     * @return хеш строки.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,507 @@
+package linkrepository.routing;
+
+import entity.Link;
+import linkrepository.LinkPage;
+import linkrepository.LinkPageBuilder;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий ссылок, распределяющий ссылки по нескольким узлам-репозиториям.
+ *
+ * <p>Владелец ссылки определяется {@link ConsistentHashRing} по короткой ссылке. Узлы могут быть
+ * любыми реализациями {@link LinkRepository}. При добавлении или удалении узла меняется только
+ * владелец части ключей; они переносятся в фоновом потоке. Пока перенос идет, чтение, не нашедшее
+ * ссылку у нового владельца, обращается к прежнему, а сохранение проверяет, что короткая ссылка не занята
+ * у прежнего владельца.</p>
+ *
+ * <p>Короткие ссылки всех ссылок узлов индексируются по идентификатору (ссылки узла — при его добавлении),
+ * поэтому удаление по ID обращается к одному узлу. Очистка истекших ссылок и перенос одной ссылки
+ * исключают друг друга: иначе очистка могла бы застать переносимую ссылку на двух узлах и вернуть ее дважды.</p>
+ *
+ * <p>Если перенос прерван ошибкой, кольцо возвращается к прежнему, а уже перенесенные ссылки переносятся
+ * обратно тем же способом; добавленный узел после этого отключается, удаляемый остается. Если не удался и откат,
+ * он повторяется перед следующим изменением узлов.</p>
+ */
+public class RoutingLinkRepository implements LinkRepository, AutoCloseable {
+
+    /**
+     * Число блокировок, которыми перенос ключа синхронизируется с записью того же ключа.
+     */
+    private static final int MIGRATION_STRIPES = 64;
+
+    /**
+     * Узлы по имени.
+     */
+    private final Map<String, LinkRepository> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Короткая ссылка по идентификатору, чтобы удалять ссылку по ID на одном узле. Изменяется под
+     * блокировкой переноса короткой ссылки.
+     */
+    private final Map<UUID, String> shortUrlById = new ConcurrentHashMap<>();
+
+    /**
+     * Блокировки переноса, выбираемые по хешу короткой ссылки.
+     */
+    private final Object[] stripes = new Object[MIGRATION_STRIPES];
+
+    /**
+     * Монитор, под которым идут очистка истекших ссылок и перенос каждой ссылки.
+     */
+    private final Object sweepLock = new Object();
+
+    /**
+     * Поток переноса ключей.
+     */
+    private final ExecutorService migrator;
+
+    /**
+     * Текущее кольцо.
+     */
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * Кольцо до начала текущего переноса; null, если перенос не идет.
+     */
+    private volatile ConsistentHashRing previousRing;
+
+    /**
+     * Откат прерванного переноса, который тоже не удался; null, если его нет. Используется только потоком переноса.
+     */
+    private Rollback pendingRollback;
+
+    /**
+     * Создает маршрутизатор без узлов.
+     *
+     * @param virtualNodes число виртуальных узлов на один узел.
+     */
+    public RoutingLinkRepository(int virtualNodes) {
+        this.ring = new ConsistentHashRing(virtualNodes);
+        for (int i = 0; i < MIGRATION_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.migrator = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "link-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Добавляет узел и в фоне переносит на него ключи, владельцем которых он стал. Ссылки, уже
+     * хранящиеся на узле, индексируются до его подключения.
+     *
+     * @param name       имя узла.
+     * @param repository репозиторий узла.
+     * @return будущее с числом перенесенных ссылок.
+     * @throws LinkRepositoryException если не удалось прочитать ссылки узла.
+     */
+    public synchronized CompletableFuture<Integer> addNode(String name, LinkRepository repository) throws LinkRepositoryException {
+        awaitMigration();
+        for (Link link : repository.getAll()) {
+            shortUrlById.put(link.getId(), link.getShortURL());
+        }
+        ConsistentHashRing oldRing = ring;
+        ConsistentHashRing newRing = oldRing.withNode(name);
+        nodes.put(name, repository);
+
+        previousRing = oldRing;
+        ring = newRing;
+
+        List<String> sources = new ArrayList<>(oldRing.getNodes());
+        return migrate(sources, oldRing, newRing, name, null);
+    }
+
+    /**
+     * Удаляет узел: в фоне переносит все его ссылки на новых владельцев и затем отключает узел.
+     *
+     * @param name имя узла.
+     * @return будущее с числом перенесенных ссылок.
+     */
+    public synchronized CompletableFuture<Integer> removeNode(String name) {
+        awaitMigration();
+        ConsistentHashRing oldRing = ring;
+        ConsistentHashRing newRing = oldRing.withoutNode(name);
+        if (newRing.getNodes().isEmpty()) {
+            throw new IllegalStateException("Нельзя удалить последний узел");
+        }
+
+        previousRing = oldRing;
+        ring = newRing;
+
+        return migrate(List.of(name), oldRing, newRing, null, name);
+    }
+
+    /**
+     * Возвращает имена текущих узлов.
+     *
+     * @return имена узлов.
+     */
+    public Set<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Сообщает, идет ли сейчас перенос ключей.
+     *
+     * @return true, если перенос не завершен.
+     */
+    public boolean isMigrating() {
+        return previousRing != null;
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        String shortURL = link.getShortURL();
+        synchronized (stripeFor(shortURL)) {
+            String owner = ring.nodeFor(shortURL);
+            ConsistentHashRing previous = previousRing;
+            if (previous != null) {
+                String previousOwner = previous.nodeFor(shortURL);
+                LinkRepository repository = previousOwner != null ? nodes.get(previousOwner) : null;
+                if (repository != null && !previousOwner.equals(owner) && repository.getLinkByShortUrl(shortURL).isPresent()) {
+                    throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+                }
+            }
+            node(owner).saveLink(link);
+            shortUrlById.put(link.getId(), shortURL);
+        }
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        Map<UUID, Link> all = new LinkedHashMap<>();
+        for (LinkRepository repository : nodes.values()) {
+            for (Link link : repository.getAll()) {
+                all.putIfAbsent(link.getId(), link);
+            }
+        }
+        return new ArrayList<>(all.values());
+    }
+
+    /**
+     * Склеивает потоки узлов; при параллельной обработке узлы обходятся одновременно. Пока идет перенос,
+     * ссылка может быть на двух узлах; только в это время поток запоминает встреченные идентификаторы,
+     * чтобы выдать каждую ссылку один раз.
+     */
+    @Override
+    public Stream<Link> stream() throws LinkRepositoryException {
+        Stream<Link> all = Stream.empty();
+        for (LinkRepository repository : nodes.values()) {
+            all = Stream.concat(all, repository.stream());
+        }
+        if (previousRing == null) {
+            return all;
+        }
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        return all.filter(link -> seen.add(link.getId()));
+    }
+
+    /**
+     * Собирает страницу из страниц на одну ссылку больше, запрошенных у каждого узла: первые {@code pageSize + 1}
+     * ссылок после курсора всегда входят в первые {@code pageSize + 1} ссылок своего узла, а лишняя ссылка
+     * показывает, есть ли продолжение. Ссылки, которые во время переноса есть на двух узлах, учитываются один раз.
+     */
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        Set<UUID> seen = new HashSet<>();
+        for (LinkRepository repository : nodes.values()) {
+            for (Link link : repository.getLinksForUser(userId, cursor, pageSize + 1).getLinks()) {
+                if (seen.add(link.getId())) {
+                    page.add(link);
+                }
+            }
+        }
+        return page.build();
+    }
+
+    /**
+     * Ссылка должна подходить всем узлам: при изменении кольца она может переехать на любой из них.
+     */
+    @Override
+    public boolean supportsShortUrl(String shortURL) {
+        for (LinkRepository repository : nodes.values()) {
+            if (!repository.supportsShortUrl(shortURL)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        String owner = ring.nodeFor(shortURL);
+        if (owner == null) {
+            return Optional.empty();
+        }
+        Optional<Link> link = node(owner).getLinkByShortUrl(shortURL);
+        if (link.isPresent()) {
+            return link;
+        }
+
+        ConsistentHashRing previous = previousRing;
+        if (previous != null) {
+            String previousOwner = previous.nodeFor(shortURL);
+            LinkRepository repository = previousOwner != null ? nodes.get(previousOwner) : null;
+            if (repository != null && !previousOwner.equals(owner)) {
+                return repository.getLinkByShortUrl(shortURL);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        String shortURL = shortUrlById.get(linkId);
+        if (shortURL == null) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+        synchronized (stripeFor(shortURL)) {
+            holderOf(shortURL).deleteLink(linkId);
+            shortUrlById.remove(linkId);
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        synchronized (stripeFor(link.getShortURL())) {
+            holderOf(link.getShortURL()).updateLink(link);
+        }
+    }
+
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        synchronized (stripeFor(link.getShortURL())) {
+            return holderOf(link.getShortURL()).updateLink(link, expectedVersion);
+        }
+    }
+
+    @Override
+    public void updateClickCounts(List<Link> links) throws LinkRepositoryException {
+        for (Link link : links) {
+            synchronized (stripeFor(link.getShortURL())) {
+                holderOf(link.getShortURL()).updateClickCounts(List.of(link));
+            }
+        }
+    }
+
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        synchronized (sweepLock) {
+            List<Link> deleted = new ArrayList<>();
+            for (LinkRepository repository : nodes.values()) {
+                deleted.addAll(repository.deleteExpired(now));
+            }
+            for (Link link : deleted) {
+                unindex(link);
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Очищает узлы по очереди, каждый — параллельно в переданном пуле.
+     */
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) throws LinkRepositoryException {
+        synchronized (sweepLock) {
+            int count = 0;
+            for (LinkRepository repository : nodes.values()) {
+                count += repository.deleteExpired(now, pool, batch -> {
+                    for (Link link : batch) {
+                        unindex(link);
+                    }
+                    deleted.accept(batch);
+                });
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Останавливает поток переноса.
+     */
+    @Override
+    public void close() {
+        migrator.shutdown();
+    }
+
+    /**
+     * Запускает фоновый перенос ключей с узлов-источников на их новых владельцев. При ошибке откатывает кольцо
+     * и переносит уже перенесенные ссылки обратно.
+     *
+     * @param sources     узлы, ключи которых проверяются.
+     * @param oldRing     кольцо до изменения.
+     * @param newRing     новое кольцо.
+     * @param addedNode   добавляемый узел или null.
+     * @param removedNode удаляемый узел или null.
+     * @return будущее с числом перенесенных ссылок.
+     */
+    private CompletableFuture<Integer> migrate(List<String> sources, ConsistentHashRing oldRing, ConsistentHashRing newRing,
+                                               String addedNode, String removedNode) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        migrator.execute(() -> {
+            try {
+                int moved = moveKeys(sources, newRing);
+                if (removedNode != null) {
+                    nodes.remove(removedNode);
+                }
+                previousRing = null;
+                result.complete(moved);
+            } catch (Exception e) {
+                // Ключи, владелец которых мог смениться, обратно: с добавленного узла или со всех оставшихся.
+                List<String> rollbackSources = addedNode != null ? List.of(addedNode) : new ArrayList<>(newRing.getNodes());
+                previousRing = newRing;
+                ring = oldRing;
+                pendingRollback = new Rollback(rollbackSources, oldRing, addedNode);
+                try {
+                    pendingRollback.run();
+                } catch (Exception rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Переносит ключи узлов-источников на их владельцев в кольце {@code targetRing}. Вызывается потоком переноса.
+     *
+     * @param sources    узлы, ключи которых проверяются.
+     * @param targetRing кольцо, по которому определяются владельцы.
+     * @return число перенесенных ссылок.
+     * @throws LinkRepositoryException если произошла ошибка при обращении к узлу.
+     */
+    private int moveKeys(List<String> sources, ConsistentHashRing targetRing) throws LinkRepositoryException {
+        int moved = 0;
+        for (String sourceName : sources) {
+            LinkRepository source = node(sourceName);
+            for (Link link : source.getAll()) {
+                String target = targetRing.nodeFor(link.getShortURL());
+                if (!target.equals(sourceName)) {
+                    synchronized (sweepLock) {
+                        synchronized (stripeFor(link.getShortURL())) {
+                            Optional<Link> current = source.getLinkByShortUrl(link.getShortURL());
+                            if (current.isPresent()) {
+                                node(target).saveLink(current.get());
+                                source.deleteLink(current.get().getId());
+                                moved++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Дожидается завершения предыдущего переноса, чтобы в каждый момент шел не более чем один, и повторяет
+     * не удавшийся откат.
+     */
+    private void awaitMigration() {
+        if (previousRing == null) {
+            return;
+        }
+        try {
+            migrator.submit(() -> {
+                if (pendingRollback != null) {
+                    pendingRollback.run();
+                }
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Не удалось откатить прерванный перенос ключей", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Ошибка при ожидании завершения переноса ключей", e);
+        }
+    }
+
+    /**
+     * Возвращает узел, который сейчас хранит ссылку: нового владельца, а во время переноса,
+     * если у него ссылки еще нет, — прежнего.
+     *
+     * @param shortURL короткая ссылка.
+     * @return репозиторий узла.
+     * @throws LinkRepositoryException если узлов нет или произошла ошибка при обращении к узлу.
+     */
+    private LinkRepository holderOf(String shortURL) throws LinkRepositoryException {
+        LinkRepository owner = node(ring.nodeFor(shortURL));
+        ConsistentHashRing previous = previousRing;
+        if (previous == null || owner.getLinkByShortUrl(shortURL).isPresent()) {
+            return owner;
+        }
+        String previousName = previous.nodeFor(shortURL);
+        LinkRepository previousOwner = previousName != null ? nodes.get(previousName) : null;
+        return previousOwner != null ? previousOwner : owner;
+    }
+
+    /**
+     * Убирает удаленную ссылку из индекса под блокировкой ее короткой ссылки.
+     */
+    private void unindex(Link link) {
+        synchronized (stripeFor(link.getShortURL())) {
+            shortUrlById.remove(link.getId());
+        }
+    }
+
+    private LinkRepository node(String name) throws LinkRepositoryException {
+        LinkRepository repository = name != null ? nodes.get(name) : null;
+        if (repository == null) {
+            throw new LinkRepositoryException("Нет доступных узлов для ссылки.");
+        }
+        return repository;
+    }
+
+    private Object stripeFor(String shortURL) {
+        return stripes[Math.floorMod(shortURL.hashCode(), MIGRATION_STRIPES)];
+    }
+
+    /**
+     * Откат прерванного переноса: ключи возвращаются к владельцам прежнего кольца, добавленный узел отключается.
+     */
+    private final class Rollback {
+
+        private final List<String> sources;
+
+        private final ConsistentHashRing targetRing;
+
+        private final String addedNode;
+
+        private Rollback(List<String> sources, ConsistentHashRing targetRing, String addedNode) {
+            this.sources = sources;
+            this.targetRing = targetRing;
+            this.addedNode = addedNode;
+        }
+
+        private void run() throws LinkRepositoryException {
+            moveKeys(sources, targetRing);
+            if (addedNode != null) {
+                nodes.remove(addedNode);
+            }
+            previousRing = null;
+            pendingRollback = null;
+        }
+    }
+}
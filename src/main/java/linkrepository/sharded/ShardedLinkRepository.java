@@ -0,0 +1,434 @@
+package linkrepository.sharded;
+
+import entity.Link;
+import linkrepository.LinkPage;
+import linkrepository.LinkPageBuilder;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Реализация репозитория ссылок в памяти, разделенная на независимые сегменты.
+ *
+ * <p>Ссылка попадает в сегмент по хешу короткой ссылки. У каждого сегмента своя блокировка
+ * чтения-записи и свои индексы по идентификатору и по короткой ссылке, поэтому операции
+ * над разными ссылками не конкурируют за одну блокировку. {@link #getAll()}, {@link #stream()} и очистка
+ * обходят сегменты по очереди.</p>
+ */
+public class ShardedLinkRepository implements LinkRepository {
+
+    /**
+     * Сегменты хранилища; их число — степень двойки.
+     */
+    private final Shard[] shards;
+
+    /**
+     * Маска для выбора сегмента по хешу.
+     */
+    private final int mask;
+
+    /**
+     * Короткая ссылка по идентификатору; нужна, чтобы удалять ссылку по ID, затрагивая один сегмент.
+     */
+    private final Map<UUID, String> shortUrlById = new ConcurrentHashMap<>();
+
+    /**
+     * Создает репозиторий с числом сегментов, равным числу доступных процессоров, умноженному на 4.
+     */
+    public ShardedLinkRepository() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Создает репозиторий с заданным числом сегментов.
+     *
+     * @param shardCount желаемое число сегментов; округляется вверх до степени двойки.
+     */
+    public ShardedLinkRepository(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Число сегментов должно быть > 0");
+        }
+        int size = Integer.highestOneBit(shardCount);
+        if (size < shardCount) {
+            size <<= 1;
+        }
+        this.shards = new Shard[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Возвращает число сегментов.
+     *
+     * @return число сегментов.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void saveLink(Link link) throws LinkRepositoryException {
+        Shard shard = shardFor(link.getShortURL());
+        shard.lock.writeLock().lock();
+        try {
+            if (shard.byShortUrl.containsKey(link.getShortURL())) {
+                throw new LinkRepositoryException("Ссылка с такой короткой ссылкой уже существует.");
+            }
+            if (shortUrlById.putIfAbsent(link.getId(), link.getShortURL()) != null) {
+                throw new LinkRepositoryException("Ссылка с таким ID уже существует.");
+            }
+            shard.byId.put(link.getId(), link);
+            shard.byShortUrl.put(link.getShortURL(), link);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Link> getAll() throws LinkRepositoryException {
+        List<Link> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                all.addAll(shard.byId.values());
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Обходит сегменты по очереди, копируя под блокировкой чтения только текущий сегмент.
+     * Поток делится по диапазонам сегментов, поэтому параллельная обработка не конкурирует за блокировки.
+     */
+    @Override
+    public Stream<Link> stream() {
+        return StreamSupport.stream(new ShardSpliterator(0, shards.length), false);
+    }
+
+    @Override
+    public LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws LinkRepositoryException {
+        LinkPageBuilder page = new LinkPageBuilder(userId, cursor, pageSize);
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                for (Link link : shard.byId.values()) {
+                    page.add(link);
+                }
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return page.build();
+    }
+
+    @Override
+    public Optional<Link> getLinkByShortUrl(String shortURL) throws LinkRepositoryException {
+        Shard shard = shardFor(shortURL);
+        shard.lock.readLock().lock();
+        try {
+            return Optional.ofNullable(shard.byShortUrl.get(shortURL));
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteLink(UUID linkId) throws LinkRepositoryException {
+        String shortURL = shortUrlById.get(linkId);
+        if (shortURL == null) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+        Shard shard = shardFor(shortURL);
+        shard.lock.writeLock().lock();
+        try {
+            Link removed = shard.byId.remove(linkId);
+            if (removed == null) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            shard.byShortUrl.remove(removed.getShortURL());
+            shortUrlById.remove(linkId);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateLink(Link link) throws LinkRepositoryException {
+        String shortURL = shortUrlById.get(link.getId());
+        if (shortURL == null) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+        if (!shortURL.equals(link.getShortURL())) {
+            throw new LinkRepositoryException("Изменение короткой ссылки не поддерживается.");
+        }
+        Shard shard = shardFor(shortURL);
+        shard.lock.writeLock().lock();
+        try {
+            Link stored = shard.byId.get(link.getId());
+            if (stored == null) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            link.setVersion(stored.getVersion() + 1);
+            shard.byId.put(link.getId(), link);
+            shard.byShortUrl.put(shortURL, link);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сравнивает версию и подменяет ссылку под блокировкой записи одного сегмента.
+     */
+    @Override
+    public boolean updateLink(Link link, long expectedVersion) throws LinkRepositoryException {
+        String shortURL = shortUrlById.get(link.getId());
+        if (shortURL == null) {
+            throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+        }
+        if (!shortURL.equals(link.getShortURL())) {
+            throw new LinkRepositoryException("Изменение короткой ссылки не поддерживается.");
+        }
+        Shard shard = shardFor(shortURL);
+        shard.lock.writeLock().lock();
+        try {
+            Link stored = shard.byId.get(link.getId());
+            if (stored == null) {
+                throw new LinkRepositoryException("Ссылка с таким ID не найдена.");
+            }
+            if (stored.getVersion() != expectedVersion) {
+                return false;
+            }
+            link.setVersion(expectedVersion + 1);
+            shard.byId.put(link.getId(), link);
+            shard.byShortUrl.put(shortURL, link);
+            return true;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Подменяет хранимую ссылку копией с новым счетчиком: читатели получают хранимые экземпляры
+     * без блокировки, поэтому они не изменяются на месте.
+     */
+    @Override
+    public void updateClickCounts(List<Link> links) {
+        for (Link link : links) {
+            Shard shard = shardFor(link.getShortURL());
+            shard.lock.writeLock().lock();
+            try {
+                Link stored = shard.byId.get(link.getId());
+                if (stored != null) {
+                    Link updated = new Link(stored);
+                    updated.setClickCount(link.getClickCount());
+                    shard.byId.put(updated.getId(), updated);
+                    shard.byShortUrl.put(updated.getShortURL(), updated);
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Обходит сегменты по очереди и удаляет истекшие ссылки под блокировкой записи одного сегмента.
+     */
+    @Override
+    public List<Link> deleteExpired(LocalDateTime now) throws LinkRepositoryException {
+        List<Link> deleted = new ArrayList<>();
+        for (Shard shard : shards) {
+            sweep(shard, now, deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Очищает сегменты параллельно: каждый сегмент — отдельная задача пула, удаленные ссылки
+     * сегмента передаются получателю после снятия его блокировки.
+     */
+    @Override
+    public int deleteExpired(LocalDateTime now, ForkJoinPool pool, Consumer<List<Link>> deleted) {
+        return pool.invoke(new ShardSweep(0, shards.length, now, deleted));
+    }
+
+    /**
+     * Удаляет истекшие ссылки сегмента под его блокировкой записи.
+     *
+     * @param shard   сегмент.
+     * @param now     момент, относительно которого проверяется срок действия.
+     * @param deleted список, в который добавляются удаленные ссылки.
+     */
+    private void sweep(Shard shard, LocalDateTime now, List<Link> deleted) {
+        shard.lock.writeLock().lock();
+        try {
+            Iterator<Link> it = shard.byId.values().iterator();
+            while (it.hasNext()) {
+                Link link = it.next();
+                if (link.getExpireDt() != null && link.getExpireDt().isBefore(now)) {
+                    it.remove();
+                    shard.byShortUrl.remove(link.getShortURL());
+                    shortUrlById.remove(link.getId());
+                    deleted.add(link);
+                }
+            }
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Выбирает сегмент по короткой ссылке.
+     *
+     * @param shortURL короткая ссылка.
+     * @return сегмент, в котором хранится ссылка.
+     */
+    private Shard shardFor(String shortURL) {
+        int h = shortURL.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Очистка диапазона сегментов {@code [from, to)}: диапазон делится пополам до одного сегмента.
+     */
+    private final class ShardSweep extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+
+        private final int to;
+
+        private final LocalDateTime now;
+
+        private final Consumer<List<Link>> deleted;
+
+        ShardSweep(int from, int to, LocalDateTime now, Consumer<List<Link>> deleted) {
+            this.from = from;
+            this.to = to;
+            this.now = now;
+            this.deleted = deleted;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ShardSweep left = new ShardSweep(from, mid, now, deleted);
+                left.fork();
+                int right = new ShardSweep(mid, to, now, deleted).compute();
+                return left.join() + right;
+            }
+            List<Link> expired = new ArrayList<>();
+            sweep(shards[from], now, expired);
+            if (!expired.isEmpty()) {
+                deleted.accept(expired);
+            }
+            return expired.size();
+        }
+    }
+
+    /**
+     * Обход диапазона сегментов {@code [next, end)}.
+     */
+    private final class ShardSpliterator implements Spliterator<Link> {
+
+        private int next;
+
+        private final int end;
+
+        /**
+         * Снимок ссылок текущего сегмента; null, пока обход не начат.
+         */
+        private Iterator<Link> current;
+
+        ShardSpliterator(int next, int end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Link> action) {
+            while (current == null || !current.hasNext()) {
+                if (next >= end) {
+                    return false;
+                }
+                current = snapshot(shards[next++]).iterator();
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Link> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+            }
+            while (next < end) {
+                snapshot(shards[next++]).forEach(action);
+            }
+        }
+
+        @Override
+        public Spliterator<Link> trySplit() {
+            int remaining = end - next;
+            if (remaining < 2) {
+                return null;
+            }
+            int mid = next + remaining / 2;
+            ShardSpliterator prefix = new ShardSpliterator(next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) shortUrlById.size() * (end - next) / shards.length + (current != null && current.hasNext() ? 1 : 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+
+        private List<Link> snapshot(Shard shard) {
+            shard.lock.readLock().lock();
+            try {
+                return new ArrayList<>(shard.byId.values());
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Сегмент хранилища: индексы ссылок и блокировка.
+     */
+    private static final class Shard {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final Map<UUID, Link> byId = new HashMap<>();
+
+        private final Map<String, Link> byShortUrl = new HashMap<>();
+    }
+}
@@ -0,0 +1,48 @@
+package notificationsrepository;
+
+import entity.Notification;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link NotificationsRepository}.
+ *
+ * <p>Методы не блокируют вызывающий поток и возвращают {@link CompletableFuture}. При ошибке будущее
+ * завершается исключительно с {@link NotificationsRepositoryException}.</p>
+ */
+public interface AsyncNotificationsRepository {
+
+    /**
+     * Добавляет новое уведомление в репозиторий.
+     *
+     * @param notification объект уведомления, который нужно добавить.
+     * @return будущее, завершающееся после добавления.
+     */
+    CompletableFuture<Void> addNotification(Notification notification);
+
+    /**
+     * Добавляет несколько уведомлений.
+     *
+     * @param notifications уведомления, которые нужно добавить.
+     * @return будущее, завершающееся после добавления.
+     */
+    CompletableFuture<Void> addNotifications(List<Notification> notifications);
+
+    /**
+     * Получает все непрочитанные уведомления для заданного пользователя.
+     *
+     * @param userId идентификатор пользователя.
+     * @return будущее со списком непрочитанных уведомлений.
+     */
+    CompletableFuture<List<Notification>> getUnreadNotificationsForUser(UUID userId);
+
+    /**
+     * Помечает уведомление как прочитанное.
+     *
+     * @param notificationId идентификатор уведомления.
+     * @return будущее, завершающееся после обновления статуса.
+     */
+    CompletableFuture<Void> markNotificationAsRead(UUID notificationId);
+}
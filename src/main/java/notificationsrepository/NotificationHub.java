@@ -0,0 +1,91 @@
+package notificationsrepository;
+
+import entity.Notification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Реестр подписчиков на уведомления, общий для реализаций {@link NotificationsRepository}.
+ *
+ * <p>Подписчики хранятся по идентификатору пользователя, поэтому публикация уведомления
+ * затрагивает только подписчиков его получателя, а пользователи без новых уведомлений
+ * не требуют ни потоков, ни обращений к хранилищу.</p>
+ */
+public final class NotificationHub {
+
+    private static final Logger LOGGER = Logger.getLogger(NotificationHub.class.getName());
+
+    /**
+     * Подписчики по идентификатору пользователя.
+     */
+    private final Map<UUID, List<NotificationListener>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Подписывает получателя на уведомления пользователя.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param listener получатель уведомлений.
+     * @return подписка, закрытие которой отменяет доставку.
+     */
+    public NotificationSubscription subscribe(UUID userId, NotificationListener listener) {
+        listeners.compute(userId, (id, list) -> {
+            List<NotificationListener> result = list != null ? list : new CopyOnWriteArrayList<>();
+            result.add(listener);
+            return result;
+        });
+        return new NotificationSubscription() {
+            private boolean closed;
+
+            @Override
+            public synchronized void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                listeners.computeIfPresent(userId, (id, list) -> {
+                    list.remove(listener);
+                    return list.isEmpty() ? null : list;
+                });
+            }
+        };
+    }
+
+    /**
+     * Передает уведомление подписчикам его получателя. Ошибка одного подписчика не мешает остальным.
+     *
+     * @param notification сохраненное уведомление.
+     */
+    public void publish(Notification notification) {
+        List<NotificationListener> userListeners = listeners.get(notification.getUserID());
+        if (userListeners == null) {
+            return;
+        }
+        for (NotificationListener listener : userListeners) {
+            try {
+                listener.onNotification(notification);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Ошибка при доставке уведомления", e);
+            }
+        }
+    }
+
+    /**
+     * Передает подписчикам несколько уведомлений.
+     *
+     * @param notifications сохраненные уведомления.
+     */
+    public void publishAll(List<Notification> notifications) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Notification notification : notifications) {
+            publish(notification);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package notificationsrepository;
+
+import entity.Notification;
+
+/**
+ * Получатель новых уведомлений пользователя.
+ */
+@FunctionalInterface
+public interface NotificationListener {
+
+    /**
+     * Вызывается после того, как уведомление сохранено в репозитории, в потоке, который его добавил.
+     * Реализация не должна блокироваться: долгую обработку следует передать другому потоку.
+     *
+     * @param notification новое уведомление.
+     */
+    void onNotification(Notification notification);
+}
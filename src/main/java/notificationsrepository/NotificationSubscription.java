@@ -0,0 +1,13 @@
+package notificationsrepository;
+
+/**
+ * Подписка на уведомления пользователя; закрытие подписки прекращает доставку.
+ */
+public interface NotificationSubscription extends AutoCloseable {
+
+    /**
+     * Отменяет подписку. Повторный вызов ничего не делает.
+     */
+    @Override
+    void close();
+}
@@ -34,4 +34,26 @@ public interface NotificationsRepository {
      * @throws NotificationsRepositoryException если произошла ошибка при обновлении статуса уведомления.
      */
     void markNotificationAsRead(UUID notificationId) throws NotificationsRepositoryException;
+
+    /**
+     * Подписывает получателя на новые уведомления пользователя. Получатель вызывается после сохранения
+     * каждого уведомления, добавленного через этот репозиторий.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param listener получатель уведомлений.
+     * @return подписка, закрытие которой отменяет доставку.
+     */
+    NotificationSubscription subscribe(UUID userId, NotificationListener listener);
+
+    /**
+     * Добавляет несколько уведомлений. Реализации могут выполнять запись одним пакетом.
+     *
+     * @param notifications уведомления, которые нужно добавить.
+     * @throws NotificationsRepositoryException если произошла ошибка при добавлении уведомлений.
+     */
+    default void addNotifications(List<Notification> notifications) throws NotificationsRepositoryException {
+        for (Notification notification : notifications) {
+            addNotification(notification);
+        }
+    }
 }
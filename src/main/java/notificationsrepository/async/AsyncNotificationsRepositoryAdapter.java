@@ -0,0 +1,93 @@
+package notificationsrepository.async;
+
+import entity.Notification;
+import notificationsrepository.AsyncNotificationsRepository;
+import notificationsrepository.NotificationsRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Адаптер, предоставляющий синхронный {@link NotificationsRepository} через интерфейс
+ * {@link AsyncNotificationsRepository}.
+ *
+ * <p>Каждый вызов выполняется на переданном {@link Executor}.</p>
+ */
+public class AsyncNotificationsRepositoryAdapter implements AsyncNotificationsRepository {
+
+    /**
+     * Синхронный репозиторий.
+     */
+    private final NotificationsRepository delegate;
+
+    /**
+     * Исполнитель блокирующих вызовов.
+     */
+    private final Executor executor;
+
+    /**
+     * Конструктор адаптера.
+     *
+     * @param delegate синхронный репозиторий.
+     * @param executor исполнитель, на котором выполняются вызовы репозитория.
+     */
+    public AsyncNotificationsRepositoryAdapter(NotificationsRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> addNotification(Notification notification) {
+        return call(() -> {
+            delegate.addNotification(notification);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> addNotifications(List<Notification> notifications) {
+        return call(() -> {
+            delegate.addNotifications(notifications);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Notification>> getUnreadNotificationsForUser(UUID userId) {
+        return call(() -> delegate.getUnreadNotificationsForUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Void> markNotificationAsRead(UUID notificationId) {
+        return call(() -> {
+            delegate.markNotificationAsRead(notificationId);
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет вызов репозитория на исполнителе.
+     *
+     * @param call вызов репозитория.
+     * @return будущее с результатом вызова.
+     */
+    private <T> CompletableFuture<T> call(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -1,27 +1,127 @@
 package notificationsrepository.inmemory;
 
+import notificationsrepository.NotificationHub;
+import notificationsrepository.NotificationListener;
+import notificationsrepository.NotificationSubscription;
 import notificationsrepository.NotificationsRepository;
 import entity.Notification;
 import notificationsrepository.NotificationsRepositoryException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.PriorityQueue;
 import java.util.UUID;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Реализация репозитория уведомлений в памяти.
- * Этот класс использует HashMap для хранения уведомлений и их статусов.
+ * Реализация репозитория уведомлений в памяти с ограниченным хранением.
+ *
+ * <p>Уведомления каждого пользователя лежат в отдельном кольцевом буфере: при его переполнении
+ * вытесняется самое старое уведомление. Фоновый уплотнитель периодически удаляет прочитанные
+ * уведомления старше заданного возраста и, если общее число уведомлений превышает глобальный лимит,
+ * вытесняет самые старые — сначала прочитанные, затем непрочитанные. Выборка непрочитанных
+ * уведомлений просматривает только буфер пользователя.</p>
  */
-public class InMemoryNotificationsRepository implements NotificationsRepository {
+public final class InMemoryNotificationsRepository implements NotificationsRepository, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(InMemoryNotificationsRepository.class.getName());
+
+    /**
+     * Размер кольцевого буфера пользователя по умолчанию.
+     */
+    public static final int DEFAULT_PER_USER_LIMIT = 100;
+
+    /**
+     * Максимальный возраст прочитанного уведомления по умолчанию.
+     */
+    public static final Duration DEFAULT_READ_MAX_AGE = Duration.ofDays(7);
 
     /**
-     * Хеш-таблица для хранения нотификаций.
+     * Глобальный лимит числа уведомлений по умолчанию.
      */
-    private final Map<UUID, Notification> notificationsStorage = new HashMap<>();
+    public static final int DEFAULT_MAX_TOTAL = 100_000;
+
+    /**
+     * Период запуска уплотнителя по умолчанию.
+     */
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * Уведомления по идентификатору.
+     */
+    private final Map<UUID, Notification> notificationsStorage = new ConcurrentHashMap<>();
+
+    /**
+     * Кольцевые буферы уведомлений по идентификатору пользователя.
+     */
+    private final Map<UUID, UserNotifications> notificationsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Общее число хранимых уведомлений.
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    /**
+     * Подписчики на новые уведомления.
+     */
+    private final NotificationHub hub = new NotificationHub();
+
+    private final int perUserLimit;
+    private final Duration readMaxAge;
+    private final int maxTotal;
+
+    /**
+     * Поток фонового уплотнителя.
+     */
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * Создает репозиторий с политиками хранения по умолчанию.
+     */
+    public InMemoryNotificationsRepository() {
+        this(DEFAULT_PER_USER_LIMIT, DEFAULT_READ_MAX_AGE, DEFAULT_MAX_TOTAL, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Создает репозиторий и запускает фоновый уплотнитель.
+     *
+     * @param perUserLimit       размер кольцевого буфера уведомлений одного пользователя.
+     * @param readMaxAge         максимальный возраст прочитанного уведомления.
+     * @param maxTotal           глобальный лимит числа уведомлений.
+     * @param compactionInterval период запуска уплотнителя.
+     */
+    public InMemoryNotificationsRepository(int perUserLimit, Duration readMaxAge, int maxTotal, Duration compactionInterval) {
+        if (perUserLimit <= 0 || maxTotal <= 0) {
+            throw new IllegalArgumentException("Лимиты хранения уведомлений должны быть > 0");
+        }
+        this.perUserLimit = perUserLimit;
+        this.readMaxAge = readMaxAge;
+        this.maxTotal = maxTotal;
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notifications-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = compactionInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
 
     /**
      * Добавляет новое уведомление в репозиторий.
+     * Если буфер пользователя заполнен, самое старое его уведомление вытесняется.
      *
      * @param notification объект уведомления, который нужно добавить.
      * @throws NotificationsRepositoryException если произошла ошибка при добавлении уведомления.
@@ -32,10 +132,29 @@ public class InMemoryNotificationsRepository implements NotificationsRepository
             if (notification == null) {
                 throw new NotificationsRepositoryException("Уведомление не может быть null");
             }
-            notificationsStorage.put(notification.getId(), notification);
+            if (notificationsStorage.putIfAbsent(notification.getId(), notification) != null) {
+                throw new NotificationsRepositoryException("Уведомление с таким ID уже существует.");
+            }
+            total.incrementAndGet();
+
+            Notification[] evicted = new Notification[1];
+            notificationsByUser.compute(notification.getUserID(), (userId, buffer) -> {
+                UserNotifications result = buffer != null ? buffer : new UserNotifications();
+                evicted[0] = result.add(notification, perUserLimit);
+                return result;
+            });
+            if (evicted[0] != null) {
+                forget(evicted[0]);
+            }
         } catch (Exception e) {
             throw new NotificationsRepositoryException("Ошибка при добавлении уведомления.", e);
         }
+        hub.publish(notification);
+    }
+
+    @Override
+    public NotificationSubscription subscribe(UUID userId, NotificationListener listener) {
+        return hub.subscribe(userId, listener);
     }
 
     /**
@@ -48,13 +167,8 @@ public class InMemoryNotificationsRepository implements NotificationsRepository
     @Override
     public List<Notification> getUnreadNotificationsForUser(UUID userId) throws NotificationsRepositoryException {
         try {
-            List<Notification> unreadNotifications = new ArrayList<>();
-            for (Notification notification : notificationsStorage.values()) {
-                if (notification.getUserID().equals(userId) && !notification.isRead()) {
-                    unreadNotifications.add(notification);
-                }
-            }
-            return unreadNotifications;
+            UserNotifications buffer = notificationsByUser.get(userId);
+            return buffer == null ? new ArrayList<>() : buffer.select(notification -> !notification.isRead());
         } catch (Exception e) {
             throw new NotificationsRepositoryException("Ошибка при извлечении непрочитанных уведомлений.", e);
         }
@@ -78,6 +192,153 @@ public class InMemoryNotificationsRepository implements NotificationsRepository
             throw new NotificationsRepositoryException("Ошибка при пометке уведомления как прочитанного.", e);
         }
     }
-}
 
+    /**
+     * Возвращает общее число хранимых уведомлений.
+     *
+     * @return число уведомлений.
+     */
+    public int size() {
+        return total.get();
+    }
+
+    /**
+     * Применяет политики хранения: удаляет прочитанные уведомления старше максимального возраста
+     * и вытесняет самые старые уведомления сверх глобального лимита.
+     * Вызывается фоновым уплотнителем, но может быть вызван и напрямую.
+     *
+     * @return число удаленных уведомлений.
+     */
+    public int compact() {
+        LocalDateTime readThreshold = LocalDateTime.now().minus(readMaxAge);
+        int removed = 0;
+
+        for (Map.Entry<UUID, UserNotifications> entry : notificationsByUser.entrySet()) {
+            removed += removeFrom(entry.getValue(), notification -> notification.isRead()
+                    && notification.getCreateDt() != null
+                    && notification.getCreateDt().isBefore(readThreshold));
+        }
+
+        int excess = total.get() - maxTotal;
+        if (excess > 0) {
+            removed += evictOldest(excess, true);
+        }
+        excess = total.get() - maxTotal;
+        if (excess > 0) {
+            removed += evictOldest(excess, false);
+        }
+
+        for (UUID userId : notificationsByUser.keySet()) {
+            notificationsByUser.computeIfPresent(userId, (id, buffer) -> buffer.isEmpty() ? null : buffer);
+        }
+        return removed;
+    }
+
+    /**
+     * Останавливает фоновый уплотнитель.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+    }
 
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ошибка при уплотнении уведомлений", e);
+        }
+    }
+
+    /**
+     * Вытесняет {@code count} самых старых уведомлений (только прочитанных, если {@code readOnly}).
+     */
+    private int evictOldest(int count, boolean readOnly) {
+        Comparator<Notification> byAge = Comparator.comparing(Notification::getCreateDt,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        // Куча с максимумом в вершине хранит count самых старых кандидатов.
+        PriorityQueue<Notification> oldest = new PriorityQueue<>(count, byAge.reversed());
+        for (UserNotifications buffer : notificationsByUser.values()) {
+            for (Notification notification : buffer.select(n -> !readOnly || n.isRead())) {
+                if (oldest.size() < count) {
+                    oldest.add(notification);
+                } else if (byAge.compare(notification, oldest.peek()) < 0) {
+                    oldest.poll();
+                    oldest.add(notification);
+                }
+            }
+        }
+
+        int removed = 0;
+        for (Notification notification : oldest) {
+            UserNotifications buffer = notificationsByUser.get(notification.getUserID());
+            if (buffer != null && buffer.remove(notification)) {
+                forget(notification);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private int removeFrom(UserNotifications buffer, Predicate<Notification> condition) {
+        List<Notification> removed = buffer.removeIf(condition);
+        for (Notification notification : removed) {
+            forget(notification);
+        }
+        return removed.size();
+    }
+
+    private void forget(Notification notification) {
+        if (notificationsStorage.remove(notification.getId()) != null) {
+            total.decrementAndGet();
+        }
+    }
+
+    /**
+     * Кольцевой буфер уведомлений одного пользователя в порядке добавления.
+     */
+    private static final class UserNotifications {
+
+        private final ArrayDeque<Notification> notifications = new ArrayDeque<>();
+
+        /**
+         * Добавляет уведомление и возвращает вытесненное или null.
+         */
+        synchronized Notification add(Notification notification, int limit) {
+            Notification evicted = notifications.size() >= limit ? notifications.pollFirst() : null;
+            notifications.addLast(notification);
+            return evicted;
+        }
+
+        synchronized List<Notification> select(Predicate<Notification> condition) {
+            List<Notification> selected = new ArrayList<>();
+            for (Notification notification : notifications) {
+                if (condition.test(notification)) {
+                    selected.add(notification);
+                }
+            }
+            return selected;
+        }
+
+        synchronized List<Notification> removeIf(Predicate<Notification> condition) {
+            List<Notification> removed = new ArrayList<>();
+            Iterator<Notification> iterator = notifications.iterator();
+            while (iterator.hasNext()) {
+                Notification notification = iterator.next();
+                if (condition.test(notification)) {
+                    iterator.remove();
+                    removed.add(notification);
+                }
+            }
+            return removed;
+        }
+
+        synchronized boolean remove(Notification notification) {
+            return notifications.remove(notification);
+        }
+
+        synchronized boolean isEmpty() {
+            return notifications.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package notificationsrepository.jdbc;
+
+import entity.Notification;
+import entity.Reason;
+import jdbc.ConnectionPool;
+import jdbc.PooledConnection;
+import notificationsrepository.NotificationHub;
+import notificationsrepository.NotificationListener;
+import notificationsrepository.NotificationSubscription;
+import notificationsrepository.NotificationsRepository;
+import notificationsrepository.NotificationsRepositoryException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Реализация репозитория уведомлений поверх JDBC.
+ *
+ * <p>Непрочитанные уведомления пользователя выбираются по индексу (user_id, is_read),
+ * пакетное добавление выполняется одним пакетом в транзакции. Подписчики оповещаются
+ * об уведомлениях, добавленных через этот экземпляр репозитория.</p>
+ */
+public class JdbcNotificationsRepository implements NotificationsRepository {
+
+    private static final String INSERT =
+            "INSERT INTO notifications (id, user_id, message, reason, short_url, create_dt, is_read) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_UNREAD =
+            "SELECT id, user_id, message, reason, short_url, create_dt, is_read FROM notifications WHERE user_id = ? AND is_read = FALSE";
+
+    private static final String MARK_AS_READ =
+            "UPDATE notifications SET is_read = TRUE WHERE id = ?";
+
+    /**
+     * Пул соединений.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Подписчики на новые уведомления.
+     */
+    private final NotificationHub hub = new NotificationHub();
+
+    /**
+     * Создает репозиторий и, при необходимости, таблицу уведомлений с индексом.
+     *
+     * @param pool пул соединений.
+     * @throws NotificationsRepositoryException если не удалось создать схему.
+     */
+    public JdbcNotificationsRepository(ConnectionPool pool) throws NotificationsRepositoryException {
+        this.pool = pool;
+        createSchema();
+    }
+
+    @Override
+    public void addNotification(Notification notification) throws NotificationsRepositoryException {
+        if (notification == null) {
+            throw new NotificationsRepositoryException("Уведомление не может быть null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(INSERT);
+            bindInsert(statement, notification);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new NotificationsRepositoryException("Ошибка при добавлении уведомления.", e);
+        }
+        hub.publish(notification);
+    }
+
+    @Override
+    public void addNotifications(List<Notification> notifications) throws NotificationsRepositoryException {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            Connection raw = connection.connection();
+            try {
+                raw.setAutoCommit(false);
+                PreparedStatement statement = connection.prepare(INSERT);
+                for (Notification notification : notifications) {
+                    bindInsert(statement, notification);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                raw.commit();
+            } catch (SQLException e) {
+                connection.rollbackQuietly();
+                throw e;
+            } finally {
+                connection.restoreAutoCommit();
+            }
+        } catch (SQLException e) {
+            throw new NotificationsRepositoryException("Ошибка при пакетном добавлении уведомлений.", e);
+        }
+        hub.publishAll(notifications);
+    }
+
+    @Override
+    public NotificationSubscription subscribe(UUID userId, NotificationListener listener) {
+        return hub.subscribe(userId, listener);
+    }
+
+    @Override
+    public List<Notification> getUnreadNotificationsForUser(UUID userId) throws NotificationsRepositoryException {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_UNREAD);
+            statement.setString(1, userId.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                List<Notification> unread = new ArrayList<>();
+                while (rs.next()) {
+                    unread.add(readNotification(rs));
+                }
+                return unread;
+            }
+        } catch (SQLException e) {
+            throw new NotificationsRepositoryException("Ошибка при извлечении непрочитанных уведомлений.", e);
+        }
+    }
+
+    @Override
+    public void markNotificationAsRead(UUID notificationId) throws NotificationsRepositoryException {
+        int updated;
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(MARK_AS_READ);
+            statement.setString(1, notificationId.toString());
+            updated = statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new NotificationsRepositoryException("Ошибка при пометке уведомления как прочитанного.", e);
+        }
+        if (updated == 0) {
+            throw new NotificationsRepositoryException("Уведомление с таким ID не найдено.");
+        }
+    }
+
+    /**
+     * Создает таблицу уведомлений и индекс, если они еще не существуют.
+     *
+     * @throws NotificationsRepositoryException если произошла ошибка при выполнении DDL.
+     */
+    private void createSchema() throws NotificationsRepositoryException {
+        try (PooledConnection connection = pool.acquire();
+             Statement statement = connection.connection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS notifications ("
+                    + "id CHAR(36) PRIMARY KEY, "
+                    + "user_id CHAR(36) NOT NULL, "
+                    + "message VARCHAR(4096), "
+                    + "reason VARCHAR(16), "
+                    + "short_url VARCHAR(255), "
+                    + "create_dt TIMESTAMP, "
+                    + "is_read BOOLEAN NOT NULL)");
+            // Таблицы, созданные до появления структурированных уведомлений.
+            statement.execute("ALTER TABLE notifications ADD COLUMN IF NOT EXISTS reason VARCHAR(16)");
+            statement.execute("ALTER TABLE notifications ADD COLUMN IF NOT EXISTS short_url VARCHAR(255)");
+            statement.execute("ALTER TABLE notifications ADD COLUMN IF NOT EXISTS create_dt TIMESTAMP");
+            statement.execute("CREATE INDEX IF NOT EXISTS notifications_user_unread_idx ON notifications (user_id, is_read)");
+        } catch (SQLException e) {
+            throw new NotificationsRepositoryException("Ошибка при создании таблицы уведомлений.", e);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement statement, Notification notification) throws SQLException {
+        statement.setString(1, notification.getId().toString());
+        statement.setString(2, notification.getUserID().toString());
+        statement.setString(3, notification.getRawMessage());
+        statement.setString(4, notification.getReason() == null ? null : notification.getReason().name());
+        statement.setString(5, notification.getShortURL());
+        statement.setTimestamp(6, notification.getCreateDt() == null ? null : Timestamp.valueOf(notification.getCreateDt()));
+        statement.setBoolean(7, notification.isRead());
+    }
+
+    private static Notification readNotification(ResultSet rs) throws SQLException {
+        UUID id = UUID.fromString(rs.getString(1));
+        UUID userId = UUID.fromString(rs.getString(2));
+        String reason = rs.getString(4);
+        Timestamp createDt = rs.getTimestamp(6);
+        LocalDateTime created = createDt == null ? null : createDt.toLocalDateTime();
+        if (reason != null) {
+            return new Notification(id, userId, Reason.valueOf(reason), rs.getString(5), rs.getBoolean(7), created);
+        }
+        return new Notification(id, userId, rs.getString(3), rs.getBoolean(7), created);
+    }
+}
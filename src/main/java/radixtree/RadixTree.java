@@ -0,0 +1,253 @@
+package radixtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Множество строк в виде радикс-дерева (сжатого префиксного дерева).
+ *
+ * <p>Цепочки узлов с единственным потомком сжаты в одно ребро с меткой-строкой, поэтому общий префикс
+ * ключей (например, префикс коротких ссылок) хранится один раз. Проверка, добавление и удаление ключа
+ * проходят по дереву за O(длины ключа), а выборка по префиксу спускается к узлу префикса и обходит
+ * только его поддерево: ключи выдаются в лексикографическом порядке.</p>
+ *
+ * <p>Чтение выполняется под блокировкой чтения, изменения — под блокировкой записи, так что
+ * {@link #add(String)} атомарно проверяет отсутствие ключа и добавляет его.</p>
+ */
+public class RadixTree {
+
+    /**
+     * Узел дерева.
+     */
+    private static final class Node {
+
+        /**
+         * Метка ребра, ведущего в узел.
+         */
+        private String label;
+
+        /**
+         * Заканчивается ли в узле ключ.
+         */
+        private boolean terminal;
+
+        /**
+         * Потомки по первому символу метки ребра.
+         */
+        private final Map<Character, Node> children = new TreeMap<>();
+
+        Node(String label, boolean terminal) {
+            this.label = label;
+            this.terminal = terminal;
+        }
+    }
+
+    private final Node root = new Node("", false);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+
+    /**
+     * Проверяет, есть ли ключ в дереве.
+     *
+     * @param key ключ.
+     * @return true, если ключ добавлен.
+     */
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < key.length()) {
+                Node child = node.children.get(key.charAt(pos));
+                if (child == null || !key.startsWith(child.label, pos)) {
+                    return false;
+                }
+                pos += child.label.length();
+                node = child;
+            }
+            return node.terminal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет ключ, если его еще нет.
+     *
+     * @param key ключ.
+     * @return true, если ключ добавлен; false, если он уже был в дереве.
+     */
+    public boolean add(String key) {
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < key.length()) {
+                char first = key.charAt(pos);
+                Node child = node.children.get(first);
+                if (child == null) {
+                    node.children.put(first, new Node(key.substring(pos), true));
+                    size++;
+                    return true;
+                }
+                int common = commonPrefix(child.label, key, pos);
+                if (common < child.label.length()) {
+                    // Ключ расходится с меткой ребра посередине: ребро делится промежуточным узлом.
+                    Node middle = new Node(child.label.substring(0, common), false);
+                    child.label = child.label.substring(common);
+                    middle.children.put(child.label.charAt(0), child);
+                    node.children.put(first, middle);
+                    child = middle;
+                }
+                pos += common;
+                node = child;
+            }
+            if (node.terminal) {
+                return false;
+            }
+            node.terminal = true;
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет ключ. Узлы, оставшиеся без ключа и с одним потомком, сливаются с потомком.
+     *
+     * @param key ключ.
+     * @return true, если ключ был в дереве.
+     */
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Node parent = null;
+            Node node = root;
+            int pos = 0;
+            while (pos < key.length()) {
+                Node child = node.children.get(key.charAt(pos));
+                if (child == null || !key.startsWith(child.label, pos)) {
+                    return false;
+                }
+                pos += child.label.length();
+                parent = node;
+                node = child;
+            }
+            if (!node.terminal) {
+                return false;
+            }
+            node.terminal = false;
+            size--;
+
+            if (parent != null) {
+                if (node.children.isEmpty()) {
+                    parent.children.remove(node.label.charAt(0));
+                    if (parent != root && !parent.terminal && parent.children.size() == 1) {
+                        merge(parent);
+                    }
+                } else if (node.children.size() == 1) {
+                    merge(node);
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает ключи, начинающиеся с префикса, в лексикографическом порядке.
+     *
+     * @param prefix префикс.
+     * @param limit  максимальное число ключей.
+     * @return найденные ключи.
+     */
+    public List<String> withPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            StringBuilder path = new StringBuilder(prefix.length() + 16);
+            while (pos < prefix.length()) {
+                Node child = node.children.get(prefix.charAt(pos));
+                if (child == null) {
+                    return result;
+                }
+                int common = commonPrefix(child.label, prefix, pos);
+                if (common < child.label.length() && pos + common < prefix.length()) {
+                    return result;
+                }
+                // Префикс может закончиться посреди метки ребра: поддерево узла тогда целиком подходит.
+                path.append(child.label);
+                pos += child.label.length();
+                node = child;
+            }
+            collect(node, path, result, limit);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает число ключей.
+     *
+     * @return число ключей в дереве.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(Node node, StringBuilder path, List<String> result, int limit) {
+        if (node.terminal) {
+            result.add(path.toString());
+            if (result.size() >= limit) {
+                return;
+            }
+        }
+        for (Node child : node.children.values()) {
+            int length = path.length();
+            path.append(child.label);
+            collect(child, path, result, limit);
+            path.setLength(length);
+            if (result.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Сливает узел без ключа с его единственным потомком.
+     */
+    private static void merge(Node node) {
+        Node child = node.children.values().iterator().next();
+        node.label = node.label + child.label;
+        node.terminal = child.terminal;
+        node.children.clear();
+        node.children.putAll(child.children);
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+}
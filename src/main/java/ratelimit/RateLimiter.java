@@ -0,0 +1,204 @@
+package ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты запросов по алгоритму «корзина токенов» с отдельной корзиной на каждый ключ.
+ *
+ * <p>Состояние корзины упаковано в один {@code long}: старшие 40 бит — время последнего пополнения
+ * в миллисекундах от создания ограничителя, младшие 24 бита — запас в тысячных долях токена.
+ * Корзина обновляется одной операцией compare-and-set, поэтому проверка не берет блокировок.
+ * При скорости {@code r} токенов в секунду за каждую миллисекунду добавляется ровно {@code r}
+ * тысячных токена, что позволяет считать пополнение в целых числах.</p>
+ *
+ * <p>Полностью пополнившиеся корзины не отличаются от отсутствующих и периодически удаляются
+ * фоновым потоком. Перед удалением корзина помечается как удаленная; поток, увидевший такую
+ * метку, создает новую корзину, поэтому списание не теряется.</p>
+ *
+ * @param <K> тип ключа (идентификатор пользователя, короткая ссылка и т. п.).
+ */
+public final class RateLimiter<K> implements AutoCloseable {
+
+    /**
+     * Один токен в тысячных долях.
+     */
+    private static final long TOKEN = 1000;
+
+    private static final int TOKENS_BITS = 24;
+
+    private static final long TOKENS_MASK = (1L << TOKENS_BITS) - 1;
+
+    /**
+     * Максимальный размер корзины, при котором запас помещается в 24 бита.
+     */
+    public static final int MAX_BURST = (int) (TOKENS_MASK / TOKEN);
+
+    /**
+     * Период удаления простаивающих корзин по умолчанию.
+     */
+    public static final Duration DEFAULT_EVICTION_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * Метка удаленной корзины; не совпадает ни с одним состоянием, так как время занимает меньше 40 бит.
+     */
+    private static final long EVICTED = -1L;
+
+    private final Map<K, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Пополнение в тысячных долях токена за миллисекунду (равно числу токенов в секунду).
+     */
+    private final long refillPerMilli;
+
+    /**
+     * Емкость корзины в тысячных долях токена.
+     */
+    private final long capacity;
+
+    /**
+     * Время, за которое пустая корзина пополняется полностью.
+     */
+    private final long fullRefillMillis;
+
+    private final long originNanos = System.nanoTime();
+
+    /**
+     * Поток удаления простаивающих корзин.
+     */
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Создает ограничитель и запускает фоновое удаление простаивающих корзин.
+     *
+     * @param permitsPerSecond скорость пополнения корзины, токенов в секунду.
+     * @param burst            емкость корзины: сколько запросов допускается подряд.
+     * @param evictionInterval период удаления простаивающих корзин.
+     */
+    public RateLimiter(int permitsPerSecond, int burst, Duration evictionInterval) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Скорость пополнения должна быть > 0");
+        }
+        if (burst <= 0 || burst > MAX_BURST) {
+            throw new IllegalArgumentException("Емкость корзины должна быть в пределах 1.." + MAX_BURST);
+        }
+        this.refillPerMilli = permitsPerSecond;
+        this.capacity = burst * TOKEN;
+        this.fullRefillMillis = (capacity + refillPerMilli - 1) / refillPerMilli;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = evictionInterval.toMillis();
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Пытается списать один токен из корзины ключа.
+     *
+     * @param key ключ корзины.
+     * @return true, если запрос разрешен; false, если лимит исчерпан.
+     */
+    public boolean tryAcquire(K key) {
+        long now = now();
+        while (true) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                AtomicLong created = new AtomicLong(pack(now, capacity - TOKEN));
+                bucket = buckets.putIfAbsent(key, created);
+                if (bucket == null) {
+                    return true;
+                }
+            }
+
+            while (true) {
+                long state = bucket.get();
+                if (state == EVICTED) {
+                    buckets.remove(key, bucket);
+                    break;
+                }
+                long tokens = refill(state, now);
+                if (tokens < TOKEN) {
+                    return false;
+                }
+                if (bucket.compareAndSet(state, pack(Math.max(now, time(state)), tokens - TOKEN))) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет корзины, которые успели пополниться полностью.
+     * Вызывается фоновым потоком, но может быть вызван и напрямую.
+     *
+     * @return число удаленных корзин.
+     */
+    public int evictIdle() {
+        long now = now();
+        int evicted = 0;
+        for (Map.Entry<K, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long state = bucket.get();
+            if (state != EVICTED && refill(state, now) == capacity && bucket.compareAndSet(state, EVICTED)) {
+                buckets.remove(entry.getKey(), bucket);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Возвращает число хранимых корзин.
+     *
+     * @return число корзин.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Останавливает фоновое удаление корзин.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Возвращает запас корзины на момент {@code now} с учетом пополнения.
+     */
+    private long refill(long state, long now) {
+        long elapsed = now - time(state);
+        if (elapsed <= 0) {
+            return tokens(state);
+        }
+        if (elapsed >= fullRefillMillis) {
+            return capacity;
+        }
+        return Math.min(capacity, tokens(state) + elapsed * refillPerMilli);
+    }
+
+    private long now() {
+        return (System.nanoTime() - originNanos) / 1_000_000;
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKENS_BITS) | tokens;
+    }
+
+    private static long time(long state) {
+        return state >>> TOKENS_BITS;
+    }
+
+    private static long tokens(long state) {
+        return state & TOKENS_MASK;
+    }
+}
@@ -0,0 +1,256 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Цикл событий: поток со своим {@link Selector}, обслуживающий закрепленные за ним соединения.
+ *
+ * <p>Буферы соединений берутся из пулов цикла и возвращаются в них при закрытии, поэтому
+ * в установившемся режиме direct-буферы не выделяются.</p>
+ */
+final class EventLoop {
+
+    private static final Logger LOGGER = Logger.getLogger(EventLoop.class.getName());
+
+    /**
+     * Размер входного буфера соединения; запрос с заголовками большего размера отклоняется.
+     */
+    private static final int INPUT_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Размер выходного буфера соединения.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Сколько свободных буферов каждого вида хранится в пуле.
+     */
+    private static final int MAX_POOLED_BUFFERS = 256;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final RedirectHandler handler;
+    private final EventStreamHandler eventStreamHandler;
+
+    /**
+     * Соединения, переданные циклу другим потоком и еще не зарегистрированные в селекторе.
+     */
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Задачи, переданные циклу другими потоками (например, доставка уведомлений в поток событий).
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final ArrayDeque<ByteBuffer> inputBuffers = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> outputBuffers = new ArrayDeque<>();
+
+    /**
+     * Циклы, между которыми распределяются принятые соединения (только у принимающего цикла).
+     */
+    private EventLoop[] workers;
+
+    private int nextWorker;
+
+    private volatile boolean running = true;
+
+    EventLoop(String name, RedirectHandler handler, EventStreamHandler eventStreamHandler) throws IOException {
+        this.selector = Selector.open();
+        this.handler = handler;
+        this.eventStreamHandler = eventStreamHandler;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Делает цикл принимающим: новые соединения со {@code serverChannel} распределяются по {@code workers}.
+     * Вызывается до {@link #start()}.
+     */
+    void acceptFrom(ServerSocketChannel serverChannel, EventLoop[] workers) throws IOException {
+        this.workers = workers;
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Останавливает цикл и закрывает все его соединения.
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Передает соединение циклу; может вызываться из любого потока.
+     */
+    void assign(SocketChannel channel) {
+        pending.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Выполняет задачу в потоке цикла; может вызываться из любого потока.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    ByteBuffer takeInputBuffer() {
+        ByteBuffer buffer = inputBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(INPUT_BUFFER_SIZE);
+    }
+
+    ByteBuffer takeOutputBuffer() {
+        ByteBuffer buffer = outputBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+    }
+
+    void returnInputBuffer(ByteBuffer buffer) {
+        recycle(buffer, inputBuffers, INPUT_BUFFER_SIZE);
+    }
+
+    void returnOutputBuffer(ByteBuffer buffer) {
+        recycle(buffer, outputBuffers, OUTPUT_BUFFER_SIZE);
+    }
+
+    private static void recycle(ByteBuffer buffer, ArrayDeque<ByteBuffer> pool, int size) {
+        if (buffer.capacity() == size && pool.size() < MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            pool.push(buffer);
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerPending();
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LOGGER.log(Level.SEVERE, "Цикл событий " + thread.getName() + " остановлен", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept((ServerSocketChannel) key.channel());
+            return;
+        }
+
+        HttpConnection connection = (HttpConnection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.onWritable();
+            } else if (key.isReadable()) {
+                connection.onReadable();
+            }
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) {
+        SocketChannel channel;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                EventLoop worker = workers[nextWorker];
+                nextWorker = (nextWorker + 1) % workers.length;
+                if (worker == this) {
+                    register(channel);
+                } else {
+                    worker.assign(channel);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Не удалось принять соединение", e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Ошибка в задаче цикла событий", e);
+            }
+        }
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = pending.poll()) != null) {
+            register(channel);
+        }
+    }
+
+    private void register(SocketChannel channel) {
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new HttpConnection(channel, key, this, handler, eventStreamHandler));
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Соединение уже закрыто.
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof HttpConnection connection) {
+                connection.close();
+            }
+        }
+        SocketChannel channel;
+        while ((channel = pending.poll()) != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Соединение уже закрыто.
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Селектор уже закрыт.
+        }
+    }
+}
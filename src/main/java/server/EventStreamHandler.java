@@ -0,0 +1,123 @@
+package server;
+
+import entity.Notification;
+import notificationsrepository.NotificationSubscription;
+import service.URLShortener;
+import service.URLShortenerException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Обработчик {@code GET /events} с API-ключом в заголовке {@code Authorization: Bearer}:
+ * поток Server-Sent Events с уведомлениями владельца ключа.
+ *
+ * <p>Сначала отправляются накопившиеся непрочитанные уведомления, затем соединение остается открытым
+ * и новые уведомления доставляются по подписке, без опроса репозитория. Доставленные уведомления
+ * помечаются как прочитанные.</p>
+ */
+final class EventStreamHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(EventStreamHandler.class.getName());
+
+    private static final String BEARER = "Bearer ";
+
+    private static final byte[] STREAM_HEADERS = ("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/event-stream; charset=utf-8\r\n"
+            + "Cache-Control: no-cache\r\n"
+            + "Connection: keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Сервис сокращения ссылок.
+     */
+    private final URLShortener shortener;
+
+    EventStreamHandler(URLShortener shortener) {
+        this.shortener = shortener;
+    }
+
+    /**
+     * Открывает поток событий для владельца API-ключа.
+     *
+     * @param authorization значение заголовка {@code Authorization} или null, если заголовка нет.
+     * @param locale        локаль текста уведомлений (из заголовка {@code Accept-Language}).
+     * @param connection    соединение, которое переводится в режим потока.
+     * @return false, если ключ не предъявлен, неверен или отозван.
+     */
+    boolean handleAuthorized(String authorization, Locale locale, HttpConnection connection) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return false;
+        }
+        Optional<UUID> userId;
+        try {
+            userId = shortener.authenticate(authorization.substring(BEARER.length()).trim());
+        } catch (URLShortenerException e) {
+            LOGGER.log(Level.WARNING, "Ошибка при проверке API-ключа", e);
+            return false;
+        }
+        if (userId.isEmpty()) {
+            return false;
+        }
+        open(userId.get(), locale, connection);
+        return true;
+    }
+
+    private void open(UUID userId, Locale locale, HttpConnection connection) {
+        connection.reserve(STREAM_HEADERS.length).put(STREAM_HEADERS);
+
+        // Уведомления из первой выборки могут прийти и по подписке, если добавлены между подпиской и выборкой.
+        Set<UUID> alreadySent = new HashSet<>();
+        NotificationSubscription subscription = shortener.subscribeToNotifications(userId,
+                notification -> connection.execute(() -> {
+                    if (!alreadySent.contains(notification.getId())) {
+                        writeEvent(notification, locale, connection);
+                        markAsRead(notification);
+                    }
+                }));
+        connection.startStreaming(subscription);
+
+        try {
+            for (Notification notification : shortener.takeUnreadNotifications(userId)) {
+                alreadySent.add(notification.getId());
+                writeEvent(notification, locale, connection);
+            }
+        } catch (URLShortenerException e) {
+            writeComment("Ошибка при получении уведомлений: " + e.getMessage(), connection);
+        }
+    }
+
+    private void markAsRead(Notification notification) {
+        try {
+            shortener.markNotificationsAsRead(List.of(notification));
+        } catch (URLShortenerException e) {
+            LOGGER.log(Level.WARNING, "Ошибка при обновлении уведомления", e);
+        }
+    }
+
+    private static void writeEvent(Notification notification, Locale locale, HttpConnection connection) {
+        StringBuilder event = new StringBuilder("id: ").append(notification.getId()).append("\nevent: notification\n");
+        for (String line : notification.getMessage(locale).split("\r?\n", -1)) {
+            event.append("data: ").append(line).append('\n');
+        }
+        event.append('\n');
+        write(event.toString(), connection);
+    }
+
+    private static void writeComment(String comment, HttpConnection connection) {
+        write(": " + comment.replace('\n', ' ') + "\n\n", connection);
+    }
+
+    private static void write(String text, HttpConnection connection) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = connection.reserve(bytes.length);
+        out.put(bytes);
+    }
+}
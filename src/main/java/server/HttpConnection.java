@@ -0,0 +1,403 @@
+package server;
+
+import entity.Notification;
+import notificationsrepository.NotificationSubscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Состояние одного клиентского соединения.
+ *
+ * <p>Запросы разбираются прямо во входном буфере без копирования; ответы на все разобранные
+ * конвейерные запросы накапливаются в выходном буфере и отправляются одной записью.</p>
+ */
+final class HttpConnection {
+
+    /**
+     * Свободное место в выходном буфере, ниже которого разбор следующих запросов откладывается до отправки.
+     */
+    private static final int MIN_OUT_FREE = 16 * 1024;
+
+    /**
+     * Путь потока уведомлений владельца API-ключа из заголовка {@code Authorization}: {@code GET /events}.
+     */
+    private static final String EVENTS_ROOT = "/events";
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final EventLoop loop;
+    private final RedirectHandler handler;
+    private final EventStreamHandler eventStreamHandler;
+
+    /**
+     * Входной буфер в режиме записи: данные лежат в [0, position).
+     */
+    private ByteBuffer in;
+
+    /**
+     * Выходной буфер в режиме записи: неотправленные данные лежат в [0, position).
+     */
+    private ByteBuffer out;
+
+    /**
+     * Позиция, с которой продолжается поиск конца заголовков текущего запроса.
+     */
+    private int scanFrom;
+
+    /**
+     * Закрыть соединение после отправки накопленных ответов.
+     */
+    private boolean closeAfterFlush;
+
+    /**
+     * Подписка потока событий; если не null, соединение передает только события и новые запросы не разбирает.
+     */
+    private NotificationSubscription stream;
+
+    HttpConnection(SocketChannel channel, SelectionKey key, EventLoop loop, RedirectHandler handler,
+                   EventStreamHandler eventStreamHandler) {
+        this.channel = channel;
+        this.key = key;
+        this.loop = loop;
+        this.handler = handler;
+        this.eventStreamHandler = eventStreamHandler;
+        this.in = loop.takeInputBuffer();
+        this.out = loop.takeOutputBuffer();
+    }
+
+    /**
+     * Читает данные из канала, обрабатывает полные запросы и отправляет ответы.
+     */
+    void onReadable() throws IOException {
+        int read = channel.read(in);
+        if (read < 0) {
+            close();
+            return;
+        }
+        if (stream != null) {
+            // В режиме потока событий входящие данные не ожидаются и отбрасываются.
+            in.clear();
+            return;
+        }
+        processRequests();
+        flush();
+    }
+
+    /**
+     * Досылает накопленные ответы и продолжает разбор отложенных конвейерных запросов.
+     */
+    void onWritable() throws IOException {
+        flush();
+        if (out != null && out.position() == 0 && !closeAfterFlush && stream == null) {
+            processRequests();
+            flush();
+        }
+    }
+
+    /**
+     * Возвращает выходной буфер, в котором гарантированно есть {@code bytes} свободных байт.
+     *
+     * @param bytes размер ответа.
+     * @return выходной буфер в режиме записи.
+     */
+    ByteBuffer reserve(int bytes) {
+        if (out.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            bigger.put(out);
+            loop.returnOutputBuffer(out);
+            out = bigger;
+        }
+        return out;
+    }
+
+    /**
+     * Переводит соединение в режим потока событий; подписка закрывается вместе с соединением.
+     *
+     * @param subscription подписка, события которой передаются в соединение.
+     */
+    void startStreaming(NotificationSubscription subscription) {
+        this.stream = subscription;
+    }
+
+    /**
+     * Выполняет задачу в потоке цикла событий соединения и отправляет записанные ею данные.
+     * Может вызываться из любого потока; если соединение к тому времени закрыто, задача не выполняется.
+     *
+     * @param task задача, пишущая в выходной буфер через {@link #reserve(int)}.
+     */
+    void execute(Runnable task) {
+        loop.execute(() -> {
+            if (out == null) {
+                return;
+            }
+            task.run();
+            try {
+                flush();
+            } catch (IOException e) {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Закрывает соединение и возвращает буферы в пул цикла событий.
+     */
+    void close() {
+        if (stream != null) {
+            stream.close();
+        }
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Соединение уже закрыто.
+        }
+        if (in != null) {
+            loop.returnInputBuffer(in);
+            loop.returnOutputBuffer(out);
+            in = null;
+            out = null;
+        }
+    }
+
+    /**
+     * Разбирает и обрабатывает все полные запросы во входном буфере.
+     */
+    private void processRequests() {
+        int start = 0;
+        int end = in.position();
+
+        while (!closeAfterFlush && stream == null && out.remaining() >= MIN_OUT_FREE) {
+            int headersEnd = indexOfHeadersEnd(Math.max(start, scanFrom), end);
+            if (headersEnd < 0) {
+                scanFrom = Math.max(start, end - 3);
+                if (start == 0 && end == in.capacity()) {
+                    handler.handleError(RedirectHandler.Status.TOO_LARGE, this);
+                    closeAfterFlush = true;
+                }
+                break;
+            }
+
+            int consumed = handleRequest(start, headersEnd, end);
+            if (consumed < 0) {
+                break;
+            }
+            start = consumed;
+            scanFrom = start;
+        }
+
+        if (start > 0) {
+            in.limit(end).position(start);
+            in.compact();
+            scanFrom -= start;
+        }
+    }
+
+    /**
+     * Обрабатывает один запрос, заголовки которого заканчиваются перед {@code headersEnd}.
+     *
+     * @return позиция начала следующего запроса или -1, если тело запроса еще не получено целиком.
+     */
+    private int handleRequest(int start, int headersEnd, int end) {
+        int lineEnd = indexOf((byte) '\r', start, headersEnd + 1);
+        int sp1 = indexOf((byte) ' ', start, lineEnd);
+        int sp2 = sp1 < 0 ? -1 : indexOf((byte) ' ', sp1 + 1, lineEnd);
+        if (sp1 < 0 || sp2 < 0 || in.get(sp1 + 1) != '/') {
+            handler.handleError(RedirectHandler.Status.BAD_REQUEST, this);
+            closeAfterFlush = true;
+            return headersEnd + 4;
+        }
+
+        boolean http10 = matches(sp2 + 1, lineEnd, "HTTP/1.0");
+        boolean keepAlive = !http10;
+        boolean explicitKeepAlive = false;
+        long contentLength = 0;
+        int languageStart = -1;
+        int languageEnd = -1;
+        int authorizationStart = -1;
+        int authorizationEnd = -1;
+
+        int lineStart = lineEnd + 2;
+        while (lineStart < headersEnd) {
+            int next = indexOf((byte) '\r', lineStart, headersEnd);
+            if (next < 0) {
+                next = headersEnd;
+            }
+            int colon = indexOf((byte) ':', lineStart, next);
+            if (colon > 0) {
+                int valueStart = colon + 1;
+                while (valueStart < next && in.get(valueStart) == ' ') {
+                    valueStart++;
+                }
+                if (matchesIgnoreCase(lineStart, colon, "connection")) {
+                    if (matchesIgnoreCase(valueStart, next, "close")) {
+                        keepAlive = false;
+                    } else if (matchesIgnoreCase(valueStart, next, "keep-alive")) {
+                        keepAlive = true;
+                        explicitKeepAlive = http10;
+                    }
+                } else if (matchesIgnoreCase(lineStart, colon, "content-length")) {
+                    contentLength = parseLong(valueStart, next);
+                } else if (matchesIgnoreCase(lineStart, colon, "accept-language")) {
+                    languageStart = valueStart;
+                    languageEnd = valueStart;
+                    while (languageEnd < next && isLetter(in.get(languageEnd))) {
+                        languageEnd++;
+                    }
+                } else if (matchesIgnoreCase(lineStart, colon, "authorization")) {
+                    authorizationStart = valueStart;
+                    authorizationEnd = next;
+                    while (authorizationEnd > authorizationStart && in.get(authorizationEnd - 1) == ' ') {
+                        authorizationEnd--;
+                    }
+                }
+            }
+            lineStart = next + 2;
+        }
+
+        if (contentLength < 0) {
+            handler.handleError(RedirectHandler.Status.BAD_REQUEST, this);
+            closeAfterFlush = true;
+            return headersEnd + 4;
+        }
+        long requestEnd = headersEnd + 4L + contentLength;
+        if (requestEnd > end) {
+            if (requestEnd - start > in.capacity()) {
+                handler.handleError(RedirectHandler.Status.TOO_LARGE, this);
+                closeAfterFlush = true;
+                return end;
+            }
+            return -1;
+        }
+
+        if (!matches(start, sp1, "GET")) {
+            handler.handleError(RedirectHandler.Status.METHOD_NOT_ALLOWED, this);
+            closeAfterFlush = true;
+            return (int) requestEnd;
+        }
+
+        int pathEnd = indexOf((byte) '?', sp1 + 2, sp2);
+        if (pathEnd < 0) {
+            pathEnd = sp2;
+        }
+        Locale locale = languageEnd > languageStart
+                ? Locale.forLanguageTag(ascii(languageStart, languageEnd))
+                : Notification.DEFAULT_LOCALE;
+        if (matches(sp1 + 1, pathEnd, EVENTS_ROOT)) {
+            String authorization = authorizationEnd > authorizationStart ? ascii(authorizationStart, authorizationEnd) : null;
+            if (!eventStreamHandler.handleAuthorized(authorization, locale, this)) {
+                handler.handleError(RedirectHandler.Status.UNAUTHORIZED, this);
+                closeAfterFlush = true;
+            }
+            return (int) requestEnd;
+        }
+        handler.handleGet(handler.shortLink(in, sp1 + 2, pathEnd), this, keepAlive, explicitKeepAlive);
+        if (!keepAlive) {
+            closeAfterFlush = true;
+        }
+        return (int) requestEnd;
+    }
+
+    /**
+     * Отправляет накопленные ответы; если канал не принимает все данные, ждет готовности к записи.
+     */
+    private void flush() throws IOException {
+        if (out == null) {
+            return;
+        }
+        if (out.position() > 0) {
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+        if (out.position() > 0) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else if (closeAfterFlush) {
+            close();
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private int indexOfHeadersEnd(int from, int end) {
+        for (int i = from; i + 3 < end; i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private int indexOf(byte b, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (in.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int from, int end, String expected) {
+        if (end - from != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (in.get(from + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesIgnoreCase(int from, int end, String expectedLowerCase) {
+        while (end > from && in.get(end - 1) == ' ') {
+            end--;
+        }
+        if (end - from != expectedLowerCase.length()) {
+            return false;
+        }
+        for (int i = 0; i < expectedLowerCase.length(); i++) {
+            int c = in.get(from + i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != expectedLowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong(int from, int end) {
+        long value = 0;
+        boolean digits = false;
+        for (int i = from; i < end; i++) {
+            byte b = in.get(i);
+            if (b == ' ') {
+                continue;
+            }
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            digits = true;
+        }
+        return digits ? value : -1;
+    }
+
+    private String ascii(int from, int end) {
+        byte[] bytes = new byte[end - from];
+        in.get(from, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,165 @@
+package server;
+
+import entity.Link;
+import service.RateLimitExceededException;
+import service.URLShortener;
+import service.URLShortenerException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Обработчик запроса перенаправления: разрешает код через {@link URLShortener}
+ * и записывает ответ в выходной буфер соединения.
+ *
+ * <p>Разрешение выполняется синхронно в потоке цикла событий, поэтому сервер рассчитан на хранилища
+ * в памяти (в том числе отображенное в память): с базой данных каждый переход задерживал бы все
+ * соединения цикла. Ответ копируется из готовых байтов ссылки без форматирования. Хранилище в памяти
+ * отдает сохраненный объект ссылки вместе с ними, а отображенное в память собирает объект ссылки из записи
+ * при каждом поиске и берет байты ответа из своего кеша длинных URL. Хранилище JDBC такого кеша не имеет
+ * и форматирует ответ на каждый переход.</p>
+ *
+ * <p>На каждый запрос создаются строка короткой ссылки (вместе с массивом, из которого она собрана),
+ * копия ссылки с остатком кликов (байты ответа она разделяет с исходной), {@link Optional} результата
+ * и событие Java Flight Recorder, которое при выключенной записи обычно убирается JIT; с отображенным
+ * хранилищем — еще объект ссылки с ее идентификаторами и датами.</p>
+ */
+final class RedirectHandler {
+
+    private static final byte[] FOUND_TAIL = ascii("Content-Length: 0\r\n");
+    private static final byte[] NOT_FOUND = ascii("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n");
+    private static final byte[] BAD_REQUEST = ascii("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n");
+    private static final byte[] UNAUTHORIZED = ascii("HTTP/1.1 401 Unauthorized\r\nWWW-Authenticate: Bearer\r\nContent-Length: 0\r\n");
+    private static final byte[] METHOD_NOT_ALLOWED = ascii("HTTP/1.1 405 Method Not Allowed\r\nAllow: GET\r\nContent-Length: 0\r\n");
+    private static final byte[] TOO_MANY_REQUESTS = ascii("HTTP/1.1 429 Too Many Requests\r\nRetry-After: 1\r\nContent-Length: 0\r\n");
+    private static final byte[] TOO_LARGE = ascii("HTTP/1.1 431 Request Header Fields Too Large\r\nContent-Length: 0\r\n");
+    private static final byte[] SERVER_ERROR = ascii("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\n");
+    private static final byte[] CONNECTION_CLOSE = ascii("Connection: close\r\n\r\n");
+    private static final byte[] CONNECTION_KEEP_ALIVE = ascii("Connection: keep-alive\r\n\r\n");
+    private static final byte[] END_OF_HEADERS = ascii("\r\n");
+
+    /**
+     * Статусы ответов без тела, которые соединение может запросить у обработчика.
+     */
+    enum Status {
+        BAD_REQUEST, UNAUTHORIZED, METHOD_NOT_ALLOWED, TOO_LARGE
+    }
+
+    /**
+     * Сервис сокращения ссылок.
+     */
+    private final URLShortener shortener;
+
+    /**
+     * Префикс коротких ссылок в ASCII.
+     */
+    private final byte[] shortLinkPrefix;
+
+    RedirectHandler(URLShortener shortener, String shortLinkPrefix) {
+        this.shortener = shortener;
+        this.shortLinkPrefix = ascii(shortLinkPrefix);
+    }
+
+    /**
+     * Собирает короткую ссылку из префикса и кода, лежащего во входном буфере, одним копированием.
+     *
+     * @param in   входной буфер соединения.
+     * @param from начало кода.
+     * @param end  конец кода.
+     * @return короткая ссылка или пустая строка, если код пуст.
+     */
+    String shortLink(ByteBuffer in, int from, int end) {
+        if (from >= end) {
+            return "";
+        }
+        byte[] bytes = new byte[shortLinkPrefix.length + end - from];
+        System.arraycopy(shortLinkPrefix, 0, bytes, 0, shortLinkPrefix.length);
+        in.get(from, bytes, shortLinkPrefix.length, end - from);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Обрабатывает {@code GET /{code}} и пишет ответ в буфер соединения.
+     *
+     * @param shortLink     короткая ссылка из {@link #shortLink(ByteBuffer, int, int)}; пустая, если код пуст.
+     * @param connection    соединение, в выходной буфер которого пишется ответ.
+     * @param keepAlive     оставить ли соединение открытым.
+     * @param explicitKeepAlive нужно ли явно подтвердить keep-alive (HTTP/1.0).
+     */
+    void handleGet(String shortLink, HttpConnection connection, boolean keepAlive, boolean explicitKeepAlive) {
+        Optional<Link> link;
+        try {
+            link = shortLink.isEmpty() ? Optional.empty() : shortener.resolveRedirect(shortLink);
+        } catch (RateLimitExceededException e) {
+            writeSimple(TOO_MANY_REQUESTS, connection, keepAlive, explicitKeepAlive);
+            return;
+        } catch (URLShortenerException e) {
+            writeSimple(SERVER_ERROR, connection, keepAlive, explicitKeepAlive);
+            return;
+        }
+
+        if (link.isEmpty()) {
+            writeSimple(NOT_FOUND, connection, keepAlive, explicitKeepAlive);
+            return;
+        }
+
+        Link found = link.get();
+        int length;
+        try {
+            length = found.getRedirectResponseLength();
+        } catch (IllegalArgumentException e) {
+            writeSimple(SERVER_ERROR, connection, keepAlive, explicitKeepAlive);
+            return;
+        }
+        ByteBuffer out = connection.reserve(length + FOUND_TAIL.length + CONNECTION_KEEP_ALIVE.length);
+        found.writeRedirectResponse(out);
+        out.put(FOUND_TAIL);
+        putConnection(out, keepAlive, explicitKeepAlive);
+    }
+
+    /**
+     * Пишет ответ без тела с заданным статусом.
+     *
+     * @param status     статус ответа.
+     * @param connection соединение.
+     */
+    void handleError(Status status, HttpConnection connection) {
+        byte[] head;
+        switch (status) {
+            case UNAUTHORIZED:
+                head = UNAUTHORIZED;
+                break;
+            case METHOD_NOT_ALLOWED:
+                head = METHOD_NOT_ALLOWED;
+                break;
+            case TOO_LARGE:
+                head = TOO_LARGE;
+                break;
+            default:
+                head = BAD_REQUEST;
+                break;
+        }
+        writeSimple(head, connection, false, false);
+    }
+
+    private static void writeSimple(byte[] head, HttpConnection connection, boolean keepAlive, boolean explicitKeepAlive) {
+        ByteBuffer out = connection.reserve(head.length + CONNECTION_KEEP_ALIVE.length);
+        out.put(head);
+        putConnection(out, keepAlive, explicitKeepAlive);
+    }
+
+    private static void putConnection(ByteBuffer out, boolean keepAlive, boolean explicitKeepAlive) {
+        if (!keepAlive) {
+            out.put(CONNECTION_CLOSE);
+        } else if (explicitKeepAlive) {
+            out.put(CONNECTION_KEEP_ALIVE);
+        } else {
+            out.put(END_OF_HEADERS);
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
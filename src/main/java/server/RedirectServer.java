@@ -0,0 +1,94 @@
+package server;
+
+import service.URLShortener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Неблокирующий HTTP/1.1-сервер перенаправлений по коротким ссылкам.
+ *
+ * <p>Построен на {@link java.nio.channels.Selector}: первый цикл событий принимает соединения
+ * и раздает их всем циклам по кругу, каждый цикл обслуживает свои соединения в собственном потоке.
+ * Запросы {@code GET /{code}} разбираются прямо в переиспользуемых direct-буферах, поддерживаются
+ * keep-alive и конвейерные запросы. По {@code GET /events} с API-ключом в заголовке
+ * {@code Authorization: Bearer} открывается поток Server-Sent Events с уведомлениями владельца ключа.</p>
+ *
+ * <p>Обработчики вызывают {@link URLShortener} синхронно в потоках циклов, поэтому хранилище ссылок
+ * сервиса не должно блокироваться на вводе-выводе: подходят хранилища в памяти и отображенное в память.</p>
+ */
+public final class RedirectServer implements AutoCloseable {
+
+    /**
+     * Циклы событий.
+     */
+    private final EventLoop[] loops;
+
+    /**
+     * Слушающий канал.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Создает и запускает сервер.
+     *
+     * @param address         адрес, на котором принимаются соединения.
+     * @param eventLoops      число потоков-циклов событий.
+     * @param shortener       сервис сокращения ссылок.
+     * @param shortLinkPrefix префикс коротких ссылок; код из пути запроса дописывается к нему.
+     * @throws IOException если не удалось открыть слушающий канал.
+     */
+    public RedirectServer(InetSocketAddress address, int eventLoops, URLShortener shortener, String shortLinkPrefix) throws IOException {
+        if (eventLoops <= 0) {
+            throw new IllegalArgumentException("Число циклов событий должно быть > 0");
+        }
+        RedirectHandler handler = new RedirectHandler(shortener, shortLinkPrefix);
+        EventStreamHandler eventStreamHandler = new EventStreamHandler(shortener);
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+
+        loops = new EventLoop[eventLoops];
+        try {
+            for (int i = 0; i < eventLoops; i++) {
+                loops[i] = new EventLoop("redirect-loop-" + i, handler, eventStreamHandler);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        loops[0].acceptFrom(serverChannel, loops);
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+    }
+
+    /**
+     * Возвращает фактический адрес сервера (полезно при порте 0).
+     *
+     * @return адрес слушающего канала.
+     * @throws IOException если адрес недоступен.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Останавливает циклы событий и закрывает слушающий канал.
+     */
+    @Override
+    public void close() {
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // Сервер уже остановлен.
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ограниченный кеш проверенных API-ключей с вытеснением давно не использованных (LRU) и временем жизни записи.
+ *
+ * <p>Запись хранит секрет ключа, уже сверенный с хешем из репозитория, поэтому повторная проверка того же
+ * ключа сводится к одному поиску в карте и сравнению строк без обращения к репозиторию и вычисления хеша.
+ * Отзыв ключа удаляет его запись; чтобы проверка, начавшаяся до отзыва, не вернула ключ в кеш, запись
+ * добавляется только если с начала проверки не было ни одного отзыва.</p>
+ */
+final class ApiKeyCache {
+
+    /**
+     * Проверенный ключ.
+     */
+    private static final class Entry {
+        private final byte[] secret;
+        private final UUID userId;
+        private final long expiresAt;
+
+        Entry(byte[] secret, UUID userId, long expiresAt) {
+            this.secret = secret;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+
+    /**
+     * Записи в порядке доступа; самая давняя вытесняется при превышении емкости.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Число отзывов ключей; используется, чтобы не кешировать результат проверки, пересекшейся с отзывом.
+     */
+    private long invalidations;
+
+    /**
+     * Создает кеш.
+     *
+     * @param capacity максимальное число записей.
+     * @param ttl      время жизни записи.
+     */
+    ApiKeyCache(int capacity, Duration ttl) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер кеша API-ключей должен быть > 0");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Ищет проверенный ключ.
+     *
+     * @param keyId  идентификатор ключа.
+     * @param secret секрет из предъявленного ключа.
+     * @return идентификатор владельца или null, если ключа нет в кеше, запись устарела или секрет не совпал.
+     */
+    synchronized UUID get(String keyId, String secret) {
+        Entry entry = entries.get(keyId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(keyId);
+            return null;
+        }
+        return MessageDigest.isEqual(entry.secret, secret.getBytes(StandardCharsets.US_ASCII)) ? entry.userId : null;
+    }
+
+    /**
+     * Возвращает отметку, которую нужно передать в {@link #put} после проверки ключа по репозиторию.
+     *
+     * @return текущее число отзывов.
+     */
+    synchronized long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Кеширует ключ, проверенный по репозиторию, если с момента {@code stamp} ключи не отзывались.
+     *
+     * @param keyId  идентификатор ключа.
+     * @param secret проверенный секрет.
+     * @param userId идентификатор владельца.
+     * @param stamp  отметка, полученная из {@link #stamp()} до обращения к репозиторию.
+     */
+    synchronized void put(String keyId, String secret, UUID userId, long stamp) {
+        if (stamp == invalidations) {
+            entries.put(keyId, new Entry(secret.getBytes(StandardCharsets.US_ASCII), userId, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Удаляет запись отозванного ключа.
+     *
+     * @param keyId идентификатор ключа.
+     */
+    synchronized void invalidate(String keyId) {
+        invalidations++;
+        entries.remove(keyId);
+    }
+}
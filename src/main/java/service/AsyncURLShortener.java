@@ -0,0 +1,248 @@
+package service;
+
+import entity.Link;
+import entity.Notification;
+import entity.User;
+import linkrepository.LinkPage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Асинхронный фасад над {@link URLShortener}.
+ *
+ * <p>Каждая операция выполняется сервисом на переданном исполнителе, поэтому поток цикла событий
+ * не блокируется на обращениях к хранилищам. Вся логика — ограничение частоты запросов, буфер кликов,
+ * индекс коротких ссылок, события Java Flight Recorder — остается в {@link URLShortener}; фасад и
+ * синхронные вызовы того же сервиса можно использовать одновременно.</p>
+ *
+ * <p>В отличие от {@link URLShortener}, фасад не хранит текущего пользователя: идентификатор
+ * уже аутентифицированного пользователя передается в каждую операцию, а текущий пользователь сервиса
+ * не меняется.</p>
+ *
+ * <p>При ошибке будущее завершается исключительно с теми же исключениями, что бросает {@link URLShortener}.</p>
+ */
+public final class AsyncURLShortener {
+
+    /**
+     * Операция сервиса, которая может бросить проверяемое исключение.
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Сервис, выполняющий операции.
+     */
+    private final URLShortener shortener;
+
+    /**
+     * Исполнитель операций сервиса.
+     */
+    private final Executor executor;
+
+    /**
+     * Конструктор класса AsyncURLShortener.
+     *
+     * @param shortener сервис сокращения ссылок
+     * @param executor  исполнитель, на котором выполняются блокирующие операции сервиса
+     */
+    public AsyncURLShortener(URLShortener shortener, Executor executor) {
+        this.shortener = shortener;
+        this.executor = executor;
+    }
+
+    /**
+     * Проверяет существование пользователя.
+     *
+     * @param userId UUID пользователя
+     * @return будущее с пользователем
+     */
+    public CompletableFuture<User> login(UUID userId) {
+        return supply(() -> shortener.findUser(userId));
+    }
+
+    /**
+     * Регистрация нового пользователя.
+     *
+     * @param user объект пользователя, которого необходимо зарегистрировать
+     * @return будущее с UUID нового пользователя
+     */
+    public CompletableFuture<UUID> register(User user) {
+        return supply(() -> {
+            shortener.addUser(user);
+            return user.getId();
+        });
+    }
+
+    /**
+     * Проверяет API-ключ и возвращает идентификатор его владельца.
+     *
+     * @param apiKey API-ключ вида {@code <идентификатор>.<секрет>}
+     * @return будущее с идентификатором владельца или пустым {@link Optional}, если ключ неверен или отозван
+     */
+    public CompletableFuture<Optional<UUID>> authenticate(String apiKey) {
+        return supply(() -> shortener.authenticate(apiKey));
+    }
+
+    /**
+     * Создание новой сокращенной ссылки.
+     *
+     * @param userId      идентификатор владельца ссылки
+     * @param longLink    длинная ссылка
+     * @param timeToLive  время жизни ссылки; 0 — максимальное из конфигурации
+     * @param numOfClicks максимальное количество кликов; 0 — значение из конфигурации
+     * @return будущее с созданной ссылкой
+     */
+    public CompletableFuture<Link> createLink(UUID userId, String longLink, Duration timeToLive, int numOfClicks) {
+        return createLink(userId, longLink, timeToLive, numOfClicks, null);
+    }
+
+    /**
+     * Создание новой сокращенной ссылки с собственным псевдонимом.
+     *
+     * @param userId      идентификатор владельца ссылки
+     * @param longLink    длинная ссылка
+     * @param timeToLive  время жизни ссылки; 0 — максимальное из конфигурации
+     * @param numOfClicks максимальное количество кликов; 0 — значение из конфигурации
+     * @param alias       код короткой ссылки; null или пустая строка — код генерируется
+     * @return будущее с созданной ссылкой
+     */
+    public CompletableFuture<Link> createLink(UUID userId, String longLink, Duration timeToLive, int numOfClicks, String alias) {
+        return supply(() -> shortener.createLink(userId, longLink, timeToLive, numOfClicks, alias));
+    }
+
+    /**
+     * Обновляет время жизни ссылки.
+     *
+     * @param userId        идентификатор пользователя
+     * @param shortLink     короткая ссылка
+     * @param newTimeToLive новое время жизни, отсчитываемое от даты создания ссылки
+     * @return будущее с обновленной ссылкой
+     */
+    public CompletableFuture<Link> updateLinkExpiration(UUID userId, String shortLink, Duration newTimeToLive) {
+        return supply(() -> shortener.updateLinkExpiration(userId, shortLink, newTimeToLive));
+    }
+
+    /**
+     * Обновляет максимальное количество кликов для ссылки.
+     *
+     * @param userId       идентификатор пользователя
+     * @param shortLink    короткая ссылка
+     * @param newMaxClicks новое максимальное количество кликов
+     * @return будущее с обновленной ссылкой
+     */
+    public CompletableFuture<Link> updateLinkMaxClicks(UUID userId, String shortLink, int newMaxClicks) {
+        return supply(() -> shortener.updateLinkMaxClicks(userId, shortLink, newMaxClicks));
+    }
+
+    /**
+     * Выполняет переход по короткой ссылке владельца: проверяет ее и списывает один клик.
+     * В отличие от {@link URLShortener#fetchShortLink(String)}, браузер не открывается:
+     * вызывающий получает ссылку и сам выполняет перенаправление.
+     *
+     * @param userId    идентификатор пользователя
+     * @param shortLink короткая ссылка
+     * @return будущее со ссылкой после списания клика
+     */
+    public CompletableFuture<Link> fetchShortLink(UUID userId, String shortLink) {
+        return supply(() -> shortener.fetchShortLink(userId, shortLink));
+    }
+
+    /**
+     * Разрешает короткую ссылку для HTTP-перенаправления и списывает один клик.
+     *
+     * @param shortLink короткая ссылка
+     * @return будущее со ссылкой или пустым {@link Optional}, если ссылка не найдена, истекла или клики закончились
+     * @see URLShortener#resolveRedirect(String)
+     */
+    public CompletableFuture<Optional<Link>> resolveRedirect(String shortLink) {
+        return supply(() -> shortener.resolveRedirect(shortLink));
+    }
+
+    /**
+     * Удаляет ссылку.
+     *
+     * @param userId    идентификатор пользователя
+     * @param shortLink короткая ссылка
+     * @return будущее, завершающееся после удаления
+     */
+    public CompletableFuture<Void> deleteLink(UUID userId, String shortLink) {
+        return supply(() -> {
+            shortener.deleteLink(userId, shortLink);
+            return null;
+        });
+    }
+
+    /**
+     * Удаляет все истекшие ссылки и создает уведомления для их владельцев.
+     *
+     * @return будущее, завершающееся после очистки
+     */
+    public CompletableFuture<Void> deleteExpiredLinks() {
+        return supply(() -> {
+            shortener.deleteExpiredLinks();
+            return null;
+        });
+    }
+
+    /**
+     * Получает все непрочитанные уведомления пользователя и помечает их как прочитанные.
+     *
+     * @param userId идентификатор пользователя
+     * @return будущее со списком уведомлений
+     */
+    public CompletableFuture<List<Notification>> getAllUnreadNotificationsForUser(UUID userId) {
+        if (userId == null) {
+            return CompletableFuture.failedFuture(new UserNotAuthorizedException());
+        }
+        return supply(() -> shortener.takeUnreadNotifications(userId));
+    }
+
+    /**
+     * Возвращает страницу коротких ссылок пользователя в порядке создания.
+     *
+     * @param userId   идентификатор пользователя
+     * @param cursor   курсор предыдущей страницы или null для первой
+     * @param pageSize размер страницы, от 1 до {@link URLShortener#MAX_PAGE_SIZE}
+     * @return будущее со страницей ссылок пользователя
+     */
+    public CompletableFuture<LinkPage> getLinksForUser(UUID userId, String cursor, int pageSize) {
+        return supply(() -> shortener.getLinksForUser(userId, cursor, pageSize));
+    }
+
+    /**
+     * Возвращает все короткие ссылки пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return будущее со ссылками пользователя
+     */
+    public CompletableFuture<List<Link>> getAllLinksForUser(UUID userId) {
+        return supply(() -> shortener.getAllLinksForUser(userId));
+    }
+
+    /**
+     * Выполняет операцию сервиса на {@link #executor}; исключение операции завершает будущее исключительно.
+     */
+    private <T> CompletableFuture<T> supply(Call<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Исполнитель отказался принять задачу, например после остановки.
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,284 @@
+package service;
+
+import entity.Link;
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Отложенная запись счетчиков кликов.
+ *
+ * <p>Остаток кликов каждой ссылки после первого перехода хранится в памяти в атомарном счетчике
+ * и списывается операцией compare-and-set только пока он положителен, поэтому лимит соблюдается
+ * точно, даже если репозиторий отдает каждому читателю свою копию ссылки. Изменившиеся счетчики
+ * периодически записываются в репозиторий одним пакетом {@link LinkRepository#updateClickCounts(List)}:
+ * число записей зависит от числа сбросов, а не от числа кликов. Записывается только счетчик, поэтому
+ * сброс не затирает изменения, сделанные через {@link LinkRepository#updateLink(Link, long)}.</p>
+ *
+ * <p>Счетчики разбиты на сегменты по идентификатору ссылки; у каждого сегмента своя карта и своя
+ * очередь изменившихся счетчиков, так что сброс просматривает только изменившиеся ссылки.
+ * Счетчик живет, пока ссылку не удалят: после удаления его нужно забыть через {@link #forget(UUID)}.
+ * Забытый счетчик еще один-два периода сброса остается в памяти со списанным остатком: иначе
+ * переход, успевший прочитать копию ссылки до удаления, завел бы новый счетчик с ее старым остатком.</p>
+ */
+final class ClickBuffer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ClickBuffer.class.getName());
+
+    /**
+     * Остаток кликов одной ссылки.
+     */
+    private static final class Counter {
+        private final UUID linkId;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        /**
+         * Последний экземпляр ссылки, по которому был клик; по нему находится запись в репозитории.
+         * Экземпляр может принадлежать репозиторию, поэтому буфер его не изменяет.
+         */
+        private volatile Link link;
+
+        Counter(UUID linkId, Link link, int remaining) {
+            this.linkId = linkId;
+            this.link = link;
+            this.remaining = new AtomicInteger(remaining);
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+        private final Queue<Counter> dirty = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Забытые счетчики, удаляемые при следующем сбросе.
+         */
+        private final Queue<Counter> forgotten = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Забытые счетчики, удаляемые при сбросе после следующего.
+         */
+        private final Queue<Counter> recentlyForgotten = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Остаток забытого счетчика: отрицателен, поэтому переходы по удаленной ссылке не разрешаются.
+     */
+    private static final int FORGOTTEN = Integer.MIN_VALUE;
+
+    private final LinkRepository linkRepository;
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    /**
+     * Поток периодического сброса.
+     */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Создает буфер и запускает периодический сброс.
+     *
+     * @param linkRepository репозиторий, в который сбрасываются счетчики.
+     * @param flushInterval  период сброса.
+     */
+    ClickBuffer(LinkRepository linkRepository, Duration flushInterval) {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Период сброса кликов должен быть > 0");
+        }
+        this.linkRepository = linkRepository;
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "click-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Списывает один клик ссылки. При первом обращении остаток берется из переданной ссылки.
+     *
+     * @param link ссылка, по которой выполняется переход.
+     * @return остаток кликов после списания или -1, если клики уже закончились и переход не разрешен.
+     */
+    int consume(Link link) {
+        Counter counter = counter(link);
+        if (counter.link != link) {
+            counter.link = link;
+        }
+        while (true) {
+            int remaining = counter.remaining.get();
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (counter.remaining.compareAndSet(remaining, remaining - 1)) {
+                markDirty(stripe(link.getId()), counter);
+                return remaining - 1;
+            }
+        }
+    }
+
+    /**
+     * Устанавливает новый остаток кликов ссылки.
+     *
+     * @param link   ссылка.
+     * @param clicks новый остаток.
+     */
+    void set(Link link, int clicks) {
+        Counter counter = counter(link);
+        counter.link = link;
+        counter.remaining.set(clicks);
+        markDirty(stripe(link.getId()), counter);
+    }
+
+    /**
+     * Помечает счетчик ссылки изменившимся, если он есть, чтобы следующий сброс снова записал остаток.
+     * Нужно после обновления ссылки целиком: оно могло записать остаток, прочитанный до последних кликов.
+     *
+     * @param linkId идентификатор ссылки.
+     */
+    void touch(UUID linkId) {
+        Stripe stripe = stripe(linkId);
+        Counter counter = stripe.counters.get(linkId);
+        if (counter != null && counter.remaining.get() != FORGOTTEN) {
+            markDirty(stripe, counter);
+        }
+    }
+
+    /**
+     * Возвращает остаток кликов ссылки, если по ней уже были клики.
+     *
+     * @param linkId идентификатор ссылки.
+     * @return остаток или -1, если счетчика нет и актуален остаток из репозитория.
+     */
+    int remaining(UUID linkId) {
+        Counter counter = stripe(linkId).counters.get(linkId);
+        return counter == null ? -1 : Math.max(counter.remaining.get(), 0);
+    }
+
+    /**
+     * Забывает счетчик удаленной ссылки: переходы по ней больше не разрешаются, а остаток не записывается.
+     *
+     * @param linkId идентификатор ссылки.
+     */
+    void forget(UUID linkId) {
+        Stripe stripe = stripe(linkId);
+        Counter created = new Counter(linkId, null, FORGOTTEN);
+        Counter counter = stripe.counters.putIfAbsent(linkId, created);
+        if (counter == null) {
+            stripe.recentlyForgotten.add(created);
+        } else if (counter.remaining.getAndSet(FORGOTTEN) != FORGOTTEN) {
+            stripe.recentlyForgotten.add(counter);
+        }
+    }
+
+    /**
+     * Записывает изменившиеся счетчики в репозиторий одним пакетом.
+     * При ошибке счетчики остаются помеченными и будут записаны при следующем сбросе.
+     *
+     * @return число записанных ссылок.
+     * @throws LinkRepositoryException если запись не удалась.
+     */
+    int flush() throws LinkRepositoryException {
+        List<Counter> flushed = new ArrayList<>();
+        List<Link> batch = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            Counter counter;
+            while ((counter = stripe.forgotten.poll()) != null) {
+                stripe.counters.remove(counter.linkId, counter);
+            }
+            while ((counter = stripe.recentlyForgotten.poll()) != null) {
+                stripe.forgotten.add(counter);
+            }
+
+            while ((counter = stripe.dirty.poll()) != null) {
+                // Пометка снимается до чтения остатка: клик после чтения снова поставит счетчик в очередь.
+                counter.dirty.set(false);
+                int remaining = counter.remaining.get();
+                if (remaining == FORGOTTEN) {
+                    continue;
+                }
+                // Копия: в пакет попадает только новый остаток, а экземпляр из репозитория не меняется вне его блокировок.
+                Link link = new Link(counter.link);
+                link.setClickCount(remaining);
+                flushed.add(counter);
+                batch.add(link);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            linkRepository.updateClickCounts(batch);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            for (Counter counter : flushed) {
+                markDirty(stripe(counter.linkId), counter);
+            }
+            throw e;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Останавливает периодический сброс и записывает оставшиеся изменения.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (LinkRepositoryException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ошибка при записи счетчиков кликов", e);
+        }
+    }
+
+    private Counter counter(Link link) {
+        Stripe stripe = stripe(link.getId());
+        Counter counter = stripe.counters.get(link.getId());
+        return counter != null ? counter : stripe.counters.computeIfAbsent(link.getId(), id -> new Counter(id, link, link.getClickCount()));
+    }
+
+    private static void markDirty(Stripe stripe, Counter counter) {
+        if (!counter.dirty.get() && counter.dirty.compareAndSet(false, true)) {
+            stripe.dirty.add(counter);
+        }
+    }
+
+    private Stripe stripe(UUID linkId) {
+        int h = linkId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
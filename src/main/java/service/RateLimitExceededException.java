@@ -0,0 +1,19 @@
+package service;
+
+/**
+ * Исключение, которое выбрасывается, когда превышен лимит частоты запросов пользователя или переходов по ссылке.
+ */
+public class RateLimitExceededException extends URLShortenerException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Конструктор, который создает исключение с сообщением.
+     *
+     * @param message сообщение об ошибке.
+     */
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+
+}
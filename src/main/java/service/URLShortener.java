@@ -1,12 +1,26 @@
 package service;
 
+import entity.ApiKey;
 import entity.Link;
 import entity.Notification;
+import entity.Reason;
 import entity.User;
+import heavyhitters.HeavyHitter;
+import heavyhitters.HeavyHitterTracker;
+import jfr.CreateLinkEvent;
+import jfr.FetchShortLinkEvent;
+import jfr.Outcome;
+import jfr.SweepEvent;
+import linkrepository.LinkPage;
 import linkrepository.LinkRepository;
 import linkrepository.LinkRepositoryException;
+import linkrepository.UncheckedLinkRepositoryException;
+import notificationsrepository.NotificationListener;
+import notificationsrepository.NotificationSubscription;
 import notificationsrepository.NotificationsRepository;
 import notificationsrepository.NotificationsRepositoryException;
+import radixtree.RadixTree;
+import ratelimit.RateLimiter;
 import urlgenerator.URLGenerator;
 import userrepository.UserRepository;
 import userrepository.UserRepositoryException;
@@ -18,20 +32,76 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Duration;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Класс, реализующий логику работы с сервисом сокращения ссылок.
  * Он обеспечивает функционал для логина пользователя, регистрации нового пользователя,
  * создания новых сокращенных ссылок и работы с репозиториями.
  */
-public class URLShortener {
+public class URLShortener implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(URLShortener.class.getName());
+
+    /**
+     * Число случайных байт идентификатора API-ключа.
+     */
+    private static final int API_KEY_ID_BYTES = 9;
+
+    /**
+     * Число случайных байт секрета API-ключа.
+     */
+    private static final int API_KEY_SECRET_BYTES = 32;
+
+    /**
+     * Источник случайности для API-ключей.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Максимальный размер страницы ссылок.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Допустимый псевдоним: от 3 до 64 латинских букв, цифр, дефисов и подчеркиваний.
+     * Хранилище может сузить этот формат, см. {@link LinkRepository#supportsShortUrl(String)}.
+     */
+    private static final Pattern ALIAS = Pattern.compile("[A-Za-z0-9_-]{3,64}");
+
+    /**
+     * Псевдонимы, совпадающие с путями HTTP-сервера.
+     */
+    private static final Set<String> RESERVED_ALIASES = Set.of("events");
+
+    /**
+     * Число попыток записать изменение ссылки, если ее одновременно изменяют другие запросы.
+     */
+    private static final int UPDATE_RETRIES = 5;
+
     /**
      * Репозиторий ссылок.
      */
@@ -62,9 +132,58 @@ public class URLShortener {
      */
     private URLGenerator generator;
 
+    /**
+     * Исполнитель событий исчерпания кликов: удаляет ссылку и уведомляет владельца вне потока перехода.
+     */
+    private final Executor linkEvents;
+
+    /**
+     * Кеш проверенных API-ключей.
+     */
+    private final ApiKeyCache apiKeyCache;
+
+    /**
+     * Ограничитель операций по идентификатору пользователя; null, если операции не ограничиваются.
+     */
+    private final RateLimiter<UUID> userRateLimiter;
+
+    /**
+     * Ограничитель переходов по короткой ссылке; null, если переходы не ограничиваются.
+     */
+    private final RateLimiter<String> linkRateLimiter;
+
+    /**
+     * Трекер самых посещаемых коротких ссылок; null, если посещаемость не отслеживается.
+     */
+    private final HeavyHitterTracker hotLinks;
+
+    /**
+     * Остатки кликов с отложенной записью в репозиторий.
+     */
+    private final ClickBuffer clicks;
+
+    /**
+     * Пул параллельной очистки истекших ссылок; null, если очистка последовательная.
+     */
+    private final ForkJoinPool sweepPool;
+
+    /**
+     * Индекс занятых коротких ссылок, сгенерированных и собственных; загружается при первом создании ссылки.
+     *
+     * <p>Индекс хранится в куче, по узлу на каждую ссылку хранилища, и загружается одним полным обходом
+     * {@link LinkRepository#stream()}. Для больших хранилищ, особенно отображенного в память, это заметная
+     * цена памяти и времени первого создания ссылки. Индекс видит только ссылки, созданные и удаленные через
+     * этот экземпляр сервиса: при общем хранилище он лишь подсказка, а перед сохранением короткая ссылка
+     * все равно проверяется в репозитории.</p>
+     */
+    private final RadixTree shortLinks = new RadixTree();
+
+    private volatile boolean shortLinksLoaded;
+
     /**
      * Конструктор класса URLShortener.
      * Инициализирует все зависимости, включая репозитории и конфигурацию.
+     * События исчерпания кликов обрабатываются в отдельном фоновом потоке.
      *
      * @param linkRepository Репозиторий для работы с короткими ссылками
      * @param userRepository Репозиторий для работы с пользователями
@@ -73,11 +192,40 @@ public class URLShortener {
      * @param config Конфигурация для сервиса сокращения ссылок
      */
     public URLShortener(LinkRepository linkRepository, UserRepository userRepository, NotificationsRepository notificationsRepository , URLGenerator generator, URLShortenerConfig config) {
+        this(linkRepository, userRepository, notificationsRepository, generator, config, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "link-exhaustion");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Конструктор класса URLShortener с заданным исполнителем событий исчерпания кликов.
+     *
+     * @param linkRepository Репозиторий для работы с короткими ссылками
+     * @param userRepository Репозиторий для работы с пользователями
+     * @param notificationsRepository Репозиторий для работы с уведомлениями
+     * @param generator Сервис для генерации коротких ссылок
+     * @param config Конфигурация для сервиса сокращения ссылок
+     * @param linkEvents Исполнитель, в котором удаляются ссылки с исчерпанными кликами
+     */
+    public URLShortener(LinkRepository linkRepository, UserRepository userRepository, NotificationsRepository notificationsRepository, URLGenerator generator, URLShortenerConfig config, Executor linkEvents) {
         this.linkRepository = linkRepository;
         this.userRepository = userRepository;
         this.notificationsRepository = notificationsRepository;
         this.generator = generator;
         this.config = config;
+        this.linkEvents = linkEvents;
+        this.apiKeyCache = new ApiKeyCache(config.getApiKeyCacheSize(), config.getApiKeyCacheTTL());
+        this.userRateLimiter = config.getUserRateLimit() > 0
+                ? new RateLimiter<>(config.getUserRateLimit(), config.getUserRateBurst(), RateLimiter.DEFAULT_EVICTION_INTERVAL)
+                : null;
+        this.linkRateLimiter = config.getLinkRateLimit() > 0
+                ? new RateLimiter<>(config.getLinkRateLimit(), config.getLinkRateBurst(), RateLimiter.DEFAULT_EVICTION_INTERVAL)
+                : null;
+        this.hotLinks = config.getHotLinks() > 0 ? new HeavyHitterTracker(config.getHotLinks()) : null;
+        this.clicks = new ClickBuffer(linkRepository, config.getClickFlushInterval());
+        this.sweepPool = config.getSweepParallelism() > 1 ? new ForkJoinPool(config.getSweepParallelism()) : null;
     }
 
     /**
@@ -88,6 +236,17 @@ public class URLShortener {
      * @throws URLShortenerException Если пользователь не найден или произошла ошибка при проверке
      */
     public void login(UUID userId) throws URLShortenerException {
+        currentUser = findUser(userId);
+    }
+
+    /**
+     * Находит пользователя, не меняя текущего.
+     *
+     * @param userId UUID пользователя
+     * @return пользователь
+     * @throws URLShortenerException Если пользователь не найден или произошла ошибка при проверке
+     */
+    User findUser(UUID userId) throws URLShortenerException {
         try {
             Optional<User> user = userRepository.getUser(userId);
 
@@ -95,13 +254,120 @@ public class URLShortener {
                 throw new URLShortenerException("User not found");
             }
 
-            currentUser = user.get();
+            return user.get();
         }
         catch (UserRepositoryException e) {
             throw new URLShortenerException("Ошибка при проверке существования пользователя: " + e.getMessage(),e);
         }
     }
 
+    /**
+     * Логин пользователя по API-ключу.
+     *
+     * @param apiKey API-ключ вида {@code <идентификатор>.<секрет>}
+     * @return UUID пользователя, которому принадлежит ключ
+     * @throws URLShortenerException Если ключ неверен, отозван или произошла ошибка при проверке
+     */
+    public UUID loginWithApiKey(String apiKey) throws URLShortenerException {
+        Optional<UUID> userId = authenticate(apiKey);
+        if (userId.isEmpty()) {
+            throw new URLShortenerException("Неверный или отозванный API-ключ");
+        }
+        currentUser = new User(userId.get());
+        return userId.get();
+    }
+
+    /**
+     * Проверяет API-ключ и возвращает идентификатор его владельца.
+     * Недавно проверенные ключи берутся из кеша, поэтому повторная проверка не обращается к репозиторию.
+     * Метод не меняет текущего пользователя и может вызываться из любого потока.
+     *
+     * @param apiKey API-ключ вида {@code <идентификатор>.<секрет>}
+     * @return идентификатор владельца или пустой {@link Optional}, если ключ неверен или отозван
+     * @throws URLShortenerException Если произошла ошибка при обращении к репозиторию пользователей
+     */
+    public Optional<UUID> authenticate(String apiKey) throws URLShortenerException {
+        int dot = apiKey == null ? -1 : apiKey.indexOf('.');
+        if (dot <= 0 || dot == apiKey.length() - 1) {
+            return Optional.empty();
+        }
+        String keyId = apiKey.substring(0, dot);
+        String secret = apiKey.substring(dot + 1);
+
+        UUID cached = apiKeyCache.get(keyId, secret);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long stamp = apiKeyCache.stamp();
+        try {
+            Optional<ApiKey> stored = userRepository.getApiKey(keyId);
+            if (stored.isEmpty() || !MessageDigest.isEqual(
+                    stored.get().getSecretHash().getBytes(StandardCharsets.US_ASCII),
+                    sha256Hex(secret).getBytes(StandardCharsets.US_ASCII))) {
+                return Optional.empty();
+            }
+            UUID userId = stored.get().getUserID();
+            apiKeyCache.put(keyId, secret, userId, stamp);
+            return Optional.of(userId);
+        } catch (UserRepositoryException e) {
+            throw new URLShortenerException("Ошибка при проверке API-ключа: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Выпускает новый API-ключ для текущего пользователя.
+     * Ключ возвращается только один раз: в репозитории сохраняется лишь хеш его секрета.
+     *
+     * @return API-ключ вида {@code <идентификатор>.<секрет>}
+     * @throws UserNotAuthorizedException Если пользователь не авторизован
+     * @throws URLShortenerException Если произошла ошибка при сохранении ключа
+     */
+    public String createApiKey() throws UserNotAuthorizedException, URLShortenerException {
+        if (currentUser == null) {
+            throw new UserNotAuthorizedException();
+        }
+        String keyId = randomToken(API_KEY_ID_BYTES);
+        String secret = randomToken(API_KEY_SECRET_BYTES);
+        try {
+            userRepository.addApiKey(new ApiKey(keyId, currentUser.getId(), sha256Hex(secret), LocalDateTime.now()));
+        } catch (UserRepositoryException e) {
+            throw new URLShortenerException("Ошибка при создании API-ключа: " + e.getMessage(), e);
+        }
+        return keyId + "." + secret;
+    }
+
+    /**
+     * Отзывает API-ключ текущего пользователя. Отозванный ключ сразу перестает проходить проверку,
+     * в том числе если он уже был в кеше.
+     *
+     * @param apiKey API-ключ или его идентификатор (часть до точки)
+     * @throws UserNotAuthorizedException Если пользователь не авторизован
+     * @throws URLShortenerException Если ключ не найден, принадлежит другому пользователю или произошла ошибка при удалении
+     */
+    public void revokeApiKey(String apiKey) throws UserNotAuthorizedException, URLShortenerException {
+        if (currentUser == null) {
+            throw new UserNotAuthorizedException();
+        }
+        int dot = apiKey.indexOf('.');
+        String keyId = dot < 0 ? apiKey : apiKey.substring(0, dot);
+        try {
+            Optional<ApiKey> stored = userRepository.getApiKey(keyId);
+            if (stored.isEmpty()) {
+                throw new URLShortenerException("API-ключ не найден");
+            }
+            if (!stored.get().getUserID().equals(currentUser.getId())) {
+                throw new URLShortenerException("Этот API-ключ не принадлежит текущему пользователю");
+            }
+            userRepository.deleteApiKey(keyId);
+        } catch (UserRepositoryException e) {
+            throw new URLShortenerException("Ошибка при отзыве API-ключа: " + e.getMessage(), e);
+        } finally {
+            // Сбрасываем кеш после удаления из репозитория, иначе параллельная проверка могла бы вернуть ключ в кеш.
+            apiKeyCache.invalidate(keyId);
+        }
+    }
+
     /**
      * Регистрация нового пользователя.
      * Добавляет нового пользователя в репозиторий и устанавливает его как текущего.
@@ -111,10 +377,20 @@ public class URLShortener {
      * @throws URLShortenerException Если произошла ошибка при добавлении пользователя
      */
     public UUID register(User user) throws URLShortenerException {
+        addUser(user);
+        currentUser = user;
+        return user.getId();
+    }
+
+    /**
+     * Добавляет пользователя в репозиторий, не меняя текущего.
+     *
+     * @param user Объект пользователя, которого необходимо зарегистрировать
+     * @throws URLShortenerException Если произошла ошибка при добавлении пользователя
+     */
+    void addUser(User user) throws URLShortenerException {
         try {
             userRepository.addUser(user);
-            currentUser = user;
-            return user.getId();
         }
         catch (UserRepositoryException e) {
             throw new URLShortenerException("Ошибка при добавлении пользователя: "+e.getMessage(),e);
@@ -133,18 +409,85 @@ public class URLShortener {
      * @throws URLShortenerException Если не удалось создать ссылку или произошла ошибка при взаимодействии с репозиториями
      */
     public Link createLink(String longLink, Duration timeToLive, int numOfClicks) throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+        return createLink(longLink, timeToLive, numOfClicks, null);
+    }
+
+    /**
+     * Создание новой сокращенной ссылки с собственным псевдонимом, например {@code spring-sale}.
+     * Псевдоним занимается атомарно: из двух одновременных запросов одного псевдонима успешен только один.
+     *
+     * @param longLink Длинная ссылка, для которой создается сокращенная версия
+     * @param timeToLive Время жизни ссылки в формате Duration
+     * @param numOfClicks Максимальное количество кликов по ссылке
+     * @param alias Код короткой ссылки; null или пустая строка — код генерируется
+     * @return Сокращенная ссылка в виде объекта Link
+     * @throws UserNotAuthorizedException Если пользователь не авторизован
+     * @throws URLShortenerException Если псевдоним некорректен или занят, не удалось создать ссылку
+     *                               или произошла ошибка при взаимодействии с репозиториями
+     */
+    public Link createLink(String longLink, Duration timeToLive, int numOfClicks, String alias) throws UserNotAuthorizedException, URLShortenerException {
+        return createLink(currentUserId(), longLink, timeToLive, numOfClicks, alias);
+    }
+
+    /**
+     * Создание новой сокращенной ссылки от имени пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор владельца ссылки; null — пользователь не авторизован
+     * @see #createLink(String, Duration, int, String)
+     */
+    Link createLink(UUID userId, String longLink, Duration timeToLive, int numOfClicks, String alias) throws UserNotAuthorizedException, URLShortenerException {
+        CreateLinkEvent event = new CreateLinkEvent();
+        event.begin();
+        try {
+            Link link = createLink(userId, longLink, timeToLive, numOfClicks, alias, event);
+            event.setShortLink(link.getShortURL());
+            event.setLinksScanned(1);
+            return link;
+        } catch (RateLimitExceededException e) {
+            event.setOutcome(Outcome.RATE_LIMITED);
+            throw e;
+        } catch (UserNotAuthorizedException e) {
+            event.setOutcome(Outcome.REJECTED);
+            throw e;
+        } catch (URLShortenerException | RuntimeException e) {
+            event.fail(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Создает ссылку, записывая в событие повторы генерации и исход отказа.
+     */
+    private Link createLink(UUID userId, String longLink, Duration timeToLive, int numOfClicks, String alias, CreateLinkEvent event) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        checkUserRate(userId);
 
         if (timeToLive.compareTo(config.getMaxLinkTTL()) > 0) {
+            event.setOutcome(Outcome.REJECTED);
             throw new URLShortenerException("Время жизни ссылки не может превышать максимальное значение: " + config.getMaxLinkTTL().toSeconds() + " c.");
         }
 
         if (numOfClicks < 0) {
+            event.setOutcome(Outcome.REJECTED);
             throw new URLShortenerException("Число кликов не может быть < 0");
         }
 
+        URI uri;
+        try {
+            uri = new URI(longLink);
+        } catch (URISyntaxException e) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Некорректная ссылка: " + e.getMessage(), e);
+        }
+        if (!uri.isAbsolute()) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Ссылка должна быть абсолютной, например https://example.com");
+        }
+
         if (timeToLive.toSeconds() == 0) {
             timeToLive = config.getMaxLinkTTL();
         }
@@ -153,6 +496,10 @@ public class URLShortener {
             numOfClicks = config.getMaxLinkClicks();
         }
 
+        ensureShortLinksLoaded();
+        if (alias != null && !alias.isEmpty()) {
+            return saveAliasLink(userId, longLink, uri, timeToLive, numOfClicks, alias, event);
+        }
 
         int retries = 3;
         String shortLink = null;
@@ -162,13 +509,18 @@ public class URLShortener {
             shortLink = generator.generateShortLink();
 
             try {
-                Optional<Link> existingLink = linkRepository.getLinkByShortUrl(shortLink);
+                // Код занимается в индексе до проверки репозитория: так сгенерированная ссылка
+                // не совпадет с одновременно создаваемым псевдонимом.
+                boolean reserved = shortLinks.add(shortLink);
+                Optional<Link> existingLink = reserved ? findReserved(shortLink) : Optional.empty();
 
-                if (existingLink.isPresent()) {
+                if (!reserved || existingLink.isPresent()) {
                     retries--;
                     if (retries == 0) {
+                        event.setOutcome(Outcome.CONFLICT);
                         throw new URLShortenerException("Не удалось сгенерировать уникальную короткую ссылку после нескольких попыток.");
                     }
+                    event.addRetry();
                     continue;
                 }
 
@@ -177,13 +529,14 @@ public class URLShortener {
                         UUID.randomUUID(),
                         longLink,
                         shortLink,
-                        currentUser.getId(),
+                        userId,
                         numOfClicks,
                         now.plus(timeToLive),
                         now
                 );
+                link.setURI(uri);
 
-                linkRepository.saveLink(link);
+                saveReserved(link);
                 return link;
             }
             catch (LinkRepositoryException e) {
@@ -194,6 +547,105 @@ public class URLShortener {
         throw new URLShortenerException("Не удалось создать ссылку после нескольких попыток.");
     }
 
+    /**
+     * Проверяет, свободен ли псевдоним.
+     *
+     * @param alias псевдоним.
+     * @return true, если псевдоним допустим и не занят.
+     * @throws URLShortenerException если не удалось загрузить занятые короткие ссылки.
+     */
+    public boolean isAliasAvailable(String alias) throws URLShortenerException {
+        if (alias == null || !ALIAS.matcher(alias).matches() || RESERVED_ALIASES.contains(alias.toLowerCase())) {
+            return false;
+        }
+        String shortLink = generator.shortLinkFor(alias);
+        if (!linkRepository.supportsShortUrl(shortLink)) {
+            return false;
+        }
+        ensureShortLinksLoaded();
+        return !shortLinks.contains(shortLink);
+    }
+
+    /**
+     * Возвращает занятые короткие ссылки, код которых начинается с префикса, например все псевдонимы
+     * {@code promo-}. Ответ строится по индексу коротких ссылок без обхода хранилища.
+     *
+     * @param codePrefix начало кода короткой ссылки.
+     * @param limit      максимальное число ссылок.
+     * @return короткие ссылки в лексикографическом порядке.
+     * @throws URLShortenerException если не удалось загрузить занятые короткие ссылки.
+     */
+    public List<String> findShortLinksByPrefix(String codePrefix, int limit) throws URLShortenerException {
+        ensureShortLinksLoaded();
+        return shortLinks.withPrefix(generator.shortLinkFor(codePrefix), limit);
+    }
+
+    private Link saveAliasLink(UUID userId, String longLink, URI uri, Duration timeToLive, int numOfClicks, String alias, CreateLinkEvent event) throws URLShortenerException {
+        if (!ALIAS.matcher(alias).matches()) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Псевдоним должен состоять из 3–64 латинских букв, цифр, символов - и _");
+        }
+        if (RESERVED_ALIASES.contains(alias.toLowerCase())) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Псевдоним " + alias + " зарезервирован.");
+        }
+
+        String shortLink;
+        try {
+            shortLink = generator.shortLinkFor(alias);
+        } catch (UnsupportedOperationException e) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Собственные псевдонимы не поддерживаются генератором ссылок.", e);
+        }
+        if (!linkRepository.supportsShortUrl(shortLink)) {
+            event.setOutcome(Outcome.REJECTED);
+            throw new URLShortenerException("Псевдоним " + alias + " не поддерживается хранилищем ссылок.");
+        }
+        if (!shortLinks.add(shortLink)) {
+            event.setOutcome(Outcome.CONFLICT);
+            throw new URLShortenerException("Псевдоним " + alias + " уже занят.");
+        }
+
+        try {
+            // Ссылку могли создать в обход индекса (например, другой экземпляр сервиса с общей базой).
+            if (findReserved(shortLink).isPresent()) {
+                event.setOutcome(Outcome.CONFLICT);
+                throw new URLShortenerException("Псевдоним " + alias + " уже занят.");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Link link = new Link(UUID.randomUUID(), longLink, shortLink, userId, numOfClicks, now.plus(timeToLive), now);
+            link.setURI(uri);
+            saveReserved(link);
+            return link;
+        } catch (LinkRepositoryException e) {
+            throw new URLShortenerException("Ошибка при добавлении ссылки: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ищет в репозитории ссылку с короткой ссылкой, только что занятой в индексе; при ошибке освобождает ее.
+     */
+    private Optional<Link> findReserved(String shortLink) throws LinkRepositoryException {
+        try {
+            return linkRepository.getLinkByShortUrl(shortLink);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            shortLinks.remove(shortLink);
+            throw e;
+        }
+    }
+
+    /**
+     * Сохраняет ссылку, короткая ссылка которой уже занята в индексе; при ошибке освобождает ее.
+     */
+    private void saveReserved(Link link) throws LinkRepositoryException {
+        try {
+            linkRepository.saveLink(link);
+        } catch (LinkRepositoryException | RuntimeException e) {
+            shortLinks.remove(link.getShortURL());
+            throw e;
+        }
+    }
+
     /**
      * Обновляет время жизни ссылки.
      *
@@ -207,37 +659,58 @@ public class URLShortener {
      *             <li>ссылка не найдена,</li>
      *             <li>пользователь не является владельцем ссылки,</li>
      *             <li>время жизни превышает максимально допустимое значение из конфигурации,</li>
+     *             <li>ссылку не удалось обновить за {@value #UPDATE_RETRIES} попыток из-за одновременных изменений,</li>
      *             <li>или произошла ошибка при сохранении изменений в репозитории.</li>
      *         </ul>
      */
     public Link updateLinkExpiration(String shortLink, Duration newTimeToLive) throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+        return updateLinkExpiration(currentUserId(), shortLink, newTimeToLive);
+    }
+
+    /**
+     * Обновляет время жизни ссылки от имени пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @see #updateLinkExpiration(String, Duration)
+     */
+    Link updateLinkExpiration(UUID userId, String shortLink, Duration newTimeToLive) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        checkUserRate(userId);
 
         if (newTimeToLive.compareTo(config.getMaxLinkTTL()) > 0) {
             throw new URLShortenerException("Время жизни ссылки превышает максимально допустимое значение: " + config.getMaxLinkTTL().toSeconds() + " c.");
         }
 
         try {
-            Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
-            if (linkOptional.isEmpty()) {
-                throw new URLShortenerException("Ссылка не найдена.");
-            }
+            for (int attempt = 0; attempt < UPDATE_RETRIES; attempt++) {
+                Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
+                if (linkOptional.isEmpty()) {
+                    throw new URLShortenerException("Ссылка не найдена.");
+                }
 
-            Link link = linkOptional.get();
+                Link found = linkOptional.get();
 
-            if (!link.getUserID().equals(currentUser.getId())) {
-                throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
-            }
+                if (!found.getUserID().equals(userId)) {
+                    throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
+                }
 
-            if (link.getExpireDt().isBefore(LocalDateTime.now())) {
-                throw new URLShortenerException("Время жизни ссылки истекло.");
-            }
+                if (found.getExpireDt().isBefore(LocalDateTime.now())) {
+                    throw new URLShortenerException("Время жизни ссылки истекло.");
+                }
 
-            link.setExpireDt(link.getCreateDt().plus(newTimeToLive));
-            linkRepository.updateLink(link);
-            return link;
+                // Изменяется копия: читатели прежнего объекта не видят полуизмененную ссылку.
+                Link link = new Link(found);
+                link.setExpireDt(link.getCreateDt().plus(newTimeToLive));
+                applyBufferedClicks(link);
+                if (linkRepository.updateLink(link, found.getVersion())) {
+                    // Запись могла унести остаток кликов, прочитанный до последних переходов.
+                    clicks.touch(link.getId());
+                    return link;
+                }
+            }
+            throw new URLShortenerException("Ссылку одновременно изменяют другие запросы, повторите попытку.");
         } catch (LinkRepositoryException e) {
             throw new URLShortenerException("Ошибка при обновлении времени жизни ссылки: " + e.getMessage(),e);
         }
@@ -256,37 +729,58 @@ public class URLShortener {
      *             <li>ссылка не найдена,</li>
      *             <li>пользователь не является владельцем ссылки,</li>
      *             <li>новое количество кликов превышает максимально допустимое значение из конфигурации,</li>
+     *             <li>ссылку не удалось обновить за {@value #UPDATE_RETRIES} попыток из-за одновременных изменений,</li>
      *             <li>или произошла ошибка при сохранении изменений в репозитории.</li>
      *         </ul>
      */
     public Link updateLinkMaxClicks(String shortLink, int newMaxClicks) throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+        return updateLinkMaxClicks(currentUserId(), shortLink, newMaxClicks);
+    }
+
+    /**
+     * Обновляет максимальное количество кликов для ссылки от имени пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @see #updateLinkMaxClicks(String, int)
+     */
+    Link updateLinkMaxClicks(UUID userId, String shortLink, int newMaxClicks) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        checkUserRate(userId);
 
         if (newMaxClicks < 0) {
             throw new URLShortenerException("Число кликов не может быть < 0");
         }
 
         try {
-            Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
-            if (linkOptional.isEmpty()) {
-                throw new URLShortenerException("Ссылка не найдена.");
-            }
+            for (int attempt = 0; attempt < UPDATE_RETRIES; attempt++) {
+                Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
+                if (linkOptional.isEmpty()) {
+                    throw new URLShortenerException("Ссылка не найдена.");
+                }
 
-            Link link = linkOptional.get();
+                Link found = linkOptional.get();
 
-            if (!link.getUserID().equals(currentUser.getId())) {
-                throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
-            }
+                if (!found.getUserID().equals(userId)) {
+                    throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
+                }
 
-            if (link.getExpireDt().isBefore(LocalDateTime.now())) {
-                throw new URLShortenerException("Время жизни ссылки истекло.");
-            }
+                if (found.getExpireDt().isBefore(LocalDateTime.now())) {
+                    throw new URLShortenerException("Время жизни ссылки истекло.");
+                }
 
-            link.setClickCount(newMaxClicks);
-            linkRepository.updateLink(link);
-            return link;
+                Link link = new Link(found);
+                link.setClickCount(newMaxClicks);
+                if (linkRepository.updateLink(link, found.getVersion())) {
+                    clicks.set(link, newMaxClicks);
+                    if (newMaxClicks == 0) {
+                        publishExhausted(link);
+                    }
+                    return link;
+                }
+            }
+            throw new URLShortenerException("Ссылку одновременно изменяют другие запросы, повторите попытку.");
         } catch (LinkRepositoryException e) {
             throw new URLShortenerException("Ошибка при обновлении количества кликов для ссылки: " + e.getMessage(), e);
         }
@@ -309,46 +803,95 @@ public class URLShortener {
      *         </ul>
      */
     public void fetchShortLink(String shortLink) throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+        fetchShortLink(currentUserId(), shortLink, true);
+    }
+
+    /**
+     * Выполняет переход по короткой ссылке от имени пользователя, не меняя текущего, и не открывает браузер:
+     * вызывающий сам выполняет перенаправление.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @return ссылка после списания клика
+     * @see #fetchShortLink(String)
+     */
+    Link fetchShortLink(UUID userId, String shortLink) throws UserNotAuthorizedException, URLShortenerException {
+        return fetchShortLink(userId, shortLink, false);
+    }
+
+    private Link fetchShortLink(UUID userId, String shortLink, boolean browse) throws UserNotAuthorizedException, URLShortenerException {
+        FetchShortLinkEvent event = new FetchShortLinkEvent(shortLink, false);
+        event.begin();
+        try {
+            return fetchShortLink(userId, shortLink, browse, event);
+        } catch (RateLimitExceededException e) {
+            event.setOutcome(Outcome.RATE_LIMITED);
+            throw e;
+        } catch (UserNotAuthorizedException e) {
+            event.setOutcome(Outcome.REJECTED);
+            throw e;
+        } catch (URLShortenerException | RuntimeException e) {
+            event.fail(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private Link fetchShortLink(UUID userId, String shortLink, boolean browse, FetchShortLinkEvent event) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        checkUserRate(userId);
+        checkLinkRate(shortLink);
 
         try {
             Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
             if (linkOptional.isEmpty()) {
+                event.setOutcome(Outcome.NOT_FOUND);
                 throw new URLShortenerException("Ссылка не найдена.");
             }
 
             Link link = linkOptional.get();
+            event.setLinksScanned(1);
+            recordHit(shortLink);
 
-            if (!link.getUserID().equals(currentUser.getId())) {
+            if (!link.getUserID().equals(userId)) {
+                event.setOutcome(Outcome.REJECTED);
                 throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
             }
 
             if (link.getExpireDt().isBefore(LocalDateTime.now())) {
+                event.setOutcome(Outcome.EXPIRED);
                 throw new URLShortenerException("Время жизни ссылки истекло.");
             }
 
-            if (link.getClickCount() <= 0) {
-                throw new URLShortenerException("Число доступных кликов для этой ссылки равно 0.");
+            if (browse && !Desktop.isDesktopSupported()) {
+                throw new URLShortenerException("Открытие браузера не поддерживается на этой системе.");
             }
 
-            String longLink = link.getLongURL();
+            int remaining = clicks.consume(link);
+            if (remaining < 0) {
+                event.setOutcome(Outcome.EXHAUSTED);
+                publishExhausted(link);
+                throw new URLShortenerException("Число доступных кликов для этой ссылки равно 0.");
+            }
+            // Копия: ссылка из репозитория может быть его сохраненным объектом, а остаток в хранилище
+            // записывает только сброс буфера кликов.
+            Link result = new Link(link);
+            result.setClickCount(remaining);
+            if (remaining == 0) {
+                publishExhausted(result);
+            }
+            if (!browse) {
+                return result;
+            }
 
             try {
-                if (Desktop.isDesktopSupported()) {
-                    Desktop desktop = Desktop.getDesktop();
-                    URI uri = new URI(longLink);
-                    desktop.browse(uri);
-                } else {
-                    throw new URLShortenerException("Открытие браузера не поддерживается на этой системе.");
-                }
-
-                link.setClickCount(link.getClickCount() - 1);
-                linkRepository.updateLink(link);
-
+                Desktop desktop = Desktop.getDesktop();
+                desktop.browse(result.getURI());
+                return result;
             }
-            catch (URISyntaxException e) {
+            catch (IllegalArgumentException e) {
                 throw new URLShortenerException("Ошибка при чтении ссылки: "+ e.getMessage(), e);
             }
             catch (IOException e) {
@@ -363,6 +906,68 @@ public class URLShortener {
 
 
 
+    /**
+     * Разрешает короткую ссылку для HTTP-перенаправления и списывает один клик.
+     * В отличие от {@link #fetchShortLink(String)}, не требует авторизации и не открывает браузер,
+     * поэтому может вызываться одновременно из нескольких потоков сервера.
+     *
+     * @param shortLink короткая ссылка.
+     * @return ссылка после списания клика или пустой {@link Optional}, если ссылка не найдена,
+     *         истекла или клики закончились.
+     * @throws RateLimitExceededException если превышен лимит переходов по этой ссылке.
+     * @throws URLShortenerException если произошла ошибка при доступе к репозиторию ссылок.
+     */
+    public Optional<Link> resolveRedirect(String shortLink) throws URLShortenerException {
+        FetchShortLinkEvent event = new FetchShortLinkEvent(shortLink, true);
+        event.begin();
+        try {
+            return resolveRedirect(shortLink, event);
+        } catch (RateLimitExceededException e) {
+            event.setOutcome(Outcome.RATE_LIMITED);
+            throw e;
+        } catch (URLShortenerException | RuntimeException e) {
+            event.fail(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private Optional<Link> resolveRedirect(String shortLink, FetchShortLinkEvent event) throws URLShortenerException {
+        checkLinkRate(shortLink);
+        try {
+            Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
+            if (linkOptional.isEmpty()) {
+                event.setOutcome(Outcome.NOT_FOUND);
+                return Optional.empty();
+            }
+
+            Link link = linkOptional.get();
+            event.setLinksScanned(1);
+            recordHit(shortLink);
+
+            if (link.getExpireDt().isBefore(LocalDateTime.now())) {
+                event.setOutcome(Outcome.EXPIRED);
+                return Optional.empty();
+            }
+            int remaining = clicks.consume(link);
+            if (remaining < 0) {
+                event.setOutcome(Outcome.EXHAUSTED);
+                publishExhausted(link);
+                return Optional.empty();
+            }
+            Link result = new Link(link);
+            result.setClickCount(remaining);
+            if (remaining == 0) {
+                publishExhausted(result);
+            }
+            return Optional.of(result);
+        }
+        catch (LinkRepositoryException e) {
+            throw new URLShortenerException("Ошибка при доступе к репозиторию ссылок: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Удаляет ссылку.
      *
@@ -375,9 +980,20 @@ public class URLShortener {
      *         </ul>
      */
     public void deleteLink(String shortLink) throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+        deleteLink(currentUserId(), shortLink);
+    }
+
+    /**
+     * Удаляет ссылку от имени пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @see #deleteLink(String)
+     */
+    void deleteLink(UUID userId, String shortLink) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        checkUserRate(userId);
 
         try {
             Optional<Link> linkOptional = linkRepository.getLinkByShortUrl(shortLink);
@@ -387,7 +1003,7 @@ public class URLShortener {
 
             Link link = linkOptional.get();
 
-            if (!link.getUserID().equals(currentUser.getId())) {
+            if (!link.getUserID().equals(userId)) {
                 throw new URLShortenerException("Вы не являетесь владельцем этой ссылки.");
             }
 
@@ -396,6 +1012,7 @@ public class URLShortener {
             }
 
             linkRepository.deleteLink(link.getId());
+            release(link);
 
         } catch (LinkRepositoryException e) {
             throw new URLShortenerException("Ошибка при удалении ссылки: " + e.getMessage(),e);
@@ -403,44 +1020,296 @@ public class URLShortener {
     }
 
     /**
-     * Удаляет все истекшие ссылки или ссылки с превышенным количеством кликов для текущего пользователя
-     * и создает уведомления для каждой удаленной ссылки.
+     * Удаляет все истекшие ссылки и создает уведомления для каждой удаленной ссылки.
+     * Ссылки с исчерпанными кликами удаляются сразу после последнего клика; здесь удаляются только те
+     * из них, что остались после ошибки или перезапуска.
+     * Если задано {@link URLShortenerConfig#getSweepParallelism()} больше 1, хранилище очищается
+     * параллельно по разделам, а уведомления записываются порциями по мере очистки разделов.
      *
      *  @throws URLShortenerException если возникла ошибка в процессе удаления ссылок или создания уведомлений.
      */
-    public void deleteExpiredOrExceededLinks() throws URLShortenerException {
-
+    public void deleteExpiredLinks() throws URLShortenerException {
+        SweepEvent event = new SweepEvent(sweepPool != null ? sweepPool.getParallelism() : 1);
+        event.begin();
         try {
-            List<Link> userLinks = linkRepository.getAll();
-
-            for (Link link : userLinks) {
-                boolean shouldDelete = false;
-                Reason reason = null;
-
-                if (link.getExpireDt() != null && link.getExpireDt().isBefore(LocalDateTime.now())) {
-                    shouldDelete = true;
-                    reason = Reason.EXPIRED;
-                } else if (link.getClickCount() == 0) {
-                    shouldDelete = true;
-                    reason = Reason.OUT_OF_CLICKS;
+            LocalDateTime now = LocalDateTime.now();
+            int swept;
+            if (sweepPool != null) {
+                try {
+                    swept = linkRepository.deleteExpired(now, sweepPool, batch -> {
+                        try {
+                            notifyExpired(batch, now);
+                        } catch (NotificationsRepositoryException e) {
+                            throw new SweepNotificationException(e);
+                        }
+                    });
+                } catch (SweepNotificationException e) {
+                    throw (NotificationsRepositoryException) e.getCause();
                 }
+            } else {
+                List<Link> deleted = linkRepository.deleteExpired(now);
+                swept = deleted.size();
+                notifyExpired(deleted, now);
+            }
+            event.setLinksScanned(swept + deleteExhaustedLinks());
+        } catch (LinkRepositoryException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw new URLShortenerException("Ошибка при удалении ссылок пользователя: " + e.getMessage(), e);
+        } catch (NotificationsRepositoryException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw new URLShortenerException("Ошибка при добавлении уведомлений для пользователя: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            event.setOutcome(Outcome.FAILED);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Забывает счетчики кликов удаленных истекших ссылок и записывает уведомления их владельцам одним пакетом.
+     */
+    private void notifyExpired(List<Link> deletedLinks, LocalDateTime now) throws NotificationsRepositoryException {
+        List<Notification> notifications = new ArrayList<>(deletedLinks.size());
+        for (Link link : deletedLinks) {
+            release(link);
+            notifications.add(new Notification(UUID.randomUUID(), link.getUserID(), Reason.EXPIRED, link.getShortURL(), false, now));
+        }
 
-                if (shouldDelete) {
-                    linkRepository.deleteLink(link.getId());
+        if (!notifications.isEmpty()) {
+            notificationsRepository.addNotifications(notifications);
+        }
+    }
 
-                    String message = String.format("Ссылка с коротким адресом %s была удалена по причине: %s.",
-                            link.getShortURL(), reason.getDescription());
+    /**
+     * Ошибка записи уведомлений, вынесенная из потока параллельной очистки.
+     */
+    private static final class SweepNotificationException extends RuntimeException {
 
-                    Notification notification = new Notification(UUID.randomUUID(),link.getUserID(), message, false);
+        private static final long serialVersionUID = 1L;
 
-                    notificationsRepository.addNotification(notification);
-                }
+        SweepNotificationException(NotificationsRepositoryException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Возвращает самые посещаемые короткие ссылки по недавним переходам.
+     * Оценки приближенные: они не меньше истинного числа переходов и со временем затухают.
+     *
+     * @param n сколько ссылок вернуть.
+     * @return короткие ссылки с оценкой числа переходов в порядке убывания или пустой список,
+     *         если посещаемость не отслеживается.
+     */
+    public List<HeavyHitter> getTopLinks(int n) {
+        return hotLinks == null ? new ArrayList<>() : hotLinks.top(n);
+    }
+
+    /**
+     * Записывает все накопленные клики в репозиторий и останавливает фоновые потоки сервиса.
+     */
+    @Override
+    public void close() {
+        clicks.close();
+        if (sweepPool != null) {
+            sweepPool.shutdown();
+        }
+        if (userRateLimiter != null) {
+            userRateLimiter.close();
+        }
+        if (linkRateLimiter != null) {
+            linkRateLimiter.close();
+        }
+    }
+
+    /**
+     * Освобождает короткую ссылку удаленной ссылки и забывает ее счетчик кликов.
+     */
+    private void release(Link link) {
+        clicks.forget(link.getId());
+        if (shortLinksLoaded) {
+            shortLinks.remove(link.getShortURL());
+            return;
+        }
+        // Загрузка индекса могла прочитать ссылку до удаления: освобождаем ее только после загрузки.
+        synchronized (shortLinks) {
+            shortLinks.remove(link.getShortURL());
+        }
+    }
+
+    /**
+     * Загружает занятые короткие ссылки из репозитория при первом обращении к индексу.
+     */
+    private void ensureShortLinksLoaded() throws URLShortenerException {
+        if (shortLinksLoaded) {
+            return;
+        }
+        synchronized (shortLinks) {
+            if (shortLinksLoaded) {
+                return;
+            }
+            try (Stream<Link> links = linkRepository.stream()) {
+                links.forEach(link -> shortLinks.add(link.getShortURL()));
+            } catch (LinkRepositoryException e) {
+                throw new URLShortenerException("Ошибка при загрузке коротких ссылок: " + e.getMessage(), e);
+            } catch (UncheckedLinkRepositoryException e) {
+                throw new URLShortenerException("Ошибка при загрузке коротких ссылок: " + e.getMessage(), e.getCause());
             }
+            shortLinksLoaded = true;
+        }
+    }
+
+    /**
+     * Подставляет в ссылку остаток кликов из буфера, если он новее сохраненного в репозитории.
+     */
+    private void applyBufferedClicks(Link link) {
+        int remaining = clicks.remaining(link.getId());
+        if (remaining >= 0) {
+            link.setClickCount(remaining);
+        }
+    }
+
+    /**
+     * Возвращает копию ссылки из репозитория с остатком кликов из буфера: сама ссылка может быть
+     * сохраненным объектом репозитория и не изменяется.
+     */
+    private Link withBufferedClicks(Link link) {
+        Link copy = new Link(link);
+        applyBufferedClicks(copy);
+        return copy;
+    }
+
+    private void recordHit(String shortLink) {
+        if (hotLinks != null) {
+            hotLinks.record(shortLink);
+        }
+    }
+
+    /**
+     * Возвращает идентификатор текущего пользователя или null, если пользователь не авторизован.
+     */
+    private UUID currentUserId() {
+        return currentUser == null ? null : currentUser.getId();
+    }
+
+    /**
+     * Списывает токен из корзины пользователя.
+     *
+     * @throws RateLimitExceededException если пользователь превысил лимит операций.
+     */
+    private void checkUserRate(UUID userId) throws RateLimitExceededException {
+        if (userRateLimiter != null && !userRateLimiter.tryAcquire(userId)) {
+            throw new RateLimitExceededException("Слишком много запросов, повторите позже.");
+        }
+    }
+
+    /**
+     * Списывает токен из корзины короткой ссылки.
+     *
+     * @throws RateLimitExceededException если превышен лимит переходов по ссылке.
+     */
+    private void checkLinkRate(String shortLink) throws RateLimitExceededException {
+        if (linkRateLimiter != null && shortLink != null && !linkRateLimiter.tryAcquire(shortLink)) {
+            throw new RateLimitExceededException("Слишком много переходов по ссылке, повторите позже.");
+        }
+    }
+
+    private static String randomToken(int bytes) {
+        byte[] random = new byte[bytes];
+        RANDOM.nextBytes(random);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+
+    private static String sha256Hex(String secret) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Публикует событие исчерпания кликов. Ссылка удаляется, а владелец получает уведомление
+     * {@link Reason#OUT_OF_CLICKS} асинхронно, чтобы не задерживать переход по ссылке.
+     * Версия ссылки запоминается сейчас: событие обрабатывается, только если ссылку с тех пор не меняли.
+     *
+     * @param link ссылка, у которой не осталось кликов.
+     */
+    private void publishExhausted(Link link) {
+        long version = link.getVersion();
+        linkEvents.execute(() -> {
+            try {
+                deleteIfExhausted(link, version);
+            } catch (LinkRepositoryException | NotificationsRepositoryException e) {
+                // Ссылка остается: событие повторится при следующем переходе, а без переходов ее удалит очистка.
+                LOGGER.log(Level.WARNING, "Ошибка при обработке исчерпания кликов ссылки " + link.getShortURL(), e);
+            }
+        });
+    }
+
+    /**
+     * Удаляет ссылку с исчерпанными кликами и уведомляет владельца {@link Reason#OUT_OF_CLICKS}.
+     *
+     * <p>Ссылка перечитывается из репозитория и удаляется, только если это та же ссылка той же версии
+     * и остаток ее кликов (из буфера, а если по ней не было кликов, из репозитория) по-прежнему не больше 0.
+     * Иначе ссылку уже удалили, пересоздали или ей добавили клики, и она остается.</p>
+     *
+     * @param link    ссылка, у которой закончились клики.
+     * @param version версия ссылки, при которой клики закончились.
+     * @return true, если ссылка удалена.
+     */
+    private boolean deleteIfExhausted(Link link, long version) throws LinkRepositoryException, NotificationsRepositoryException {
+        Optional<Link> current = linkRepository.getLinkByShortUrl(link.getShortURL());
+        if (current.isEmpty() || !current.get().getId().equals(link.getId()) || current.get().getVersion() != version) {
+            return false;
+        }
+        int remaining = clicks.remaining(link.getId());
+        if ((remaining >= 0 ? remaining : current.get().getClickCount()) > 0) {
+            return false;
+        }
+        try {
+            linkRepository.deleteLink(link.getId());
         } catch (LinkRepositoryException e) {
-            throw new URLShortenerException("Ошибка при удалении ссылок пользователя: " + e.getMessage(), e);
-        } catch (NotificationsRepositoryException e) {
-            throw new URLShortenerException("Ошибка при добавлении уведомлений для пользователя: " + e.getMessage(), e);
+            if (isDeleted(link)) {
+                return false;
+            }
+            throw e;
+        }
+        release(link);
+        notificationsRepository.addNotification(new Notification(UUID.randomUUID(), link.getUserID(),
+                Reason.OUT_OF_CLICKS, link.getShortURL(), false, LocalDateTime.now()));
+        return true;
+    }
+
+    /**
+     * Удаляет ссылки, у которых не осталось кликов, но которые не удалило событие исчерпания:
+     * удаление не удалось, событие было отброшено из-за изменения ссылки или процесс остановился раньше.
+     *
+     * @return число удаленных ссылок.
+     */
+    private int deleteExhaustedLinks() throws LinkRepositoryException, NotificationsRepositoryException {
+        List<Link> exhausted;
+        try (Stream<Link> links = linkRepository.stream()) {
+            exhausted = links.filter(link -> link.getClickCount() <= 0).map(Link::new).collect(Collectors.toList());
+        } catch (UncheckedLinkRepositoryException e) {
+            throw e.getCause();
         }
+        int count = 0;
+        for (Link link : exhausted) {
+            if (deleteIfExhausted(link, link.getVersion())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, что ссылки больше нет в репозитории (ее удалил другой запрос или очистка).
+     */
+    private boolean isDeleted(Link link) throws LinkRepositoryException {
+        Optional<Link> current = linkRepository.getLinkByShortUrl(link.getShortURL());
+        return current.isEmpty() || !current.get().getId().equals(link.getId());
     }
 
     /**
@@ -455,8 +1324,75 @@ public class URLShortener {
             throw new UserNotAuthorizedException();
         }
 
+        return takeUnreadNotifications(currentUser.getId());
+    }
+
+    /**
+     * Подписывает получателя на новые уведомления пользователя.
+     * Получатель вызывается сразу после добавления уведомления, без опроса репозитория;
+     * уведомления при этом не помечаются как прочитанные.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param listener получатель уведомлений; не должен блокироваться.
+     * @return подписка, закрытие которой отменяет доставку.
+     */
+    public NotificationSubscription subscribeToNotifications(UUID userId, NotificationListener listener) {
+        return notificationsRepository.subscribe(userId, listener);
+    }
+
+    /**
+     * Ожидает новые уведомления пользователя (long-poll) и помечает полученные как прочитанные.
+     * Если непрочитанные уведомления уже есть, возвращает их сразу; иначе ждет, пока
+     * не будет добавлено уведомление или не истечет {@code timeout}. Во время ожидания поток
+     * не опрашивает репозиторий.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param timeout максимальное время ожидания.
+     * @return непрочитанные уведомления или пустой список, если за время ожидания их не появилось.
+     * @throws URLShortenerException если произошла ошибка при получении или обновлении уведомлений.
+     * @throws InterruptedException если поток был прерван во время ожидания.
+     */
+    public List<Notification> awaitNotifications(UUID userId, Duration timeout) throws URLShortenerException, InterruptedException {
+        CountDownLatch arrived = new CountDownLatch(1);
+        NotificationSubscription subscription = notificationsRepository.subscribe(userId, notification -> arrived.countDown());
+        try {
+            List<Notification> unread = takeUnreadNotifications(userId);
+            if (!unread.isEmpty() || !arrived.await(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return unread;
+            }
+        } finally {
+            subscription.close();
+        }
+        return takeUnreadNotifications(userId);
+    }
+
+    /**
+     * Помечает уведомления, доставленные по подписке, как прочитанные.
+     *
+     * @param notifications доставленные уведомления.
+     * @throws URLShortenerException если произошла ошибка при обновлении уведомлений.
+     */
+    public void markNotificationsAsRead(List<Notification> notifications) throws URLShortenerException {
+        try {
+            for (Notification notification : notifications) {
+                notification.markAsRead();
+                notificationsRepository.markNotificationAsRead(notification.getId());
+            }
+        } catch (NotificationsRepositoryException e) {
+            throw new URLShortenerException("Ошибка при обновлении уведомлений: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Возвращает непрочитанные уведомления пользователя и помечает их как прочитанные.
+     *
+     * @param userId идентификатор пользователя.
+     * @return непрочитанные уведомления.
+     * @throws URLShortenerException если произошла ошибка при получении или обновлении уведомлений.
+     */
+    public List<Notification> takeUnreadNotifications(UUID userId) throws URLShortenerException {
         try {
-            List<Notification> unreadNotifications = notificationsRepository.getUnreadNotificationsForUser(currentUser.getId());
+            List<Notification> unreadNotifications = notificationsRepository.getUnreadNotificationsForUser(userId);
 
             for (Notification notification : unreadNotifications) {
                 notification.markAsRead();
@@ -493,28 +1429,73 @@ public class URLShortener {
     }
 
     /**
-     * Возвращает все короткие ссылки текущего пользователя.
-     * @return ссылки текушего пользователя.
+     * Возвращает страницу коротких ссылок текущего пользователя в порядке создания.
+     *
+     * @param cursor   курсор из {@link LinkPage#getNextCursor()} предыдущей страницы или null для первой.
+     * @param pageSize размер страницы, от 1 до {@link #MAX_PAGE_SIZE}.
+     * @return страница ссылок текущего пользователя.
+     * @throws IllegalArgumentException если размер страницы вне допустимых пределов или курсор некорректен.
      */
-    public List<Link> getAllLinksForCurrentUser() throws UserNotAuthorizedException, URLShortenerException {
-        if (currentUser == null) {
+    public LinkPage getLinksForCurrentUser(String cursor, int pageSize) throws UserNotAuthorizedException, URLShortenerException {
+        return getLinksForUser(currentUserId(), cursor, pageSize);
+    }
+
+    /**
+     * Возвращает страницу коротких ссылок пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @see #getLinksForCurrentUser(String, int)
+     */
+    LinkPage getLinksForUser(UUID userId, String cursor, int pageSize) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
             throw new UserNotAuthorizedException();
         }
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
 
         try {
-            List<Link> ans = new ArrayList<>();
-            List<Link> links = linkRepository.getAll();
-
-            for (Link link : links) {
-                if (link.getUserID().equals(currentUser.getId())) {
-                    ans.add(link);
-                }
+            LinkPage page = linkRepository.getLinksForUser(userId, cursor, pageSize);
+            List<Link> links = new ArrayList<>(page.getLinks().size());
+            for (Link link : page.getLinks()) {
+                links.add(withBufferedClicks(link));
             }
+            return new LinkPage(links, page.getNextCursor());
+        } catch (LinkRepositoryException e) {
+            throw new URLShortenerException("Ошибка при получении ссылок пользователя", e);
+        }
+    }
 
-            return ans;
+    /**
+     * Возвращает все короткие ссылки текущего пользователя.
+     * Для пользователей с большим числом ссылок используйте {@link #getLinksForCurrentUser(String, int)}.
+     * @return ссылки текушего пользователя.
+     */
+    public List<Link> getAllLinksForCurrentUser() throws UserNotAuthorizedException, URLShortenerException {
+        return getAllLinksForUser(currentUserId());
+    }
+
+    /**
+     * Возвращает все короткие ссылки пользователя, не меняя текущего.
+     *
+     * @param userId идентификатор пользователя; null — пользователь не авторизован
+     * @see #getAllLinksForCurrentUser()
+     */
+    List<Link> getAllLinksForUser(UUID userId) throws UserNotAuthorizedException, URLShortenerException {
+        if (userId == null) {
+            throw new UserNotAuthorizedException();
+        }
+
+        try (Stream<Link> links = linkRepository.stream()) {
+            return links.filter(link -> userId.equals(link.getUserID()))
+                    .map(this::withBufferedClicks)
+                    .collect(Collectors.toList());
         }
         catch (LinkRepositoryException e) {
             throw new URLShortenerException("Ошибка при получении ссылок пользователя", e);
         }
+        catch (UncheckedLinkRepositoryException e) {
+            throw new URLShortenerException("Ошибка при получении ссылок пользователя", e.getCause());
+        }
     }
 }
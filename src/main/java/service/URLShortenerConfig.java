@@ -21,6 +21,137 @@ public class URLShortenerConfig {
      */
     private Duration maxLinkTTL;
 
+    /**
+     * Адрес JDBC-базы данных; null, если используется хранение в памяти.
+     */
+    private String jdbcUrl;
+
+    /**
+     * Имя пользователя JDBC-базы данных.
+     */
+    private String jdbcUser;
+
+    /**
+     * Пароль пользователя JDBC-базы данных.
+     */
+    private String jdbcPassword;
+
+    /**
+     * Размер пула JDBC-соединений.
+     */
+    private int jdbcPoolSize = 8;
+
+    /**
+     * Число сегментов хранилища ссылок в памяти; 0 — несегментированное хранилище.
+     */
+    private int linkShards;
+
+    /**
+     * Размер кольцевого буфера уведомлений одного пользователя.
+     */
+    private int notificationsPerUser = 100;
+
+    /**
+     * Максимальный возраст прочитанного уведомления.
+     */
+    private Duration notificationsReadTTL = Duration.ofDays(7);
+
+    /**
+     * Глобальный лимит числа уведомлений в памяти.
+     */
+    private int notificationsMaxTotal = 100_000;
+
+    /**
+     * Каталог хранилища ссылок в файлах, отображенных в память; null — хранилище в куче.
+     */
+    private String linkStorePath;
+
+    /**
+     * Емкость таблицы хранилища ссылок в файлах, отображенных в память.
+     */
+    private int linkStoreCapacity = 1 << 20;
+
+    /**
+     * Порт HTTP-сервера перенаправлений; 0 — сервер не запускается.
+     */
+    private int httpPort;
+
+    /**
+     * Число циклов событий HTTP-сервера перенаправлений.
+     */
+    private int httpEventLoops = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Максимальное число проверенных API-ключей в кеше.
+     */
+    private int apiKeyCacheSize = 10_000;
+
+    /**
+     * Время жизни проверенного API-ключа в кеше.
+     */
+    private Duration apiKeyCacheTTL = Duration.ofMinutes(5);
+
+    /**
+     * Лимит операций одного пользователя в секунду; 0 — без ограничения.
+     */
+    private int userRateLimit;
+
+    /**
+     * Сколько операций пользователь может выполнить подряд сверх средней скорости.
+     */
+    private int userRateBurst = 20;
+
+    /**
+     * Лимит переходов по одной короткой ссылке в секунду; 0 — без ограничения.
+     */
+    private int linkRateLimit;
+
+    /**
+     * Сколько переходов по одной ссылке допускается подряд сверх средней скорости.
+     */
+    private int linkRateBurst = 100;
+
+    /**
+     * Число отслеживаемых и закрепляемых в памяти самых посещаемых ссылок; 0 — не отслеживаются.
+     */
+    private int hotLinks;
+
+    /**
+     * Файл, в котором сохраняется список самых посещаемых ссылок; null — не сохраняется.
+     */
+    private String hotLinksFile;
+
+    /**
+     * Период обновления закрепленных ссылок.
+     */
+    private Duration hotLinksRefresh = Duration.ofSeconds(10);
+
+    /**
+     * Период записи накопленных в памяти счетчиков кликов в хранилище ссылок.
+     */
+    private Duration clickFlushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Число потоков очистки истекших ссылок; 1 — очистка идет в вызывающем потоке.
+     */
+    private int sweepParallelism = 1;
+
+    /**
+     * Хранить ссылки в памяти на неизменяемых индексах со снимками для читателей.
+     */
+    private boolean linkSnapshots;
+
+    /**
+     * Генератор коротких ссылок: {@code shared} — общий {@link java.security.SecureRandom},
+     * {@code thread-local} — собственный генератор в каждом потоке.
+     */
+    private String urlGenerator = "shared";
+
+    /**
+     * Емкость пула заранее проверенных коротких ссылок; 0 — пул не используется.
+     */
+    private int urlGeneratorPool;
+
     /**
      * Возвращает максимальное количество кликов по ссылке.
      *
@@ -39,6 +170,240 @@ public class URLShortenerConfig {
         return maxLinkTTL;
     }
 
+    /**
+     * Возвращает адрес JDBC-базы данных.
+     *
+     * @return адрес базы данных или null, если данные хранятся в памяти.
+     */
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /**
+     * Возвращает имя пользователя JDBC-базы данных.
+     *
+     * @return имя пользователя.
+     */
+    public String getJdbcUser() {
+        return jdbcUser;
+    }
+
+    /**
+     * Возвращает пароль пользователя JDBC-базы данных.
+     *
+     * @return пароль.
+     */
+    public String getJdbcPassword() {
+        return jdbcPassword;
+    }
+
+    /**
+     * Возвращает размер пула JDBC-соединений.
+     *
+     * @return число соединений в пуле.
+     */
+    public int getJdbcPoolSize() {
+        return jdbcPoolSize;
+    }
+
+    /**
+     * Возвращает число сегментов хранилища ссылок в памяти.
+     *
+     * @return число сегментов или 0, если хранилище не сегментировано.
+     */
+    public int getLinkShards() {
+        return linkShards;
+    }
+
+    /**
+     * Возвращает размер кольцевого буфера уведомлений одного пользователя.
+     *
+     * @return максимальное число уведомлений пользователя.
+     */
+    public int getNotificationsPerUser() {
+        return notificationsPerUser;
+    }
+
+    /**
+     * Возвращает максимальный возраст прочитанного уведомления.
+     *
+     * @return возраст, после которого прочитанное уведомление удаляется.
+     */
+    public Duration getNotificationsReadTTL() {
+        return notificationsReadTTL;
+    }
+
+    /**
+     * Возвращает глобальный лимит числа уведомлений в памяти.
+     *
+     * @return максимальное число уведомлений.
+     */
+    public int getNotificationsMaxTotal() {
+        return notificationsMaxTotal;
+    }
+
+    /**
+     * Возвращает каталог хранилища ссылок в файлах, отображенных в память.
+     *
+     * @return путь к каталогу или null, если ссылки хранятся в куче.
+     */
+    public String getLinkStorePath() {
+        return linkStorePath;
+    }
+
+    /**
+     * Возвращает емкость таблицы хранилища ссылок в файлах, отображенных в память.
+     *
+     * @return число записей таблицы.
+     */
+    public int getLinkStoreCapacity() {
+        return linkStoreCapacity;
+    }
+
+    /**
+     * Возвращает порт HTTP-сервера перенаправлений.
+     *
+     * @return порт или 0, если сервер не запускается.
+     */
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    /**
+     * Возвращает число циклов событий HTTP-сервера перенаправлений.
+     *
+     * @return число потоков-циклов событий.
+     */
+    public int getHttpEventLoops() {
+        return httpEventLoops;
+    }
+
+    /**
+     * Возвращает максимальное число проверенных API-ключей в кеше.
+     *
+     * @return емкость кеша API-ключей.
+     */
+    public int getApiKeyCacheSize() {
+        return apiKeyCacheSize;
+    }
+
+    /**
+     * Возвращает время жизни проверенного API-ключа в кеше.
+     *
+     * @return время, по истечении которого ключ снова проверяется по репозиторию.
+     */
+    public Duration getApiKeyCacheTTL() {
+        return apiKeyCacheTTL;
+    }
+
+    /**
+     * Возвращает лимит операций одного пользователя в секунду.
+     *
+     * @return лимит или 0, если операции пользователей не ограничиваются.
+     */
+    public int getUserRateLimit() {
+        return userRateLimit;
+    }
+
+    /**
+     * Возвращает число операций пользователя, допускаемых подряд.
+     *
+     * @return емкость корзины токенов пользователя.
+     */
+    public int getUserRateBurst() {
+        return userRateBurst;
+    }
+
+    /**
+     * Возвращает лимит переходов по одной короткой ссылке в секунду.
+     *
+     * @return лимит или 0, если переходы не ограничиваются.
+     */
+    public int getLinkRateLimit() {
+        return linkRateLimit;
+    }
+
+    /**
+     * Возвращает число переходов по одной ссылке, допускаемых подряд.
+     *
+     * @return емкость корзины токенов ссылки.
+     */
+    public int getLinkRateBurst() {
+        return linkRateBurst;
+    }
+
+    /**
+     * Возвращает число отслеживаемых и закрепляемых в памяти самых посещаемых ссылок.
+     *
+     * @return число ссылок или 0, если посещаемость не отслеживается.
+     */
+    public int getHotLinks() {
+        return hotLinks;
+    }
+
+    /**
+     * Возвращает путь к файлу списка самых посещаемых ссылок.
+     *
+     * @return путь или null, если список не сохраняется.
+     */
+    public String getHotLinksFile() {
+        return hotLinksFile;
+    }
+
+    /**
+     * Возвращает период обновления закрепленных ссылок.
+     *
+     * @return период обновления.
+     */
+    public Duration getHotLinksRefresh() {
+        return hotLinksRefresh;
+    }
+
+    /**
+     * Возвращает период записи накопленных счетчиков кликов в хранилище ссылок.
+     *
+     * @return период сброса счетчиков.
+     */
+    public Duration getClickFlushInterval() {
+        return clickFlushInterval;
+    }
+
+    /**
+     * Возвращает число потоков очистки истекших ссылок.
+     *
+     * @return число потоков; 1 — очистка выполняется последовательно.
+     */
+    public int getSweepParallelism() {
+        return sweepParallelism;
+    }
+
+    /**
+     * Возвращает, хранятся ли ссылки в памяти на неизменяемых индексах.
+     *
+     * @return true, если читатели работают со снимками хранилища, а писатели публикуют новые версии.
+     */
+    public boolean isLinkSnapshots() {
+        return linkSnapshots;
+    }
+
+    /**
+     * Возвращает режим генератора коротких ссылок.
+     *
+     * @return {@code shared} или {@code thread-local}.
+     */
+    public String getUrlGenerator() {
+        return urlGenerator;
+    }
+
+    /**
+     * Возвращает емкость пула заранее проверенных коротких ссылок.
+     *
+     * @return емкость пула; 0 — ссылки генерируются при создании.
+     */
+    public int getUrlGeneratorPool() {
+        return urlGeneratorPool;
+    }
+
     /**
      * Загружает конфигурацию из переменных окружения.
      *
@@ -58,6 +423,125 @@ public class URLShortenerConfig {
             }
 
             maxLinkTTL = Duration.parse(maxTTLEnv);
+
+            jdbcUrl = System.getenv("JDBC_URL");
+            jdbcUser = System.getenv("JDBC_USER");
+            jdbcPassword = System.getenv("JDBC_PASSWORD");
+
+            String poolSizeEnv = System.getenv("JDBC_POOL_SIZE");
+            if (poolSizeEnv != null) {
+                jdbcPoolSize = Integer.parseInt(poolSizeEnv);
+            }
+
+            String linkShardsEnv = System.getenv("LINK_SHARDS");
+            if (linkShardsEnv != null) {
+                linkShards = Integer.parseInt(linkShardsEnv);
+            }
+
+            String notificationsPerUserEnv = System.getenv("NOTIFICATIONS_PER_USER");
+            if (notificationsPerUserEnv != null) {
+                notificationsPerUser = Integer.parseInt(notificationsPerUserEnv);
+            }
+
+            String notificationsReadTTLEnv = System.getenv("NOTIFICATIONS_READ_TTL");
+            if (notificationsReadTTLEnv != null) {
+                notificationsReadTTL = Duration.parse(notificationsReadTTLEnv);
+            }
+
+            String notificationsMaxTotalEnv = System.getenv("NOTIFICATIONS_MAX_TOTAL");
+            if (notificationsMaxTotalEnv != null) {
+                notificationsMaxTotal = Integer.parseInt(notificationsMaxTotalEnv);
+            }
+
+            linkStorePath = System.getenv("LINK_STORE_PATH");
+
+            String linkStoreCapacityEnv = System.getenv("LINK_STORE_CAPACITY");
+            if (linkStoreCapacityEnv != null) {
+                linkStoreCapacity = Integer.parseInt(linkStoreCapacityEnv);
+            }
+
+            String httpPortEnv = System.getenv("HTTP_PORT");
+            if (httpPortEnv != null) {
+                httpPort = Integer.parseInt(httpPortEnv);
+            }
+
+            String httpEventLoopsEnv = System.getenv("HTTP_EVENT_LOOPS");
+            if (httpEventLoopsEnv != null) {
+                httpEventLoops = Integer.parseInt(httpEventLoopsEnv);
+            }
+
+            String apiKeyCacheSizeEnv = System.getenv("API_KEY_CACHE_SIZE");
+            if (apiKeyCacheSizeEnv != null) {
+                apiKeyCacheSize = Integer.parseInt(apiKeyCacheSizeEnv);
+            }
+
+            String apiKeyCacheTTLEnv = System.getenv("API_KEY_CACHE_TTL");
+            if (apiKeyCacheTTLEnv != null) {
+                apiKeyCacheTTL = Duration.parse(apiKeyCacheTTLEnv);
+            }
+
+            String userRateLimitEnv = System.getenv("USER_RATE_LIMIT");
+            if (userRateLimitEnv != null) {
+                userRateLimit = Integer.parseInt(userRateLimitEnv);
+            }
+
+            String userRateBurstEnv = System.getenv("USER_RATE_BURST");
+            if (userRateBurstEnv != null) {
+                userRateBurst = Integer.parseInt(userRateBurstEnv);
+            }
+
+            String linkRateLimitEnv = System.getenv("LINK_RATE_LIMIT");
+            if (linkRateLimitEnv != null) {
+                linkRateLimit = Integer.parseInt(linkRateLimitEnv);
+            }
+
+            String linkRateBurstEnv = System.getenv("LINK_RATE_BURST");
+            if (linkRateBurstEnv != null) {
+                linkRateBurst = Integer.parseInt(linkRateBurstEnv);
+            }
+
+            String hotLinksEnv = System.getenv("HOT_LINKS");
+            if (hotLinksEnv != null) {
+                hotLinks = Integer.parseInt(hotLinksEnv);
+            }
+
+            hotLinksFile = System.getenv("HOT_LINKS_FILE");
+
+            String hotLinksRefreshEnv = System.getenv("HOT_LINKS_REFRESH");
+            if (hotLinksRefreshEnv != null) {
+                hotLinksRefresh = Duration.parse(hotLinksRefreshEnv);
+            }
+
+            String clickFlushIntervalEnv = System.getenv("CLICK_FLUSH_INTERVAL");
+            if (clickFlushIntervalEnv != null) {
+                clickFlushInterval = Duration.parse(clickFlushIntervalEnv);
+            }
+
+            String sweepParallelismEnv = System.getenv("SWEEP_PARALLELISM");
+            if (sweepParallelismEnv != null) {
+                sweepParallelism = Integer.parseInt(sweepParallelismEnv);
+                if (sweepParallelism <= 0) {
+                    throw new IllegalArgumentException("SWEEP_PARALLELISM должен быть > 0");
+                }
+            }
+
+            linkSnapshots = Boolean.parseBoolean(System.getenv("LINK_SNAPSHOTS"));
+
+            String urlGeneratorEnv = System.getenv("URL_GENERATOR");
+            if (urlGeneratorEnv != null) {
+                if (!urlGeneratorEnv.equals("shared") && !urlGeneratorEnv.equals("thread-local")) {
+                    throw new IllegalArgumentException("URL_GENERATOR должен быть shared или thread-local");
+                }
+                urlGenerator = urlGeneratorEnv;
+            }
+
+            String urlGeneratorPoolEnv = System.getenv("URL_GENERATOR_POOL");
+            if (urlGeneratorPoolEnv != null) {
+                urlGeneratorPool = Integer.parseInt(urlGeneratorPoolEnv);
+                if (urlGeneratorPool < 0) {
+                    throw new IllegalArgumentException("URL_GENERATOR_POOL должен быть >= 0");
+                }
+            }
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("Некорректное значение переменной окружения: " + e.getMessage(), e);
         }
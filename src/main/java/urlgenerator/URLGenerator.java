@@ -14,4 +14,15 @@ public interface URLGenerator {
      * @return Строка, представляющая короткую ссылку, уникальную для каждой генерации
      */
     public String generateShortLink();
+
+    /**
+     * Возвращает короткую ссылку с заданным кодом, например для собственного псевдонима пользователя.
+     *
+     * @param code код короткой ссылки (часть после префикса).
+     * @return короткая ссылка с префиксом генератора.
+     * @throws UnsupportedOperationException если генератор не поддерживает заданные коды.
+     */
+    default String shortLinkFor(String code) {
+        throw new UnsupportedOperationException("Генератор не поддерживает собственные коды ссылок");
+    }
 }
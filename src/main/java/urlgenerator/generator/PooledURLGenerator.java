@@ -0,0 +1,229 @@
+package urlgenerator.generator;
+
+import linkrepository.LinkRepository;
+import linkrepository.LinkRepositoryException;
+import urlgenerator.URLGenerator;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Декоратор {@link URLGenerator}, выдающий короткие ссылки из заранее подготовленного пула.
+ * <p>
+ * Фоновый поток генерирует ссылки делегатом, проверяет их отсутствие в {@link LinkRepository}
+ * и складывает в неблокирующую очередь. Когда глубина пула опускается ниже нижней границы,
+ * поток пополняет его до емкости. Если пул пуст, ссылка генерируется и проверяется на месте.
+ * </p>
+ * <p>
+ * Проверка выполняется до выдачи, а ссылка занимается только при сохранении: пока выданная ссылка
+ * не сохранена, генератор может снова проверить и выдать тот же код. Поэтому пул только отсеивает
+ * заведомо занятые коды, и уникальность при сохранении по-прежнему проверяет вызывающий код.
+ * </p>
+ */
+public final class PooledURLGenerator implements URLGenerator, AutoCloseable {
+
+    /**
+     * Пауза перед повторной попыткой пополнения после ошибки репозитория.
+     */
+    private static final long ERROR_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Генератор, из которого пополняется пул.
+     */
+    private final URLGenerator delegate;
+
+    /**
+     * Репозиторий для проверки уникальности.
+     */
+    private final LinkRepository linkRepository;
+
+    /**
+     * Максимальное число ссылок в пуле.
+     */
+    private final int capacity;
+
+    /**
+     * Глубина пула, ниже которой запускается пополнение.
+     */
+    private final int lowWaterMark;
+
+    /**
+     * Проверенные ссылки, готовые к выдаче.
+     */
+    private final ConcurrentLinkedQueue<String> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Ссылки, находящиеся в пуле; защищает от выдачи одной ссылки дважды.
+     */
+    private final Set<String> pooled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Текущая глубина пула.
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Момент (System.nanoTime), когда пул опустился ниже нижней границы; 0, если пополнение не требуется.
+     */
+    private final AtomicLong belowSince = new AtomicLong();
+
+    /**
+     * Длительность последнего завершенного пополнения в наносекундах.
+     */
+    private volatile long lastRefillLagNanos;
+
+    /**
+     * Фоновый поток пополнения.
+     */
+    private final Thread refiller;
+
+    /**
+     * Признак остановки генератора.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Создает пул и запускает фоновое пополнение.
+     *
+     * @param delegate       генератор коротких ссылок.
+     * @param linkRepository репозиторий для проверки уникальности.
+     * @param capacity       максимальное число ссылок в пуле.
+     * @param lowWaterMark   глубина, ниже которой пул пополняется.
+     */
+    public PooledURLGenerator(URLGenerator delegate, LinkRepository linkRepository, int capacity, int lowWaterMark) {
+        if (capacity <= 0 || lowWaterMark < 0 || lowWaterMark >= capacity) {
+            throw new IllegalArgumentException("Требуется 0 <= lowWaterMark < capacity");
+        }
+        this.delegate = delegate;
+        this.linkRepository = linkRepository;
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+
+        belowSince.set(System.nanoTime());
+        refiller = new Thread(this::refillLoop, "short-link-pool-refill");
+        refiller.setDaemon(true);
+        refiller.start();
+    }
+
+    /**
+     * Выдает проверенную ссылку из пула, не блокируясь.
+     * Если пул пуст, ссылка генерируется и проверяется в вызывающем потоке.
+     *
+     * @return короткая ссылка, отсутствующая в репозитории на момент проверки.
+     */
+    @Override
+    public String generateShortLink() {
+        String shortLink = pool.poll();
+        if (shortLink != null) {
+            pooled.remove(shortLink);
+            if (depth.decrementAndGet() < lowWaterMark) {
+                signalRefill();
+            }
+            return shortLink;
+        }
+
+        signalRefill();
+        try {
+            String generated;
+            do {
+                generated = delegate.generateShortLink();
+            } while (pooled.contains(generated) || !isFree(generated));
+            return generated;
+        } catch (LinkRepositoryException e) {
+            throw new IllegalStateException("Ошибка при проверке уникальности короткой ссылки: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String shortLinkFor(String code) {
+        return delegate.shortLinkFor(code);
+    }
+
+    /**
+     * Возвращает текущее число ссылок в пуле.
+     *
+     * @return глубина пула.
+     */
+    public int getPoolDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Возвращает задержку пополнения: время с момента падения ниже нижней границы,
+     * если пополнение идет сейчас, иначе длительность последнего пополнения.
+     *
+     * @return задержка пополнения.
+     */
+    public Duration getRefillLag() {
+        long since = belowSince.get();
+        if (since != 0) {
+            return Duration.ofNanos(System.nanoTime() - since);
+        }
+        return Duration.ofNanos(lastRefillLagNanos);
+    }
+
+    /**
+     * Останавливает фоновое пополнение.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(refiller);
+    }
+
+    /**
+     * Фиксирует момент падения ниже нижней границы и будит поток пополнения.
+     */
+    private void signalRefill() {
+        belowSince.compareAndSet(0, System.nanoTime());
+        LockSupport.unpark(refiller);
+    }
+
+    /**
+     * Основной цикл потока пополнения.
+     */
+    private void refillLoop() {
+        while (!closed) {
+            if (belowSince.get() == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                while (!closed && depth.get() < capacity) {
+                    String shortLink = delegate.generateShortLink();
+                    if (isFree(shortLink) && pooled.add(shortLink)) {
+                        pool.offer(shortLink);
+                        depth.incrementAndGet();
+                    }
+                }
+                long since = belowSince.getAndSet(0);
+                if (since != 0) {
+                    lastRefillLagNanos = System.nanoTime() - since;
+                }
+                if (depth.get() < lowWaterMark) {
+                    belowSince.compareAndSet(0, System.nanoTime());
+                }
+            } catch (LinkRepositoryException e) {
+                LockSupport.parkNanos(this, ERROR_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что ссылка не занята в репозитории.
+     *
+     * @param shortLink короткая ссылка.
+     * @return true, если ссылка свободна.
+     * @throws LinkRepositoryException если произошла ошибка при обращении к репозиторию.
+     */
+    private boolean isFree(String shortLink) throws LinkRepositoryException {
+        return linkRepository.getLinkByShortUrl(shortLink).isEmpty();
+    }
+}
@@ -0,0 +1,181 @@
+package urlgenerator.generator;
+
+import urlgenerator.URLGenerator;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+
+/**
+ * Реализация интерфейса {@link URLGenerator}, не разделяющая источник случайности между потоками.
+ * <p>
+ * Каждый поток получает собственный быстрый генератор {@link SplittableRandom}, засеянный из
+ * {@link SecureRandom} и периодически пересеваемый. Случайные биты на весь код берутся одним вызовом
+ * (или несколькими, если код не помещается в 64 бита) и кодируются в заранее выделенный буфер символов,
+ * уже содержащий префикс.
+ * </p>
+ */
+public class ThreadLocalURLGenerator implements URLGenerator {
+
+    /**
+     * Стандартный алфавит
+     */
+    private static final String DEFAULT_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    /**
+     * Префикс для ссылки.
+     */
+    private static final String DEFAULT_PREFIX = "https://clck.ru/";
+
+    /**
+     * Максимальная длина генерируемой части.
+     */
+    private static final int DEFAULT_SHORT_URL_LENGTH = 6;
+
+    /**
+     * Число кодов, после генерации которых локальный генератор потока пересеивается.
+     */
+    private static final int DEFAULT_RESEED_INTERVAL = 1 << 16;
+
+    /**
+     * Источник зерна для локальных генераторов.
+     */
+    private static final SecureRandom seedSource = new SecureRandom();
+
+    /**
+     * Алфавит для генерации.
+     */
+    private final char[] alphabet;
+
+    /**
+     * Префикс для ссылки.
+     */
+    private final String prefix;
+
+    /**
+     * Длина генерируемой части.
+     */
+    private final int shortUrlLength;
+
+    /**
+     * Число символов кода, кодируемых из одного случайного значения.
+     */
+    private final int charsPerDraw;
+
+    /**
+     * Верхняя граница случайного значения для {@link #charsPerDraw} символов (alphabet.length ^ charsPerDraw).
+     */
+    private final long drawBound;
+
+    /**
+     * Число кодов между пересевами локального генератора.
+     */
+    private final int reseedInterval;
+
+    /**
+     * Состояние генерации для каждого потока.
+     */
+    private final ThreadLocal<State> state;
+
+    /**
+     * Конструктор по умолчанию, использующий значения по умолчанию для параметров.
+     */
+    public ThreadLocalURLGenerator() {
+        this(DEFAULT_ALPHABET, DEFAULT_PREFIX, DEFAULT_SHORT_URL_LENGTH, DEFAULT_RESEED_INTERVAL);
+    }
+
+    /**
+     * Конструктор с параметрами для конфигурирования.
+     *
+     * @param alphabet       строка, содержащая символы, которые могут быть использованы для генерации короткой ссылки.
+     * @param prefix         префикс для короткой ссылки (например, "https://short.ly/").
+     * @param shortUrlLength длина короткой ссылки.
+     * @param reseedInterval число кодов, после которых генератор потока пересеивается из {@link SecureRandom}.
+     */
+    public ThreadLocalURLGenerator(String alphabet, String prefix, int shortUrlLength, int reseedInterval) {
+        this.alphabet = (alphabet != null && alphabet.length() > 1 ? alphabet : DEFAULT_ALPHABET).toCharArray();
+        this.prefix = prefix != null ? prefix : DEFAULT_PREFIX;
+        this.shortUrlLength = shortUrlLength > 0 ? shortUrlLength : DEFAULT_SHORT_URL_LENGTH;
+        this.reseedInterval = reseedInterval > 0 ? reseedInterval : DEFAULT_RESEED_INTERVAL;
+
+        int chars = 0;
+        long bound = 1;
+        while (chars < this.shortUrlLength && bound <= Long.MAX_VALUE / this.alphabet.length) {
+            bound *= this.alphabet.length;
+            chars++;
+        }
+        this.charsPerDraw = chars;
+        this.drawBound = bound;
+
+        this.state = ThreadLocal.withInitial(() -> new State(this.prefix, this.shortUrlLength));
+    }
+
+    /**
+     * Генерирует короткую ссылку с заданной длиной и префиксом.
+     * <p>
+     * Случайное значение в диапазоне [0, alphabet.length ^ charsPerDraw) раскладывается по основанию
+     * размера алфавита, каждая цифра становится символом кода.
+     * </p>
+     *
+     * @return сгенерированная короткая ссылка.
+     */
+    @Override
+    public String generateShortLink() {
+        State local = state.get();
+        if (++local.generated >= reseedInterval) {
+            local.reseed();
+        }
+
+        char[] buffer = local.buffer;
+        int radix = alphabet.length;
+        int pos = prefix.length();
+        int end = buffer.length;
+
+        while (pos < end) {
+            long value = local.random.nextLong(drawBound);
+            int chunk = Math.min(charsPerDraw, end - pos);
+            for (int i = 0; i < chunk; i++) {
+                buffer[pos++] = alphabet[(int) (value % radix)];
+                value /= radix;
+            }
+        }
+
+        return new String(buffer);
+    }
+
+    /**
+     * Состояние генерации одного потока: локальный генератор и буфер с префиксом.
+     */
+    private static final class State {
+
+        /**
+         * Буфер ссылки; первые символы заняты префиксом и не перезаписываются.
+         */
+        private final char[] buffer;
+
+        /**
+         * Локальный генератор случайных чисел.
+         */
+        private SplittableRandom random;
+
+        /**
+         * Число кодов, сгенерированных с момента последнего пересева.
+         */
+        private int generated;
+
+        private State(String prefix, int shortUrlLength) {
+            this.buffer = new char[prefix.length() + shortUrlLength];
+            prefix.getChars(0, prefix.length(), buffer, 0);
+            reseed();
+        }
+
+        private void reseed() {
+            random = new SplittableRandom(seedSource.nextLong());
+            generated = 0;
+        }
+    }
+
+    @Override
+    public String shortLinkFor(String code) {
+        return prefix + code;
+    }
+}
@@ -88,4 +88,8 @@ public class URLGeneratorImpl implements URLGenerator {
         return prefix + shortLink;
     }
 
+    @Override
+    public String shortLinkFor(String code) {
+        return prefix + code;
+    }
 }
@@ -0,0 +1,32 @@
+package userrepository;
+
+import entity.User;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link UserRepository}.
+ *
+ * <p>Методы не блокируют вызывающий поток и возвращают {@link CompletableFuture}. При ошибке будущее
+ * завершается исключительно с {@link UserRepositoryException}.</p>
+ */
+public interface AsyncUserRepository {
+
+    /**
+     * Добавляет пользователя в репозиторий.
+     *
+     * @param user объект пользователя, который необходимо добавить.
+     * @return будущее, завершающееся после добавления.
+     */
+    CompletableFuture<Void> addUser(User user);
+
+    /**
+     * Отдает пользователя по его UUID.
+     *
+     * @param userId уникальный идентификатор пользователя.
+     * @return будущее с {@link Optional}, содержащим пользователя, если он найден.
+     */
+    CompletableFuture<Optional<User>> getUser(UUID userId);
+}
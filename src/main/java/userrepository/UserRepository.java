@@ -1,5 +1,6 @@
 package userrepository;
 
+import entity.ApiKey;
 import entity.User;
 
 import java.util.Optional;
@@ -8,7 +9,8 @@ import java.util.UUID;
 /**
  * Интерфейс UserRepository предоставляет операции для управления пользователями.
  *
- * <p>Определяет методы для добавления пользователей и проверки их существования.</p>
+ * <p>Определяет методы для добавления пользователей и проверки их существования,
+ * а также для хранения API-ключей пользователей.</p>
  */
 public interface UserRepository {
 
@@ -28,6 +30,32 @@ public interface UserRepository {
      * @throws UserRepositoryException если произошла ошибка при проверке существования пользователя.
      */
     Optional<User> getUser(UUID userId) throws UserRepositoryException;
+
+    /**
+     * Сохраняет API-ключ пользователя.
+     *
+     * @param apiKey ключ с хешем секрета.
+     * @throws UserRepositoryException если ключ с таким идентификатором уже существует или произошла ошибка при сохранении.
+     */
+    void addApiKey(ApiKey apiKey) throws UserRepositoryException;
+
+    /**
+     * Отдает API-ключ по его идентификатору.
+     *
+     * @param keyId идентификатор ключа.
+     * @return {@link Optional} с ключом, если он существует.
+     * @throws UserRepositoryException если произошла ошибка при получении ключа.
+     */
+    Optional<ApiKey> getApiKey(String keyId) throws UserRepositoryException;
+
+    /**
+     * Удаляет (отзывает) API-ключ.
+     *
+     * @param keyId идентификатор ключа.
+     * @return true, если ключ был удален; false, если ключа не было.
+     * @throws UserRepositoryException если произошла ошибка при удалении ключа.
+     */
+    boolean deleteApiKey(String keyId) throws UserRepositoryException;
 }
 
 
@@ -14,4 +14,14 @@ public class UserRepositoryException extends Exception {
         super(message);
     }
 
+    /**
+     * Конструктор, который создает исключение с сообщением и причиной.
+     *
+     * @param message сообщение об ошибке.
+     * @param cause   причина ошибки.
+     */
+    public UserRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
 }
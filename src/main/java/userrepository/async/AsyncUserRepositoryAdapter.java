@@ -0,0 +1,76 @@
+package userrepository.async;
+
+import entity.User;
+import userrepository.AsyncUserRepository;
+import userrepository.UserRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Адаптер, предоставляющий синхронный {@link UserRepository} через интерфейс {@link AsyncUserRepository}.
+ *
+ * <p>Каждый вызов выполняется на переданном {@link Executor}.</p>
+ */
+public class AsyncUserRepositoryAdapter implements AsyncUserRepository {
+
+    /**
+     * Синхронный репозиторий.
+     */
+    private final UserRepository delegate;
+
+    /**
+     * Исполнитель блокирующих вызовов.
+     */
+    private final Executor executor;
+
+    /**
+     * Конструктор адаптера.
+     *
+     * @param delegate синхронный репозиторий.
+     * @param executor исполнитель, на котором выполняются вызовы репозитория.
+     */
+    public AsyncUserRepositoryAdapter(UserRepository delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> addUser(User user) {
+        return call(() -> {
+            delegate.addUser(user);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> getUser(UUID userId) {
+        return call(() -> delegate.getUser(userId));
+    }
+
+    /**
+     * Выполняет вызов репозитория на исполнителе.
+     *
+     * @param call вызов репозитория.
+     * @return будущее с результатом вызова.
+     */
+    private <T> CompletableFuture<T> call(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
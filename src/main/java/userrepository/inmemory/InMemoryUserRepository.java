@@ -1,5 +1,6 @@
 package userrepository.inmemory;
 
+import entity.ApiKey;
 import entity.User;
 import userrepository.UserRepository;
 import userrepository.UserRepositoryException;
@@ -8,6 +9,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Реализация интерфейса UserRepository для хранения пользователей в памяти.
@@ -23,6 +25,12 @@ public class InMemoryUserRepository implements UserRepository {
      */
     private final Map<UUID, User> userStorage = new HashMap<>();
 
+    /**
+     * Хранилище API-ключей по их идентификатору.
+     * Ключи проверяются из потоков HTTP-сервера, поэтому карта потокобезопасна.
+     */
+    private final Map<String, ApiKey> apiKeyStorage = new ConcurrentHashMap<>();
+
     /**
      * Добавляет пользователя в хранилище.
      *
@@ -52,5 +60,30 @@ public class InMemoryUserRepository implements UserRepository {
         }
         return Optional.of(userStorage.get(userId));
     }
-}
 
+    @Override
+    public void addApiKey(ApiKey apiKey) throws UserRepositoryException {
+        if (apiKey == null || apiKey.getId() == null) {
+            throw new UserRepositoryException("API key or API key ID cannot be null");
+        }
+        if (apiKeyStorage.putIfAbsent(apiKey.getId(), apiKey) != null) {
+            throw new UserRepositoryException("API-ключ с таким ID уже существует.");
+        }
+    }
+
+    @Override
+    public Optional<ApiKey> getApiKey(String keyId) throws UserRepositoryException {
+        if (keyId == null) {
+            throw new UserRepositoryException("API key ID cannot be null");
+        }
+        return Optional.ofNullable(apiKeyStorage.get(keyId));
+    }
+
+    @Override
+    public boolean deleteApiKey(String keyId) throws UserRepositoryException {
+        if (keyId == null) {
+            throw new UserRepositoryException("API key ID cannot be null");
+        }
+        return apiKeyStorage.remove(keyId) != null;
+    }
+}
@@ -0,0 +1,151 @@
+package userrepository.jdbc;
+
+import entity.ApiKey;
+import entity.User;
+import jdbc.ConnectionPool;
+import jdbc.PooledConnection;
+import userrepository.UserRepository;
+import userrepository.UserRepositoryException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Реализация интерфейса UserRepository поверх JDBC.
+ *
+ * <p>Пользователи хранятся в таблице {@code users}, идентификатор пользователя является первичным ключом.
+ * API-ключи хранятся в таблице {@code api_keys}: вместо секрета в ней лежит только его хеш.</p>
+ */
+public class JdbcUserRepository implements UserRepository {
+
+    private static final String INSERT = "INSERT INTO users (id) VALUES (?)";
+
+    private static final String SELECT_BY_ID = "SELECT id FROM users WHERE id = ?";
+
+    private static final String INSERT_API_KEY = "INSERT INTO api_keys (id, user_id, secret_hash, create_dt) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_API_KEY = "SELECT id, user_id, secret_hash, create_dt FROM api_keys WHERE id = ?";
+
+    private static final String DELETE_API_KEY = "DELETE FROM api_keys WHERE id = ?";
+
+    /**
+     * Пул соединений.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Создает репозиторий и, при необходимости, таблицу пользователей.
+     *
+     * @param pool пул соединений.
+     * @throws UserRepositoryException если не удалось создать схему.
+     */
+    public JdbcUserRepository(ConnectionPool pool) throws UserRepositoryException {
+        this.pool = pool;
+        createSchema();
+    }
+
+    @Override
+    public void addUser(User user) throws UserRepositoryException {
+        if (user == null || user.getId() == null) {
+            throw new UserRepositoryException("User or User ID cannot be null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(INSERT);
+            statement.setString(1, user.getId().toString());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при добавлении пользователя.", e);
+        }
+    }
+
+    @Override
+    public Optional<User> getUser(UUID userId) throws UserRepositoryException {
+        if (userId == null) {
+            throw new UserRepositoryException("User ID cannot be null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_BY_ID);
+            statement.setString(1, userId.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.of(new User(UUID.fromString(rs.getString(1)))) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при получении пользователя.", e);
+        }
+    }
+
+    @Override
+    public void addApiKey(ApiKey apiKey) throws UserRepositoryException {
+        if (apiKey == null || apiKey.getId() == null) {
+            throw new UserRepositoryException("API key or API key ID cannot be null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(INSERT_API_KEY);
+            statement.setString(1, apiKey.getId());
+            statement.setString(2, apiKey.getUserID().toString());
+            statement.setString(3, apiKey.getSecretHash());
+            statement.setTimestamp(4, Timestamp.valueOf(apiKey.getCreateDt()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при добавлении API-ключа.", e);
+        }
+    }
+
+    @Override
+    public Optional<ApiKey> getApiKey(String keyId) throws UserRepositoryException {
+        if (keyId == null) {
+            throw new UserRepositoryException("API key ID cannot be null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_API_KEY);
+            statement.setString(1, keyId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ApiKey(rs.getString(1), UUID.fromString(rs.getString(2)),
+                        rs.getString(3), rs.getTimestamp(4).toLocalDateTime()));
+            }
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при получении API-ключа.", e);
+        }
+    }
+
+    @Override
+    public boolean deleteApiKey(String keyId) throws UserRepositoryException {
+        if (keyId == null) {
+            throw new UserRepositoryException("API key ID cannot be null");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(DELETE_API_KEY);
+            statement.setString(1, keyId);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при удалении API-ключа.", e);
+        }
+    }
+
+    /**
+     * Создает таблицы пользователей и API-ключей, если они еще не существуют.
+     *
+     * @throws UserRepositoryException если произошла ошибка при выполнении DDL.
+     */
+    private void createSchema() throws UserRepositoryException {
+        try (PooledConnection connection = pool.acquire();
+             Statement statement = connection.connection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS users (id CHAR(36) PRIMARY KEY)");
+            statement.execute("CREATE TABLE IF NOT EXISTS api_keys ("
+                    + "id VARCHAR(32) PRIMARY KEY, "
+                    + "user_id CHAR(36) NOT NULL, "
+                    + "secret_hash CHAR(64) NOT NULL, "
+                    + "create_dt TIMESTAMP NOT NULL)");
+        } catch (SQLException e) {
+            throw new UserRepositoryException("Ошибка при создании таблицы пользователей.", e);
+        }
+    }
+}